@@ -0,0 +1,151 @@
+package io.github.starlightcs.benchmark;
+
+import io.github.starlightcs.filter.BodyRequestWrapper;
+import io.github.starlightcs.json.JsonEngineType;
+import io.github.starlightcs.json.JsonEngines;
+import io.github.starlightcs.multirequest.MultiRequestBodyArgumentResolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.DefaultDataBinderFactory;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参数解析基准测试
+ * <p>模拟一次请求中同一 handler 的所有 @MultiRequestBody 参数依次解析：首个参数解析 body，其余参数复用解析结果。
+ * body 已由 {@link BodyRequestWrapper} 缓存，测量范围为 body 解析、类型转换、数据绑定与校验
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArgumentResolverBenchmark {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /**
+     * 绑定类型：primitive 为 Integer，dto 为嵌套 DTO，generic 为 List&lt;DTO&gt;
+     */
+    @Param({"primitive", "dto", "generic"})
+    private String binding;
+
+    /**
+     * 同一 body 中解析的参数个数
+     */
+    @Param({"1", "4", "16"})
+    private int parameterCount;
+
+    /**
+     * 参数是否带 @Valid
+     */
+    @Param({"false", "true"})
+    private boolean validation;
+
+    @Param({"JACKSON", "FASTJSON2", "FASTJSON"})
+    private JsonEngineType jsonEngine;
+
+    private MultiRequestBodyArgumentResolver resolver;
+
+    private MethodParameter[] parameters;
+
+    private ReplayableServletRequest request;
+
+    private BodyRequestWrapper wrapper;
+
+    private WebDataBinderFactory binderFactory;
+
+    @Setup
+    public void setup() throws Exception {
+        resolver = new MultiRequestBodyArgumentResolver(false, JsonEngines.create(jsonEngine, null, null));
+        Method method = BenchmarkHandler.class.getMethod(binding + parameterCount + (validation ? "Valid" : ""), parameterTypes());
+        parameters = new MethodParameter[method.getParameterCount()];
+        for (int i = 0; i < parameters.length; i++) {
+            // 与 RequestMappingHandlerAdapter 一致，参数对象在应用生命周期内复用
+            parameters[i] = new SynthesizingMethodParameter(method, i);
+            parameters[i].initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+        }
+        request = new ReplayableServletRequest("/bind", createBody().getBytes(StandardCharsets.UTF_8));
+        wrapper = new BodyRequestWrapper(request);
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        ConfigurableWebBindingInitializer initializer = new ConfigurableWebBindingInitializer();
+        initializer.setValidator(validator);
+        binderFactory = new DefaultDataBinderFactory(initializer);
+    }
+
+    @Benchmark
+    public void resolve(Blackhole blackhole) throws Exception {
+        // 清除上一次调用缓存的 body 解析结果，模拟新的请求
+        request.clearAttributes();
+        ServletWebRequest webRequest = new ServletWebRequest(wrapper);
+        ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+        for (MethodParameter parameter : parameters) {
+            blackhole.consume(resolver.resolveArgument(parameter, mavContainer, webRequest, binderFactory));
+        }
+    }
+
+    private Class<?>[] parameterTypes() {
+        Class<?> type;
+        switch (binding) {
+            case "dto":
+                type = BenchmarkDto.class;
+                break;
+            case "generic":
+                type = List.class;
+                break;
+            default:
+                type = Integer.class;
+        }
+        Class<?>[] types = new Class<?>[parameterCount];
+        Arrays.fill(types, type);
+        return types;
+    }
+
+    /**
+     * body 中包含 16 个参数及一个无关的 key
+     */
+    private String createBody() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 16; i++) {
+            sb.append("\"p").append(i).append("\":");
+            switch (binding) {
+                case "dto":
+                    sb.append(dto(i));
+                    break;
+                case "generic":
+                    sb.append('[');
+                    for (int j = 0; j < 8; j++) {
+                        sb.append(j == 0 ? "" : ",").append(dto(i * 8 + j));
+                    }
+                    sb.append(']');
+                    break;
+                default:
+                    sb.append(i);
+            }
+            sb.append(',');
+        }
+        return sb.append("\"ignored\":{\"a\":[1,2,3],\"b\":\"c\"}}").toString();
+    }
+
+    private static String dto(int id) {
+        return "{\"id\":" + id + ",\"name\":\"name-" + id + "\",\"tags\":[\"a\",\"b\",\"c\"],"
+                + "\"child\":{\"id\":" + (id + 1000) + ",\"name\":\"child-" + id + "\"}}";
+    }
+}
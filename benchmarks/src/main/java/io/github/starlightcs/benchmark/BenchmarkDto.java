@@ -0,0 +1,57 @@
+package io.github.starlightcs.benchmark;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 基准测试使用的嵌套 DTO
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BenchmarkDto {
+
+    @NotNull
+    private Long id;
+
+    @Size(max = 64)
+    private String name;
+
+    private List<String> tags;
+
+    @Valid
+    private BenchmarkDto child;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public BenchmarkDto getChild() {
+        return child;
+    }
+
+    public void setChild(BenchmarkDto child) {
+        this.child = child;
+    }
+}
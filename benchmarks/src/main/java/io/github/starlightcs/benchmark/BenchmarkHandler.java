@@ -0,0 +1,110 @@
+package io.github.starlightcs.benchmark;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * 基准测试使用的 handler
+ * <p>方法名为 绑定类型 + 参数个数 + 是否校验，例如 dto4Valid 表示 4 个带 @Valid 的 DTO 参数
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@SuppressWarnings("unused")
+public class BenchmarkHandler {
+
+    public void primitive1(@MultiRequestBody Integer p0) {
+    }
+
+    public void primitive4(@MultiRequestBody Integer p0, @MultiRequestBody Integer p1, @MultiRequestBody Integer p2,
+                           @MultiRequestBody Integer p3) {
+    }
+
+    public void primitive16(@MultiRequestBody Integer p0, @MultiRequestBody Integer p1, @MultiRequestBody Integer p2,
+                            @MultiRequestBody Integer p3, @MultiRequestBody Integer p4, @MultiRequestBody Integer p5,
+                            @MultiRequestBody Integer p6, @MultiRequestBody Integer p7, @MultiRequestBody Integer p8,
+                            @MultiRequestBody Integer p9, @MultiRequestBody Integer p10, @MultiRequestBody Integer p11,
+                            @MultiRequestBody Integer p12, @MultiRequestBody Integer p13, @MultiRequestBody Integer p14,
+                            @MultiRequestBody Integer p15) {
+    }
+
+    public void primitive1Valid(@MultiRequestBody @Valid Integer p0) {
+    }
+
+    public void primitive4Valid(@MultiRequestBody @Valid Integer p0, @MultiRequestBody @Valid Integer p1, @MultiRequestBody @Valid Integer p2,
+                                @MultiRequestBody @Valid Integer p3) {
+    }
+
+    public void primitive16Valid(@MultiRequestBody @Valid Integer p0, @MultiRequestBody @Valid Integer p1, @MultiRequestBody @Valid Integer p2,
+                                 @MultiRequestBody @Valid Integer p3, @MultiRequestBody @Valid Integer p4, @MultiRequestBody @Valid Integer p5,
+                                 @MultiRequestBody @Valid Integer p6, @MultiRequestBody @Valid Integer p7, @MultiRequestBody @Valid Integer p8,
+                                 @MultiRequestBody @Valid Integer p9, @MultiRequestBody @Valid Integer p10, @MultiRequestBody @Valid Integer p11,
+                                 @MultiRequestBody @Valid Integer p12, @MultiRequestBody @Valid Integer p13, @MultiRequestBody @Valid Integer p14,
+                                 @MultiRequestBody @Valid Integer p15) {
+    }
+
+    public void dto1(@MultiRequestBody BenchmarkDto p0) {
+    }
+
+    public void dto4(@MultiRequestBody BenchmarkDto p0, @MultiRequestBody BenchmarkDto p1, @MultiRequestBody BenchmarkDto p2,
+                     @MultiRequestBody BenchmarkDto p3) {
+    }
+
+    public void dto16(@MultiRequestBody BenchmarkDto p0, @MultiRequestBody BenchmarkDto p1, @MultiRequestBody BenchmarkDto p2,
+                      @MultiRequestBody BenchmarkDto p3, @MultiRequestBody BenchmarkDto p4, @MultiRequestBody BenchmarkDto p5,
+                      @MultiRequestBody BenchmarkDto p6, @MultiRequestBody BenchmarkDto p7, @MultiRequestBody BenchmarkDto p8,
+                      @MultiRequestBody BenchmarkDto p9, @MultiRequestBody BenchmarkDto p10, @MultiRequestBody BenchmarkDto p11,
+                      @MultiRequestBody BenchmarkDto p12, @MultiRequestBody BenchmarkDto p13, @MultiRequestBody BenchmarkDto p14,
+                      @MultiRequestBody BenchmarkDto p15) {
+    }
+
+    public void dto1Valid(@MultiRequestBody @Valid BenchmarkDto p0) {
+    }
+
+    public void dto4Valid(@MultiRequestBody @Valid BenchmarkDto p0, @MultiRequestBody @Valid BenchmarkDto p1, @MultiRequestBody @Valid BenchmarkDto p2,
+                          @MultiRequestBody @Valid BenchmarkDto p3) {
+    }
+
+    public void dto16Valid(@MultiRequestBody @Valid BenchmarkDto p0, @MultiRequestBody @Valid BenchmarkDto p1, @MultiRequestBody @Valid BenchmarkDto p2,
+                           @MultiRequestBody @Valid BenchmarkDto p3, @MultiRequestBody @Valid BenchmarkDto p4, @MultiRequestBody @Valid BenchmarkDto p5,
+                           @MultiRequestBody @Valid BenchmarkDto p6, @MultiRequestBody @Valid BenchmarkDto p7, @MultiRequestBody @Valid BenchmarkDto p8,
+                           @MultiRequestBody @Valid BenchmarkDto p9, @MultiRequestBody @Valid BenchmarkDto p10, @MultiRequestBody @Valid BenchmarkDto p11,
+                           @MultiRequestBody @Valid BenchmarkDto p12, @MultiRequestBody @Valid BenchmarkDto p13, @MultiRequestBody @Valid BenchmarkDto p14,
+                           @MultiRequestBody @Valid BenchmarkDto p15) {
+    }
+
+    public void generic1(@MultiRequestBody List<BenchmarkDto> p0) {
+    }
+
+    public void generic4(@MultiRequestBody List<BenchmarkDto> p0, @MultiRequestBody List<BenchmarkDto> p1,
+                         @MultiRequestBody List<BenchmarkDto> p2, @MultiRequestBody List<BenchmarkDto> p3) {
+    }
+
+    public void generic16(@MultiRequestBody List<BenchmarkDto> p0, @MultiRequestBody List<BenchmarkDto> p1,
+                          @MultiRequestBody List<BenchmarkDto> p2, @MultiRequestBody List<BenchmarkDto> p3,
+                          @MultiRequestBody List<BenchmarkDto> p4, @MultiRequestBody List<BenchmarkDto> p5,
+                          @MultiRequestBody List<BenchmarkDto> p6, @MultiRequestBody List<BenchmarkDto> p7,
+                          @MultiRequestBody List<BenchmarkDto> p8, @MultiRequestBody List<BenchmarkDto> p9,
+                          @MultiRequestBody List<BenchmarkDto> p10, @MultiRequestBody List<BenchmarkDto> p11,
+                          @MultiRequestBody List<BenchmarkDto> p12, @MultiRequestBody List<BenchmarkDto> p13,
+                          @MultiRequestBody List<BenchmarkDto> p14, @MultiRequestBody List<BenchmarkDto> p15) {
+    }
+
+    public void generic1Valid(@MultiRequestBody @Valid List<BenchmarkDto> p0) {
+    }
+
+    public void generic4Valid(@MultiRequestBody @Valid List<BenchmarkDto> p0, @MultiRequestBody @Valid List<BenchmarkDto> p1,
+                              @MultiRequestBody @Valid List<BenchmarkDto> p2, @MultiRequestBody @Valid List<BenchmarkDto> p3) {
+    }
+
+    public void generic16Valid(@MultiRequestBody @Valid List<BenchmarkDto> p0, @MultiRequestBody @Valid List<BenchmarkDto> p1,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p2, @MultiRequestBody @Valid List<BenchmarkDto> p3,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p4, @MultiRequestBody @Valid List<BenchmarkDto> p5,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p6, @MultiRequestBody @Valid List<BenchmarkDto> p7,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p8, @MultiRequestBody @Valid List<BenchmarkDto> p9,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p10, @MultiRequestBody @Valid List<BenchmarkDto> p11,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p12, @MultiRequestBody @Valid List<BenchmarkDto> p13,
+                               @MultiRequestBody @Valid List<BenchmarkDto> p14, @MultiRequestBody @Valid List<BenchmarkDto> p15) {
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.starlightcs.benchmark;
+
+import io.github.starlightcs.filter.BodyBufferPool;
+import io.github.starlightcs.filter.BodyFilter;
+import io.github.starlightcs.filter.BodyRequestWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * body 缓存基准测试
+ * <p>覆盖 {@link BodyRequestWrapper} 读取 body 以及经过 {@link BodyFilter} 后由下游读取或不读取 body 的完整路径，
+ * 以及立即缓存与延迟缓存两种模式
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BodyCaptureBenchmark {
+
+    /**
+     * body 字节数：1KB、64KB、1MB、10MB
+     */
+    @Param({"1024", "65536", "1048576", "10485760"})
+    private int bodySize;
+
+    /**
+     * 是否使用缓冲区池
+     */
+    @Param({"true", "false"})
+    private boolean pooled;
+
+    /**
+     * 是否延迟缓存 body
+     */
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    private ReplayableServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private BodyBufferPool bufferPool;
+
+    private BodyFilter bodyFilter;
+
+    private byte[] readBuffer;
+
+    @Setup
+    public void setup() {
+        request = new ReplayableServletRequest("/capture", createBody(bodySize));
+        response = new MockHttpServletResponse();
+        // 池的上限放宽到最大的 body，保证池化场景下所有大小都能复用
+        bufferPool = pooled ? new BodyBufferPool(Integer.highestOneBit(bodySize) << 1, 64 << 20) : null;
+        bodyFilter = new BodyFilter(bufferPool, -1, null, Collections.singleton(HttpMethod.POST.name()),
+                Collections.singletonList(MediaType.APPLICATION_JSON));
+        bodyFilter.setLazyCapture(lazy);
+        readBuffer = new byte[8192];
+    }
+
+    /**
+     * 只读取并缓存 body
+     */
+    @Benchmark
+    public void capture(Blackhole blackhole) throws IOException {
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request, bufferPool, -1);
+        try {
+            blackhole.consume(wrapper.getBody());
+        } finally {
+            wrapper.release();
+        }
+    }
+
+    /**
+     * 经过 filter 缓存 body，下游再完整读取一遍
+     */
+    @Benchmark
+    public void filterAndRead(Blackhole blackhole) throws IOException, ServletException {
+        FilterChain chain = (req, res) -> {
+            ServletInputStream in = req.getInputStream();
+            int n;
+            while ((n = in.read(readBuffer)) != -1) {
+                blackhole.consume(n);
+            }
+        };
+        bodyFilter.doFilter(request, response, chain);
+    }
+
+    /**
+     * 经过 filter 后下游从未读取 body，模拟被安全 filter 拒绝或路由失败的请求
+     */
+    @Benchmark
+    public void filterRejected(Blackhole blackhole) throws IOException, ServletException {
+        FilterChain chain = (req, res) -> blackhole.consume(req);
+        bodyFilter.doFilter(request, response, chain);
+    }
+
+    /**
+     * 生成指定大小的 JSON 对象 body
+     */
+    static byte[] createBody(int size) {
+        StringBuilder sb = new StringBuilder(size + 64).append("{\"data\":\"");
+        char[] filler = new char[Math.max(0, size - 11)];
+        Arrays.fill(filler, 'x');
+        sb.append(filler).append("\"}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.starlightcs.benchmark;
+
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 可重复读取的模拟请求
+ * <p>{@link MockHttpServletRequest} 的输入流只能读取一次，基准测试中每次调用 {@link #getInputStream()} 都从头读取同一份 body，
+ * 避免每次迭代重新构造请求；输入流支持批量读取，与真实容器一致（DelegatingServletInputStream 只实现了单字节 read）
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ReplayableServletRequest extends MockHttpServletRequest {
+
+    private final byte[] body;
+
+    public ReplayableServletRequest(String uri, byte[] body) {
+        super("POST", uri);
+        this.body = body;
+        setContent(body);
+        setContentType(MediaType.APPLICATION_JSON_VALUE);
+        setCharacterEncoding(StandardCharsets.UTF_8.name());
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new BodyInputStream(body);
+    }
+
+    private static class BodyInputStream extends ServletInputStream {
+
+        private final byte[] body;
+        private int position;
+
+        BodyInputStream(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public int read() {
+            return position < body.length ? body[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= body.length) {
+                return -1;
+            }
+            int n = Math.min(len, body.length - position);
+            System.arraycopy(body, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return body.length - position;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position >= body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
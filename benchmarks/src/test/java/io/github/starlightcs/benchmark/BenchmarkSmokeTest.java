@@ -0,0 +1,47 @@
+package io.github.starlightcs.benchmark;
+
+import org.junit.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 每个基准测试的所有参数组合都能完成一次调用，不测量性能
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BenchmarkSmokeTest {
+
+    @Test
+    public void argumentResolverBenchmarkRuns() throws RunnerException {
+        // 3 种绑定 x 3 种参数个数 x 是否校验 x 3 种 JSON 引擎
+        assertEquals(54, run(ArgumentResolverBenchmark.class, options()).size());
+    }
+
+    @Test
+    public void bodyCaptureBenchmarkRuns() throws RunnerException {
+        // 只运行最小的 body，3 个方法 x 是否池化 x 是否延迟缓存
+        assertEquals(12, run(BodyCaptureBenchmark.class, options().param("bodySize", "1024")).size());
+    }
+
+    private static ChainedOptionsBuilder options() {
+        return new OptionsBuilder()
+                .forks(0)
+                .warmupIterations(0)
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(10))
+                .verbosity(VerboseMode.SILENT);
+    }
+
+    private static Collection<RunResult> run(Class<?> benchmark, ChainedOptionsBuilder options) throws RunnerException {
+        return new Runner(options.include(benchmark.getName() + "\\.").build()).run();
+    }
+}
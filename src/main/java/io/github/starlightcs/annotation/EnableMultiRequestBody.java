@@ -1,8 +1,11 @@
 package io.github.starlightcs.annotation;
 
-import io.github.starlightcs.config.MultiRequestBodyConfigurer;
+import io.github.starlightcs.config.MultiRequestBodyConfigurationSelector;
+import io.github.starlightcs.json.JsonEngineType;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -17,6 +20,94 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.TYPE})
 @Configuration
-@Import(MultiRequestBodyConfigurer.class)
+@Import(MultiRequestBodyConfigurationSelector.class)
 public @interface EnableMultiRequestBody {
+
+    /**
+     * 是否开启流式部分解析
+     * <p>开启后按方法中 @MultiRequestBody 参数计算所需的顶层 key，流式扫描 body，
+     * 无关的 value 直接跳过不创建对象，适用于 body 很大但只绑定少量参数的接口
+     */
+    boolean partialParse() default false;
+
+    /**
+     * 允许的最大 body 字节数
+     * <p>默认为 -1 不限制；超出时不再缓存 body，直接返回 413 。
+     * 缓冲区池只复用不超过 1MB 的缓冲区，更大的 body 使用单独分配的缓冲区，请求结束后即可回收，不会被池长期持有
+     */
+    long maxBodySize() default -1;
+
+    /**
+     * Content-Encoding 为 gzip、deflate 时解压后允许的最大 body 字节数
+     * <p>默认为 16MB ，同时受 {@link #maxBodySize()} 限制；超出时停止解压，直接返回 413 ，防止压缩炸弹；-1 时只受 maxBodySize 限制
+     */
+    long maxDecompressedBodySize() default 16L * 1024 * 1024;
+
+    /**
+     * 需要缓存 body 的请求方法
+     */
+    RequestMethod[] methods() default {RequestMethod.POST, RequestMethod.PUT, RequestMethod.PATCH, RequestMethod.DELETE};
+
+    /**
+     * 需要缓存 body 的 Content-Type，支持 {@code application/*+json} 等通配；Content-Type 为空的请求也会缓存
+     */
+    String[] mediaTypes() default {MediaType.APPLICATION_JSON_VALUE, "application/*+json"};
+
+    /**
+     * 是否异步读取 body
+     * <p>开启后通过 Servlet 3.1 非阻塞 I/O（ReadListener）读取 body，慢速上传期间不占用容器工作线程，
+     * body 读取完成后再分发给 handler；容器不支持异步时退回阻塞读取。
+     * <p>读取完成后以 ASYNC 类型重新分发，排在 BodyFilter 之前的 filter 会再执行一次，排在之后的 OncePerRequestFilter
+     * 默认不处理 ASYNC 分发，对该请求不执行；开启前需确认 filter 链兼容。读取超时时返回 408 并释放缓冲区
+     */
+    boolean asyncRead() default false;
+
+    /**
+     * 是否延迟缓存 body
+     * <p>开启后 filter 不预先读取 body，首个读取方直接读取容器的输入流，读取的同时写入缓冲区，再次读取时才补齐完整 body；
+     * 被安全 filter 拒绝、路由失败等从未读取 body 的请求不读取、不分配缓冲区。同时开启 asyncRead 时以异步读取为准
+     */
+    boolean lazyCapture() default false;
+
+    /**
+     * body 溢出到临时文件的阈值字节数
+     * <p>默认为 -1 不溢出；超过阈值的 body 写入临时文件，以内存映射的方式读取，不占用堆内存，请求结束后删除临时文件。
+     * 大 body 建议配合 {@code jsonEngine = JsonEngineType.JACKSON} 以流的方式解析，fastjson2、fastjson 解析前仍需将 body 读入堆内存
+     */
+    long spillThreshold() default -1;
+
+    /**
+     * 溢出的临时文件目录，默认为空使用 java.io.tmpdir
+     */
+    String spillDirectory() default "";
+
+    /**
+     * 是否在启动时检查 handler 的 @MultiRequestBody 参数声明
+     * <p>默认为 false ，与之前的版本一致，参数声明有误时在请求时才报错；开启后启动时预先构建所有 handler 的参数绑定计划与 key 路径索引，
+     * key 无法确定、路径格式错误、同一方法中 key 重复时启动失败。已有应用开启前需确认编译时保留了参数名或为参数设置了 value
+     */
+    boolean validateOnStartup() default false;
+
+    /**
+     * 是否在启动时预热
+     * <p>默认为 false ；开启后由 JSON 引擎预先生成所有 @MultiRequestBody 参数类型的反序列化器，避免发布后首批请求的延迟毛刺，
+     * 无法生成反序列化器的参数类型同样导致启动失败；开启后同时执行 {@link #validateOnStartup()} 的检查
+     */
+    boolean warmUp() default false;
+
+    /**
+     * 是否以方法为单位校验 @MultiRequestBody 参数
+     * <p>默认为 false ，按参数分别通过 WebDataBinder 校验；开启后方法的所有 @MultiRequestBody 参数绑定完成后，
+     * 通过 javax.validation 的 ExecutableValidator 一次性校验，支持参数上的约束注解、@Valid 级联与跨参数约束，
+     * 分组取自方法或类上的 @Validated；需要 classpath 中有 Bean Validation 实现，违反约束时不再填充紧随其后的 Errors 参数
+     * <p>handler 须经 HandlerMapping 匹配，request 中没有对应的 HandlerMethod 时抛出 IllegalStateException ，不会跳过校验
+     */
+    boolean methodValidation() default false;
+
+    /**
+     * 解析 body 使用的 JSON 引擎
+     * <p>默认自动选择：应用中定义了 {@link io.github.starlightcs.json.JsonEngine} Bean 时使用该 Bean，
+     * 否则 classpath 中有 fastjson2 时使用 fastjson2，再否则复用应用中的 Jackson ObjectMapper
+     */
+    JsonEngineType jsonEngine() default JsonEngineType.AUTO;
 }
@@ -0,0 +1,35 @@
+package io.github.starlightcs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 批量调用，标注在使用 @MultiRequestBody 的 Controller 方法上
+ * <p>body 为参数对象组成的 JSON 数组时，方法按数组中的每个元素各调用一次，返回值按顺序组成 JSON 数组；
+ * body 为调用 id 到参数对象的 JSON 对象时，返回调用 id 到返回值的 JSON 对象。
+ * 每个元素按方法已有的参数绑定计划解析，与单次调用时的 body 格式一致；任一调用失败时整个请求失败，由异常处理器统一处理，
+ * 任一调用的状态码不是 2xx 时以该调用的响应作为整个请求的响应。
+ * <p>每次调用由 RequestMappingHandlerAdapter 执行，经过 @InitBinder、@ModelAttribute 方法、返回值处理器与 ResponseBodyAdvice；
+ * HandlerInterceptor 对整个批量请求执行一次，不支持视图与异步返回值，详见 {@link io.github.starlightcs.multirequest.MultiRequestBatchHandlerAdapter}
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MultiRequestBatch {
+
+    /**
+     * 最大并行度
+     * <p>默认为 1 ，在当前线程中顺序调用；大于 1 时在有界线程池中并行调用，调用方法需保证线程安全，
+     * 并行调用中只能读取 request 快照，不能创建 session 或访问容器的 request、response
+     */
+    int parallelism() default 1;
+
+    /**
+     * 单个请求允许的最大调用次数
+     * <p>默认为 -1 不限制；超出时返回 400
+     */
+    int maxCalls() default -1;
+}
@@ -22,7 +22,9 @@ public @interface MultiRequestBody {
     String value() default "";
 
     /**
-     * 绑定请求参数的名称
+     * 绑定请求参数的名称，未设置时使用参数名
+     * <p>支持嵌套路径：以 . 分隔（如 {@code payload.order}、{@code payload.items.0}），
+     * 或以 / 开头的 JSON Pointer（如 {@code /payload/items}，key 本身含有 . 时使用）
      */
     @AliasFor("value")
     String name() default "";
@@ -0,0 +1,26 @@
+package io.github.starlightcs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 多个具名返回值，标注在 Controller 方法或类上，与 @MultiRequestBody 对应
+ * <p>方法返回 key 到各部分返回值的 Map（可以是 CompletableFuture&lt;Map&gt;），按 Map 的迭代顺序以流的方式写出为一个 JSON 对象，
+ * 不在内存中先拼装完整的响应；标注在类上时只对返回 Map 或 CompletionStage&lt;Map&gt; 的方法生效，其余方法按原有方式处理：
+ * <ul>
+ * <li>Stream、Iterator 逐个元素写为 JSON 数组，写完后关闭 Stream</li>
+ * <li>CompletionStage 以 Spring MVC 异步请求的方式等待全部完成，不占用请求线程，受 MVC 异步超时限制；
+ * 任一失败时由异常处理器统一处理；完成后的值同样按上述规则写出</li>
+ * <li>其余值由 ObjectMapper 直接写出</li>
+ * </ul>
+ * 响应固定为 application/json ，Accept 不接受 JSON 时返回 406 ；不经过 HttpMessageConverter 与 ResponseBodyAdvice 。
+ * 开始写出后响应已提交，Stream、Iterator 迭代过程中抛出的异常只能中断响应；仅支持 Spring MVC
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MultiResponseBody {
+}
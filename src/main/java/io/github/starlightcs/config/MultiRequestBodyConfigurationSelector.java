@@ -0,0 +1,21 @@
+package io.github.starlightcs.config;
+
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.type.AnnotationMetadata;
+
+/**
+ * 按应用类型选择配置：Spring MVC 使用 {@link MultiRequestBodyConfigurer}，WebFlux 使用 {@link ReactiveMultiRequestBodyConfigurer}
+ * <p>以类名导入，由各配置类上的条件决定是否生效，避免加载 classpath 中不存在的 Web 栈
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MultiRequestBodyConfigurationSelector implements ImportSelector {
+
+    @Override
+    public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+        return new String[]{
+                "io.github.starlightcs.config.MultiRequestBodyConfigurer",
+                "io.github.starlightcs.config.ReactiveMultiRequestBodyConfigurer"
+        };
+    }
+}
@@ -1,16 +1,45 @@
 package io.github.starlightcs.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.filter.BodyBufferPool;
 import io.github.starlightcs.filter.BodyFilter;
+import io.github.starlightcs.filter.BodySpillPolicy;
+import io.github.starlightcs.json.JsonEngine;
+import io.github.starlightcs.json.JsonEngineType;
+import io.github.starlightcs.json.JsonEngines;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import io.github.starlightcs.multirequest.MethodArgumentsValidator;
+import io.github.starlightcs.multirequest.MultiRequestBatchHandlerAdapter;
 import io.github.starlightcs.multirequest.MultiRequestBodyArgumentResolver;
+import io.github.starlightcs.multirequest.MultiRequestBodyHandlerRegistry;
+import io.github.starlightcs.multirequest.MultiResponseBodyReturnValueHandler;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportAware;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
+import javax.servlet.DispatcherType;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -19,12 +48,150 @@ import java.util.List;
  * @author Allen starlightcs@foxmail.com
  */
 @Configuration
-@Import(BodyFilter.class)
-public class MultiRequestBodyConfigurer implements WebMvcConfigurer {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MultiRequestBodyConfigurer implements WebMvcConfigurer, ImportAware {
+
+    private boolean partialParse;
+
+    private long maxBodySize = -1;
+
+    private long maxDecompressedBodySize = 16L * 1024 * 1024;
+
+    private List<String> methods = Arrays.asList(RequestMethod.POST.name(), RequestMethod.PUT.name(),
+            RequestMethod.PATCH.name(), RequestMethod.DELETE.name());
+
+    private boolean asyncRead;
+
+    private boolean lazyCapture;
+
+    private BodySpillPolicy spillPolicy = BodySpillPolicy.NONE;
+
+    private boolean validateOnStartup;
+
+    private boolean warmUp;
+
+    private boolean methodValidation;
+
+    private List<MediaType> mediaTypes = Arrays.asList(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+
+    private JsonEngineType jsonEngineType = JsonEngineType.AUTO;
+
+    private final ObjectProvider<JsonEngine> jsonEngineProvider;
+
+    private final ObjectProvider<ObjectMapper> objectMapperProvider;
+
+    private final BeanFactory beanFactory;
+
+    private MultiRequestBodyMetrics metrics;
+
+    private MultiRequestBodyArgumentResolver resolver;
+
+    public MultiRequestBodyConfigurer(ObjectProvider<JsonEngine> jsonEngineProvider,
+                                      ObjectProvider<ObjectMapper> objectMapperProvider, BeanFactory beanFactory) {
+        this.jsonEngineProvider = jsonEngineProvider;
+        this.objectMapperProvider = objectMapperProvider;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setImportMetadata(AnnotationMetadata importMetadata) {
+        // 读取 @EnableMultiRequestBody 的配置
+        AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+                importMetadata.getAnnotationAttributes(EnableMultiRequestBody.class.getName()));
+        if (attributes != null) {
+            this.partialParse = attributes.getBoolean("partialParse");
+            this.maxBodySize = attributes.getNumber("maxBodySize").longValue();
+            this.maxDecompressedBodySize = attributes.getNumber("maxDecompressedBodySize").longValue();
+            this.methods = new ArrayList<>();
+            for (RequestMethod method : (RequestMethod[]) attributes.get("methods")) {
+                this.methods.add(method.name());
+            }
+            this.mediaTypes = MediaType.parseMediaTypes(Arrays.asList(attributes.getStringArray("mediaTypes")));
+            this.asyncRead = attributes.getBoolean("asyncRead");
+            this.lazyCapture = attributes.getBoolean("lazyCapture");
+            String spillDirectory = attributes.getString("spillDirectory");
+            this.spillPolicy = new BodySpillPolicy(attributes.getNumber("spillThreshold").longValue(),
+                    StringUtils.hasText(spillDirectory) ? Paths.get(spillDirectory) : null);
+            this.validateOnStartup = attributes.getBoolean("validateOnStartup");
+            this.warmUp = attributes.getBoolean("warmUp");
+            this.methodValidation = attributes.getBoolean("methodValidation");
+            this.jsonEngineType = attributes.getEnum("jsonEngine");
+        }
+    }
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
         // 添加MultiRequestBody参数解析器
-        argumentResolvers.add(new MultiRequestBodyArgumentResolver());
+        argumentResolvers.add(resolver());
+    }
+
+    @Bean
+    public SmartInitializingSingleton multiRequestBodyArgumentResolverInstaller() {
+        // 自定义解析器排在内置解析器之后，Map 类型的参数会先被 MapMethodProcessor 当作 Model 处理，需要将其移到最前
+        return () -> {
+            RequestMappingHandlerAdapter handlerAdapter = beanFactory.getBeanProvider(RequestMappingHandlerAdapter.class).getIfUnique();
+            if (handlerAdapter == null || handlerAdapter.getArgumentResolvers() == null) {
+                return;
+            }
+            List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>();
+            resolvers.add(resolver());
+            for (HandlerMethodArgumentResolver argumentResolver : handlerAdapter.getArgumentResolvers()) {
+                if (argumentResolver != resolver()) {
+                    resolvers.add(argumentResolver);
+                }
+            }
+            handlerAdapter.setArgumentResolvers(resolvers);
+        };
+    }
+
+    @Bean
+    public MultiRequestBatchHandlerAdapter multiRequestBatchHandlerAdapter() {
+        // 标注了 @MultiRequestBatch 的方法按 body 中的每次调用分别解析参数，再交给 RequestMappingHandlerAdapter 调用
+        return new MultiRequestBatchHandlerAdapter(resolver(), beanFactory.getBeanProvider(RequestMappingHandlerAdapter.class));
+    }
+
+    @Bean
+    public MultiRequestBodyHandlerRegistry multiRequestBodyHandlerRegistry(ListableBeanFactory beanFactory) {
+        // 启动时收集使用了 @MultiRequestBody 的 handler，并检查其参数声明
+        return new MultiRequestBodyHandlerRegistry(beanFactory, validateOnStartup || warmUp ? resolver() : null, warmUp);
+    }
+
+    @Bean
+    public BodyFilter bodyFilter(MultiRequestBodyHandlerRegistry multiRequestBodyHandlerRegistry) {
+        // 可反复获取body数据，body 缓冲区池化复用，只缓存使用了 @MultiRequestBody 的请求
+        BodyFilter bodyFilter = new BodyFilter(new BodyBufferPool(), maxBodySize, multiRequestBodyHandlerRegistry, methods, mediaTypes);
+        bodyFilter.setAsyncRead(asyncRead);
+        bodyFilter.setLazyCapture(lazyCapture);
+        bodyFilter.setMaxDecompressedBodySize(maxDecompressedBodySize);
+        bodyFilter.setSpillPolicy(spillPolicy);
+        bodyFilter.setMetrics(metrics());
+        return bodyFilter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<BodyFilter> bodyFilterRegistration(BodyFilter bodyFilter) {
+        FilterRegistrationBean<BodyFilter> registration = new FilterRegistrationBean<>(bodyFilter);
+        // 异步读取 body 完成后以 ASYNC 类型重新分发，需要同时注册 ASYNC
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+
+    @Bean
+    public SmartInitializingSingleton multiResponseBodyReturnValueHandlerInstaller() {
+        // @RestController 的方法由内置的 @ResponseBody 处理器写出返回值，@MultiResponseBody 的处理器需要排在其之前
+        return () -> {
+            RequestMappingHandlerAdapter handlerAdapter = beanFactory.getBeanProvider(RequestMappingHandlerAdapter.class).getIfUnique();
+            if (handlerAdapter == null) {
+                return;
+            }
+            List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+            handlers.add(new MultiResponseBodyReturnValueHandler(objectMapperProvider.getIfUnique(ObjectMapper::new)));
+            if (handlerAdapter.getReturnValueHandlers() != null) {
+                handlers.addAll(handlerAdapter.getReturnValueHandlers());
+            }
+            handlerAdapter.setReturnValueHandlers(handlers);
+        };
     }
 
     @Bean
@@ -37,4 +204,35 @@ public class MultiRequestBodyConfigurer implements WebMvcConfigurer {
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
         converters.add(responseBodyConverter());
     }
+
+    /**
+     * 按 @EnableMultiRequestBody 的配置选择 JSON 引擎，Jackson 复用应用中的 ObjectMapper
+     */
+    private JsonEngine jsonEngine() {
+        return JsonEngines.create(jsonEngineType, jsonEngineProvider.getIfUnique(), objectMapperProvider.getIfUnique());
+    }
+
+    /**
+     * 参数解析器，批量调用与 Spring MVC 共用同一实例
+     */
+    private MultiRequestBodyArgumentResolver resolver() {
+        if (resolver == null) {
+            resolver = new MultiRequestBodyArgumentResolver(partialParse, jsonEngine());
+            resolver.setMetrics(metrics());
+            if (methodValidation) {
+                resolver.setMethodArgumentsValidator(MethodArgumentsValidator.create(beanFactory));
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * 指标埋点，解析器与 filter 共用同一实例
+     */
+    private MultiRequestBodyMetrics metrics() {
+        if (metrics == null) {
+            metrics = MultiRequestBodyMetricsResolver.resolve(beanFactory);
+        }
+        return metrics;
+    }
 }
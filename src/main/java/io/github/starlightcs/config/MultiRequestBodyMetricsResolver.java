@@ -0,0 +1,36 @@
+package io.github.starlightcs.config;
+
+import io.github.starlightcs.metrics.MicrometerMultiRequestBodyMetrics;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 选择指标埋点实现：应用中的 {@link MultiRequestBodyMetrics} Bean 优先，其次为存在 MeterRegistry 时的 Micrometer 实现，
+ * 否则不上报
+ * <p>Micrometer 的类只在 classpath 中存在时才会加载
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+abstract class MultiRequestBodyMetricsResolver {
+
+    private static final boolean MICROMETER_PRESENT = ClassUtils.isPresent(
+            "io.micrometer.core.instrument.MeterRegistry", MultiRequestBodyMetricsResolver.class.getClassLoader());
+
+    static MultiRequestBodyMetrics resolve(BeanFactory beanFactory) {
+        MultiRequestBodyMetrics metrics = beanFactory.getBeanProvider(MultiRequestBodyMetrics.class).getIfUnique();
+        if (metrics != null) {
+            return metrics;
+        }
+        return MICROMETER_PRESENT ? MicrometerSupport.create(beanFactory) : MultiRequestBodyMetrics.NOOP;
+    }
+
+    private static class MicrometerSupport {
+
+        static MultiRequestBodyMetrics create(BeanFactory beanFactory) {
+            MeterRegistry registry = beanFactory.getBeanProvider(MeterRegistry.class).getIfUnique();
+            return registry != null ? new MicrometerMultiRequestBodyMetrics(registry) : MultiRequestBodyMetrics.NOOP;
+        }
+    }
+}
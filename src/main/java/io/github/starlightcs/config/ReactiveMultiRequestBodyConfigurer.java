@@ -0,0 +1,168 @@
+package io.github.starlightcs.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.json.JsonEngine;
+import io.github.starlightcs.json.JsonEngineType;
+import io.github.starlightcs.json.JsonEngines;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import io.github.starlightcs.multirequest.ReactiveMultiRequestBodyArgumentResolver;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportAware;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux配置 增强解析Request Json
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMultiRequestBodyConfigurer implements WebFluxConfigurer, ImportAware {
+
+    private boolean partialParse;
+
+    private long maxBodySize = -1;
+
+    private JsonEngineType jsonEngineType = JsonEngineType.AUTO;
+
+    private final ObjectProvider<JsonEngine> jsonEngineProvider;
+
+    private final ObjectProvider<ObjectMapper> objectMapperProvider;
+
+    private final BeanFactory beanFactory;
+
+    private MultiRequestBodyMetrics metrics;
+
+    private ReactiveMultiRequestBodyArgumentResolver resolver;
+
+    public ReactiveMultiRequestBodyConfigurer(ObjectProvider<JsonEngine> jsonEngineProvider,
+                                              ObjectProvider<ObjectMapper> objectMapperProvider, BeanFactory beanFactory) {
+        this.jsonEngineProvider = jsonEngineProvider;
+        this.objectMapperProvider = objectMapperProvider;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setImportMetadata(AnnotationMetadata importMetadata) {
+        // 读取 @EnableMultiRequestBody 的配置
+        AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+                importMetadata.getAnnotationAttributes(EnableMultiRequestBody.class.getName()));
+        if (attributes != null) {
+            this.partialParse = attributes.getBoolean("partialParse");
+            this.maxBodySize = attributes.getNumber("maxBodySize").longValue();
+            this.jsonEngineType = attributes.getEnum("jsonEngine");
+        }
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        // 添加MultiRequestBody参数解析器
+        configurer.addCustomResolver(resolver());
+    }
+
+    @Bean
+    public SmartInitializingSingleton reactiveMultiRequestBodyArgumentResolverInstaller() {
+        // 自定义解析器排在内置的类型解析器之后，除 Map 外的参数都能按顺序由其解析；
+        // Map 类型的参数会先被 ModelArgumentResolver 当作 Model 处理，只有存在这样的参数时才需要调整顺序
+        return () -> {
+            MethodParameter mapParameter = findMapParameter();
+            RequestMappingHandlerAdapter handlerAdapter = beanFactory.getBeanProvider(RequestMappingHandlerAdapter.class).getIfUnique();
+            if (mapParameter != null && handlerAdapter != null) {
+                moveResolverFirst(handlerAdapter, resolver(), mapParameter);
+            }
+        };
+    }
+
+    /**
+     * 查找 Map 类型的 @MultiRequestBody 参数
+     */
+    private MethodParameter findMapParameter() {
+        return beanFactory.getBeanProvider(RequestMappingHandlerMapping.class).orderedStream()
+                .flatMap(mapping -> mapping.getHandlerMethods().values().stream())
+                .flatMap(handlerMethod -> Arrays.stream(handlerMethod.getMethodParameters()))
+                .filter(parameter -> parameter.hasParameterAnnotation(MultiRequestBody.class)
+                        && Map.class.isAssignableFrom(parameter.getParameterType()))
+                .findFirst().orElse(null);
+    }
+
+    /**
+     * 将解析器移到 WebFlux 参数解析器列表的最前
+     * <p>WebFlux 没有提供调整顺序的方法，只能通过反射修改其内部的列表；Spring 版本变化导致无法调整时启动失败，
+     * 避免 Map 参数被静默绑定为 Model
+     *
+     * @param mapParameter 需要调整顺序的参数，用于错误信息
+     */
+    static void moveResolverFirst(RequestMappingHandlerAdapter handlerAdapter, HandlerMethodArgumentResolver resolver,
+                                  MethodParameter mapParameter) {
+        Object resolvers = getField(getField(handlerAdapter, "methodResolver"), "requestMappingResolvers");
+        if (resolvers instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<HandlerMethodArgumentResolver> list = (List<HandlerMethodArgumentResolver>) resolvers;
+            try {
+                if (list.remove(resolver)) {
+                    list.add(0, resolver);
+                    return;
+                }
+            } catch (UnsupportedOperationException e) {
+                // 不可修改的列表，按无法调整处理
+            }
+        }
+        throw new IllegalStateException("Cannot order the @MultiRequestBody resolver ahead of WebFlux's ModelArgumentResolver "
+                + "in this Spring version, so the Map parameter would receive the model instead of the request body; "
+                + "declare it as a non-Map type: " + mapParameter);
+    }
+
+    private static Object getField(Object target, String name) {
+        Field field = target != null ? ReflectionUtils.findField(target.getClass(), name) : null;
+        if (field == null) {
+            return null;
+        }
+        ReflectionUtils.makeAccessible(field);
+        return ReflectionUtils.getField(field, target);
+    }
+
+    private ReactiveMultiRequestBodyArgumentResolver resolver() {
+        if (resolver == null) {
+            resolver = new ReactiveMultiRequestBodyArgumentResolver(partialParse, maxBodySize, jsonEngine());
+            resolver.setMetrics(metrics());
+        }
+        return resolver;
+    }
+
+    /**
+     * 按 @EnableMultiRequestBody 的配置选择 JSON 引擎，Jackson 复用应用中的 ObjectMapper
+     */
+    private JsonEngine jsonEngine() {
+        return JsonEngines.create(jsonEngineType, jsonEngineProvider.getIfUnique(), objectMapperProvider.getIfUnique());
+    }
+
+    /**
+     * 指标埋点，解析器与 filter 共用同一实例
+     */
+    private MultiRequestBodyMetrics metrics() {
+        if (metrics == null) {
+            metrics = MultiRequestBodyMetricsResolver.resolve(beanFactory);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.starlightcs.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+
+/**
+ * 压缩的 body 无法解码异常
+ * <p>Content-Encoding 与数据不符、压缩数据损坏或不完整时抛出；延迟缓存 body 时在 handler 读取 body 期间抛出，由 Spring MVC 按 400 响应
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class HttpBodyDecodingException extends IOException {
+
+    /**
+     * Constructor for {@link HttpBodyDecodingException}.
+     *
+     * @param cause 解码时的异常
+     */
+    public HttpBodyDecodingException(IOException cause) {
+        super("Malformed compressed request body: "
+                + (cause.getMessage() != null ? cause.getMessage() : "unexpected end of stream"), cause);
+    }
+
+}
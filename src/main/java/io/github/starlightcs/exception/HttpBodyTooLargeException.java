@@ -0,0 +1,37 @@
+package io.github.starlightcs.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+
+/**
+ * Body 超过最大限制异常
+ * <p>延迟缓存 body 时在 handler 读取 body 期间抛出，由 Spring MVC 按 413 响应
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class HttpBodyTooLargeException extends IOException {
+
+    private final long maxBodySize;
+
+    /**
+     * Constructor for {@link HttpBodyTooLargeException}.
+     *
+     * @param bodySize    已知的 body 大小（Content-Length 或已读取的字节数）
+     * @param maxBodySize 允许的最大 body 大小
+     */
+    public HttpBodyTooLargeException(long bodySize, long maxBodySize) {
+        super("Request body size " + bodySize + " exceeds the limit of " + maxBodySize + " bytes");
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * 返回允许的最大 body 大小.
+     */
+    public long getMaxBodySize() {
+        return this.maxBodySize;
+    }
+
+}
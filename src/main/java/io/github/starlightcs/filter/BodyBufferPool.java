@@ -0,0 +1,100 @@
+package io.github.starlightcs.filter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * body 缓冲区池
+ * <p>按 2 的幂次分级缓存 byte[]，请求结束后归还复用，降低大 body 带来的 GC 压力；
+ * 超过最大池化大小的缓冲区直接分配，归还时直接丢弃，不入池，因此池中保留的内存与 maxBodySize 无关：
+ * 每个分级最多保留 maxRetainedPerClass 字节，默认配置下（4KB ~ 1MB 共 9 级，每级 8MB）总计不超过 72MB。线程安全，无锁
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodyBufferPool {
+
+    /**
+     * 最小分级 4KB
+     */
+    private static final int MIN_SHIFT = 12;
+
+    /**
+     * 默认最大池化大小 1MB
+     */
+    public static final int DEFAULT_MAX_POOLED_SIZE = 1 << 20;
+
+    /**
+     * 默认每个分级最多保留的字节数 8MB
+     */
+    public static final int DEFAULT_MAX_RETAINED_PER_CLASS = 8 << 20;
+
+    private final int maxPooledSize;
+    private final Queue<byte[]>[] pools;
+    private final AtomicInteger[] counts;
+    private final int[] limits;
+
+    public BodyBufferPool() {
+        this(DEFAULT_MAX_POOLED_SIZE, DEFAULT_MAX_RETAINED_PER_CLASS);
+    }
+
+    /**
+     * @param maxPooledSize        最大池化的缓冲区大小，向上取 2 的幂次
+     * @param maxRetainedPerClass  每个分级最多保留的字节数
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BodyBufferPool(int maxPooledSize, int maxRetainedPerClass) {
+        int classes = sizeClass(Math.min(maxPooledSize, 1 << 30)) + 1;
+        this.maxPooledSize = classSize(classes - 1);
+        this.pools = new Queue[classes];
+        this.counts = new AtomicInteger[classes];
+        this.limits = new int[classes];
+        for (int i = 0; i < classes; i++) {
+            pools[i] = new ConcurrentLinkedQueue<>();
+            counts[i] = new AtomicInteger();
+            limits[i] = Math.max(1, maxRetainedPerClass / classSize(i));
+        }
+    }
+
+    /**
+     * 获取容量不小于 minCapacity 的缓冲区
+     */
+    public byte[] acquire(int minCapacity) {
+        if (minCapacity > maxPooledSize) {
+            return new byte[minCapacity];
+        }
+        int index = sizeClass(minCapacity);
+        byte[] buffer = pools[index].poll();
+        if (buffer != null) {
+            counts[index].decrementAndGet();
+            return buffer;
+        }
+        return new byte[classSize(index)];
+    }
+
+    /**
+     * 归还缓冲区，非分级大小或分级已满时直接丢弃
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length > maxPooledSize || Integer.bitCount(buffer.length) != 1 || buffer.length < classSize(0)) {
+            return;
+        }
+        int index = sizeClass(buffer.length);
+        if (counts[index].incrementAndGet() <= limits[index]) {
+            pools[index].offer(buffer);
+        } else {
+            counts[index].decrementAndGet();
+        }
+    }
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= (1 << MIN_SHIFT)) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    private static int classSize(int index) {
+        return 1 << (index + MIN_SHIFT);
+    }
+}
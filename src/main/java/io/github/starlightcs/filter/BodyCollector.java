@@ -0,0 +1,343 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * body 收集器
+ * <p>按 Content-Length 预分配缓冲区（不超过 {@value #MAX_INITIAL_BUFFER_SIZE} 字节），逐次从输入流读取并按实际到达的数据扩容；每次 {@link #readFrom} 只调用一次 read，
+ * 因此既可用于阻塞读取，也可在 {@link javax.servlet.ReadListener} 中配合 isReady 做非阻塞读取。
+ * <p>配置了 {@link BodySpillPolicy} 时，body 超过阈值后转为写入临时文件，堆内存只保留一个固定大小的写缓冲区，
+ * 读取完成后以内存映射的方式提供 body
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodyCollector {
+
+    /**
+     * Content-Length 未知时的初始缓冲区大小
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    /**
+     * 按 Content-Length 预分配的上限 64KB，Content-Length 由客户端声明，不能据此直接分配大数组
+     */
+    static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 溢出到文件后的写缓冲区大小
+     */
+    private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 最大 body 大小，受数组与内存映射的 int 索引限制
+     */
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * 缓冲区池，为 null 时不池化
+     */
+    private final BodyBufferPool bufferPool;
+
+    /**
+     * 最大 body 大小，小于 0 时不限制
+     */
+    private final long maxBodySize;
+
+    /**
+     * 溢出策略
+     */
+    private final BodySpillPolicy spillPolicy;
+
+    /**
+     * 未溢出时保存 body，溢出后作为写缓冲区
+     */
+    private byte[] buffer;
+    private int length;
+
+    /**
+     * 溢出的临时文件，未溢出时为 null
+     */
+    private Path file;
+    private FileChannel channel;
+
+    /**
+     * 临时文件的内存映射，首次调用 {@link #toByteBuffer()} 时创建
+     */
+    private ByteBuffer mapped;
+
+    /**
+     * @param bufferPool    缓冲区池，为 null 时不池化
+     * @param maxBodySize   最大 body 大小，小于 0 时不限制
+     * @param contentLength 请求的 Content-Length，未知时为 -1
+     * @throws HttpBodyTooLargeException Content-Length 已超出限制
+     */
+    public BodyCollector(BodyBufferPool bufferPool, long maxBodySize, long contentLength) throws HttpBodyTooLargeException {
+        this(bufferPool, maxBodySize, contentLength, contentLength);
+    }
+
+    /**
+     * @param bufferPool    缓冲区池，为 null 时不池化
+     * @param maxBodySize   最大 body 大小，小于 0 时不限制
+     * @param contentLength 请求的 Content-Length，未知时为 -1
+     * @param sizeHint      预估的 body 大小，用于预分配缓冲区，未知时为 -1
+     * @throws HttpBodyTooLargeException Content-Length 已超出限制
+     */
+    public BodyCollector(BodyBufferPool bufferPool, long maxBodySize, long contentLength, long sizeHint) throws HttpBodyTooLargeException {
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+        this.spillPolicy = BodySpillPolicy.NONE;
+        checkContentLength(contentLength);
+        this.buffer = allocate(initialCapacity(sizeHint));
+    }
+
+    /**
+     * @param bufferPool    缓冲区池，为 null 时不池化
+     * @param maxBodySize   最大 body 大小，小于 0 时不限制
+     * @param contentLength 请求的 Content-Length，未知时为 -1
+     * @param sizeHint      预估的 body 大小，用于预分配缓冲区，未知时为 -1；超过溢出阈值时直接写入临时文件
+     * @param spillPolicy   溢出策略
+     * @throws HttpBodyTooLargeException Content-Length 已超出限制
+     * @throws IOException               创建临时文件失败
+     */
+    public BodyCollector(BodyBufferPool bufferPool, long maxBodySize, long contentLength, long sizeHint,
+                         BodySpillPolicy spillPolicy) throws IOException {
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+        this.spillPolicy = spillPolicy != null ? spillPolicy : BodySpillPolicy.NONE;
+        checkContentLength(contentLength);
+        if (this.spillPolicy.shouldSpill(sizeHint)) {
+            spill();
+        } else {
+            int capacity = initialCapacity(sizeHint);
+            if (this.spillPolicy.isEnabled()) {
+                // 不超过阈值，超过后直接溢出
+                capacity = (int) Math.min(capacity, this.spillPolicy.getThreshold());
+            }
+            this.buffer = allocate(capacity);
+        }
+    }
+
+    /**
+     * 阻塞读取输入流直到结束
+     */
+    public void readFully(InputStream in) throws IOException {
+        while (readFrom(in) != -1) {
+            // continue
+        }
+    }
+
+    /**
+     * 从输入流读取一次
+     *
+     * @return 读取的字节数，流结束时返回 -1
+     */
+    public int readFrom(InputStream in) throws IOException {
+        if (channel != null) {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n > 0) {
+                checkBodySize((long) length + n);
+                write(buffer, 0, n);
+            }
+            return n;
+        }
+        if (length == buffer.length) {
+            // Content-Length 未知或与实际不符时扩容，读满后先探测是否已到流末尾，避免无谓扩容
+            int next = in.read();
+            if (next == -1) {
+                return -1;
+            }
+            checkBodySize(length + 1L);
+            if (spillPolicy.shouldSpill(length + 1L)) {
+                spill();
+                buffer[0] = (byte) next;
+                write(buffer, 0, 1);
+                return 1;
+            }
+            byte[] grown = allocate((int) Math.min(Math.max((long) buffer.length << 1, DEFAULT_BUFFER_SIZE), MAX_SIZE));
+            System.arraycopy(buffer, 0, grown, 0, length);
+            free(buffer);
+            buffer = grown;
+            buffer[length++] = (byte) next;
+            return 1;
+        }
+        int n = in.read(buffer, length, buffer.length - length);
+        if (n > 0) {
+            length += n;
+            checkBodySize(length);
+            if (spillPolicy.shouldSpill(length)) {
+                // 池化的缓冲区可能大于申请的容量
+                spill();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 返回已收集的 body，与收集器共享数据不拷贝；溢出到临时文件时返回只读的内存映射，没有 backing array
+     */
+    public ByteBuffer toByteBuffer() throws IOException {
+        if (channel == null) {
+            return ByteBuffer.wrap(buffer, 0, length).slice();
+        }
+        if (mapped == null) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            // 写入已完成，不再需要写缓冲区
+            free(buffer);
+            buffer = null;
+        }
+        return mapped.duplicate();
+    }
+
+    /**
+     * 是否已溢出到临时文件
+     */
+    public boolean isSpilled() {
+        return channel != null;
+    }
+
+    /**
+     * 读取已收集的一个字节
+     */
+    public byte get(int index) throws IOException {
+        if (channel == null) {
+            return buffer[index];
+        }
+        if (mapped != null) {
+            return mapped.get(index);
+        }
+        byte[] b = new byte[1];
+        readAt(index, b, 0, 1);
+        return b[0];
+    }
+
+    /**
+     * 从指定位置拷贝已收集的数据
+     *
+     * @return 拷贝的字节数
+     */
+    public int copyTo(int position, byte[] b, int off, int len) throws IOException {
+        int n = Math.min(len, length - position);
+        if (channel == null) {
+            System.arraycopy(buffer, position, b, off, n);
+        } else if (mapped != null) {
+            ByteBuffer source = mapped.duplicate();
+            ((Buffer) source).position(position);
+            source.get(b, off, n);
+        } else {
+            readAt(position, b, off, n);
+        }
+        return n;
+    }
+
+    /**
+     * 已收集的字节数
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * 归还缓冲区，之后不可再使用
+     */
+    public void release() {
+        byte[] released = buffer;
+        buffer = null;
+        free(released);
+        mapped = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+            channel = null;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // 部分平台在映射被回收前无法删除
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private static int initialCapacity(long sizeHint) {
+        return sizeHint >= 0 ? (int) Math.min(sizeHint, MAX_INITIAL_BUFFER_SIZE) : DEFAULT_BUFFER_SIZE;
+    }
+
+    private void checkContentLength(long contentLength) throws HttpBodyTooLargeException {
+        if (maxBodySize >= 0 && contentLength > maxBodySize) {
+            // Content-Length 已超出限制，不读取直接拒绝
+            throw new HttpBodyTooLargeException(contentLength, maxBodySize);
+        }
+        if (contentLength > MAX_SIZE) {
+            throw new HttpBodyTooLargeException(contentLength, MAX_SIZE);
+        }
+    }
+
+    private void checkBodySize(long size) throws HttpBodyTooLargeException {
+        if (maxBodySize >= 0 && size > maxBodySize) {
+            throw new HttpBodyTooLargeException(size, maxBodySize);
+        }
+        if (size > MAX_SIZE) {
+            throw new HttpBodyTooLargeException(size, MAX_SIZE);
+        }
+    }
+
+    /**
+     * 将已收集的数据写入临时文件，之后的数据直接追加到文件
+     */
+    private void spill() throws IOException {
+        Path path = spillPolicy.createFile();
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        file = path;
+        byte[] collected = buffer;
+        int collectedLength = length;
+        length = 0;
+        if (collected != null) {
+            write(collected, 0, collectedLength);
+            free(collected);
+        }
+        buffer = allocate(SPILL_BUFFER_SIZE);
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(b, off, len);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+        length += len;
+    }
+
+    private void readAt(int position, byte[] b, int off, int len) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(b, off, len);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position() - off) < 0) {
+                throw new IOException("Unexpected end of spilled body");
+            }
+        }
+    }
+
+    private byte[] allocate(int capacity) {
+        return bufferPool != null ? bufferPool.acquire(capacity) : new byte[capacity];
+    }
+
+    private void free(byte[] buffer) {
+        if (bufferPool != null && buffer != null) {
+            bufferPool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.exception.HttpBodyDecodingException;
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * 请求 body 的 Content-Encoding 解码
+ * <p>支持 gzip（x-gzip）与 deflate（zlib 格式，以及部分客户端发送的裸 deflate 数据），多个编码按声明的逆序解码；
+ * 解码以流的方式直接写入 body 缓冲区，不额外缓存解压前或解压后的数据
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+final class BodyDecoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 按压缩后大小预估解压后大小的倍数
+     */
+    private static final int ESTIMATED_RATIO = 4;
+
+    private BodyDecoder() {
+    }
+
+    /**
+     * 是否需要解码，未声明或只声明了 identity 时不需要
+     */
+    static boolean isEncoded(String contentEncoding) {
+        if (contentEncoding == null) {
+            return false;
+        }
+        for (String encoding : StringUtils.tokenizeToStringArray(contentEncoding, ",")) {
+            if (!"identity".equalsIgnoreCase(encoding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否所有编码都支持解码
+     */
+    static boolean isSupported(String contentEncoding) {
+        for (String encoding : StringUtils.tokenizeToStringArray(contentEncoding, ",")) {
+            if (!"identity".equalsIgnoreCase(encoding) && !isGzip(encoding) && !"deflate".equalsIgnoreCase(encoding)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解码后允许的最大 body 大小，取 maxBodySize 与 maxDecompressedBodySize 中较小的限制，小于 0 时不限制
+     */
+    static long limit(long maxBodySize, long maxDecompressedBodySize) {
+        if (maxBodySize < 0) {
+            return maxDecompressedBodySize;
+        }
+        return maxDecompressedBodySize < 0 ? maxBodySize : Math.min(maxBodySize, maxDecompressedBodySize);
+    }
+
+    /**
+     * 创建解码 body 的收集器，按压缩后的 Content-Length 预估缓冲区大小
+     * <p>预估值不超过 {@link BodyCollector#MAX_INITIAL_BUFFER_SIZE}，之后按实际解压出的数据翻倍扩容；
+     * 压缩率因内容差异很大，预估值偏大时不会预先分配大缓冲区，也不会在解压前就溢出到临时文件
+     *
+     * @param contentLength 压缩后的 Content-Length，未知时为 -1
+     * @param maxBodySize   压缩后允许的最大 body 大小，小于 0 时不限制
+     * @param limit         解码后允许的最大 body 大小，小于 0 时不限制
+     * @param spillPolicy   解码后的 body 溢出到临时文件的策略
+     * @throws HttpBodyTooLargeException 压缩后的 Content-Length 已超出限制
+     */
+    static BodyCollector createCollector(BodyBufferPool bufferPool, long contentLength, long maxBodySize, long limit,
+                                         BodySpillPolicy spillPolicy) throws IOException {
+        if (maxBodySize >= 0 && contentLength > maxBodySize) {
+            throw new HttpBodyTooLargeException(contentLength, maxBodySize);
+        }
+        long estimated = contentLength >= 0 ? Math.min(contentLength * ESTIMATED_RATIO, BodyCollector.MAX_INITIAL_BUFFER_SIZE) : -1;
+        if (limit >= 0 && estimated > limit) {
+            estimated = limit;
+        }
+        return new BodyCollector(bufferPool, limit, -1, estimated, spillPolicy);
+    }
+
+    /**
+     * 以流的方式解码，压缩数据损坏或不完整时抛出 {@link HttpBodyDecodingException}
+     */
+    static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        String[] encodings = StringUtils.tokenizeToStringArray(contentEncoding, ",");
+        try {
+            for (int i = encodings.length - 1; i >= 0; i--) {
+                if (isGzip(encodings[i])) {
+                    in = new GZIPInputStream(in, BUFFER_SIZE);
+                } else if ("deflate".equalsIgnoreCase(encodings[i])) {
+                    in = inflate(in);
+                }
+            }
+        } catch (ZipException | EOFException e) {
+            // gzip 头在创建时读取
+            throw new HttpBodyDecodingException(e);
+        }
+        return new DecodingInputStream(in);
+    }
+
+    /**
+     * 解码已完整读取的压缩 body，用于异步读取；解码完成后归还压缩 body 的缓冲区
+     *
+     * @param encoded     已读取完整压缩 body 的收集器
+     * @param limit       解码后允许的最大 body 大小，小于 0 时不限制
+     * @param spillPolicy 解码后的 body 溢出到临时文件的策略
+     * @return 解码后的 body
+     */
+    static BodyCollector decode(BodyCollector encoded, String contentEncoding, BodyBufferPool bufferPool, long limit,
+                                BodySpillPolicy spillPolicy) throws IOException {
+        try {
+            ByteBuffer body = encoded.toByteBuffer();
+            BodyCollector decoded = createCollector(bufferPool, body.remaining(), -1, limit, spillPolicy);
+            InputStream compressed = body.hasArray()
+                    ? new ByteArrayInputStream(body.array(), body.arrayOffset(), body.remaining())
+                    : new BodyRequestWrapper.PushBackServletInputStream(body);
+            try (InputStream in = decode(compressed, contentEncoding)) {
+                decoded.readFully(in);
+            } catch (IOException | RuntimeException e) {
+                decoded.release();
+                throw e;
+            }
+            return decoded;
+        } finally {
+            encoded.release();
+        }
+    }
+
+    /**
+     * 将解码过程中的 {@link ZipException}、{@link EOFException} 转换为 {@link HttpBodyDecodingException}，
+     * 与客户端断开等 I/O 异常区分
+     */
+    private static class DecodingInputStream extends FilterInputStream {
+
+        DecodingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (ZipException | EOFException e) {
+                throw new HttpBodyDecodingException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (ZipException | EOFException e) {
+                throw new HttpBodyDecodingException(e);
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (ZipException | EOFException e) {
+                throw new HttpBodyDecodingException(e);
+            }
+        }
+    }
+
+    private static boolean isGzip(String encoding) {
+        return "gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding);
+    }
+
+    /**
+     * deflate 按 RFC 7230 应为 zlib 格式，部分客户端发送不带 zlib 头的裸 deflate 数据，根据前两个字节区分
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        int b0 = pushback.read();
+        int b1 = b0 != -1 ? pushback.read() : -1;
+        if (b1 != -1) {
+            pushback.unread(b1);
+        }
+        if (b0 != -1) {
+            pushback.unread(b0);
+        }
+        boolean zlib = b1 != -1 && (b0 & 0x0F) == 8 && ((b0 << 8) | b1) % 31 == 0;
+        return new InflaterInputStream(pushback, new Inflater(!zlib), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // 自行创建的 Inflater 不会随流关闭释放本地内存
+                    inf.end();
+                }
+            }
+        };
+    }
+}
@@ -1,10 +1,21 @@
 package io.github.starlightcs.filter;
 
+import io.github.starlightcs.exception.HttpBodyDecodingException;
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import io.github.starlightcs.multirequest.MultiRequestBodyHandlerRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.*;
 
 /**
  * 可反复获取body数据
@@ -12,6 +23,114 @@ import java.io.IOException;
  * @author Allen starlightcs@foxmail.com
  */
 public class BodyFilter implements Filter {
+
+    /**
+     * 异步读取完成的 body 在 request 中的 key
+     */
+    private static final String COLLECTOR_ATTRIBUTE = BodyFilter.class.getName() + ".COLLECTOR";
+
+    private final BodyBufferPool bufferPool;
+
+    /**
+     * 最大 body 大小，小于 0 时不限制
+     */
+    private final long maxBodySize;
+
+    /**
+     * 使用 @MultiRequestBody 的 handler 注册表，为 null 时缓存所有符合条件的请求
+     */
+    private final MultiRequestBodyHandlerRegistry handlerRegistry;
+
+    /**
+     * 需要缓存 body 的请求方法
+     */
+    private final Set<String> methods;
+
+    /**
+     * 需要缓存 body 的 Content-Type
+     */
+    private final List<MediaType> mediaTypes;
+
+    private boolean asyncRead;
+
+    private boolean lazyCapture;
+
+    /**
+     * Content-Encoding 为 gzip、deflate 时解压后的最大 body 大小，小于 0 时只受 maxBodySize 限制
+     */
+    private long maxDecompressedBodySize = 16L * 1024 * 1024;
+
+    private BodySpillPolicy spillPolicy = BodySpillPolicy.NONE;
+
+    /**
+     * 指标埋点，可在 filter 开始处理请求后替换，volatile 保证请求线程读取到最新的实现
+     */
+    private volatile MultiRequestBodyMetrics metrics = MultiRequestBodyMetrics.NOOP;
+
+    public BodyFilter() {
+        this(new BodyBufferPool(), -1, null, Collections.singleton(HttpMethod.POST.name()),
+                Arrays.asList(MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+    }
+
+    /**
+     * @param bufferPool      body 缓冲区池，为 null 时不池化
+     * @param maxBodySize     最大 body 大小，小于 0 时不限制，超出时返回 413
+     * @param handlerRegistry handler 注册表，只缓存 handler 使用了 @MultiRequestBody 的请求；为 null 时不过滤
+     * @param methods         需要缓存 body 的请求方法
+     * @param mediaTypes      需要缓存 body 的 Content-Type，支持 application/*+json 等通配
+     */
+    public BodyFilter(BodyBufferPool bufferPool, long maxBodySize, MultiRequestBodyHandlerRegistry handlerRegistry,
+                      Collection<String> methods, List<MediaType> mediaTypes) {
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+        this.handlerRegistry = handlerRegistry;
+        this.methods = Collections.unmodifiableSet(new HashSet<>(methods));
+        this.mediaTypes = Collections.unmodifiableList(new ArrayList<>(mediaTypes));
+    }
+
+    /**
+     * 是否异步读取 body，默认为 false
+     * <p>开启后通过 Servlet 3.1 非阻塞 I/O 读取 body，读取期间不占用容器线程，读取完成后再分发给 handler；
+     * 需要容器支持异步，且 filter 需同时注册 REQUEST 与 ASYNC 分发类型。
+     * <p>读取完成后以 ASYNC 类型重新分发：排在本 filter 之前的 filter 会再执行一次，排在之后的 OncePerRequestFilter
+     * （shouldNotFilterAsyncDispatch 默认为 true）对该请求不执行；读取超时（AsyncContext 的超时时间）时返回 408
+     */
+    public void setAsyncRead(boolean asyncRead) {
+        this.asyncRead = asyncRead;
+    }
+
+    /**
+     * 是否延迟缓存 body
+     * <p>开启后不在 filter 中读取 body，首个读取方直接读取容器的输入流并同时写入缓冲区，再次读取时才补齐完整 body；
+     * 被后续 filter 拒绝或从未读取 body 的请求不读取、不分配缓冲区。同时开启 asyncRead 时以异步读取为准
+     */
+    public void setLazyCapture(boolean lazyCapture) {
+        this.lazyCapture = lazyCapture;
+    }
+
+    /**
+     * 设置 Content-Encoding 为 gzip、deflate 时解压后允许的最大 body 大小，防止压缩炸弹
+     * <p>默认为 16MB ，同时受 maxBodySize 限制；小于 0 时只受 maxBodySize 限制
+     */
+    public void setMaxDecompressedBodySize(long maxDecompressedBodySize) {
+        this.maxDecompressedBodySize = maxDecompressedBodySize;
+    }
+
+    /**
+     * 设置 body 溢出到临时文件的策略，默认不溢出
+     * <p>超过阈值的 body 写入临时文件并以内存映射的方式读取，不占用堆内存；请求结束后删除临时文件
+     */
+    public void setSpillPolicy(BodySpillPolicy spillPolicy) {
+        this.spillPolicy = spillPolicy != null ? spillPolicy : BodySpillPolicy.NONE;
+    }
+
+    /**
+     * 设置指标埋点，默认不上报
+     */
+    public void setMetrics(MultiRequestBodyMetrics metrics) {
+        this.metrics = metrics != null ? metrics : MultiRequestBodyMetrics.NOOP;
+    }
+
     @Override
     public void init(FilterConfig filterConfig) {
         // do nothing
@@ -19,24 +138,290 @@ public class BodyFilter implements Filter {
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        ServletRequest requestWrapper = null;
+        BodyRequestWrapper requestWrapper = null;
         if (request instanceof HttpServletRequest) {
-            // 该方法处理 POST请求并且contentType为application/json格式以及contentType为null的
+            // 该方法处理配置的请求方法，并且contentType为配置的json格式以及contentType为null的
             HttpServletRequest httpServletRequest = (HttpServletRequest)request;
-            if (HttpMethod.POST.toString().equals(httpServletRequest.getMethod())
-                    && (httpServletRequest.getContentType() == null || httpServletRequest.getContentType().contains("json"))) {
-                requestWrapper = new BodyRequestWrapper(httpServletRequest);
+            if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                // 异步读取 body 完成后的分发
+                BodyCollector collector = (BodyCollector) request.getAttribute(COLLECTOR_ATTRIBUTE);
+                if (collector != null) {
+                    request.removeAttribute(COLLECTOR_ATTRIBUTE);
+                    try {
+                        requestWrapper = new BodyRequestWrapper(httpServletRequest, collector);
+                    } catch (IOException e) {
+                        collector.release();
+                        throw e;
+                    }
+                }
+            } else if (methods.contains(httpServletRequest.getMethod())
+                    && isSupportedContentType(httpServletRequest.getContentType())) {
+                HandlerMethod handlerMethod = null;
+                if (handlerRegistry != null) {
+                    handlerMethod = handlerRegistry.getHandlerMethod(httpServletRequest);
+                    if (handlerMethod == null && handlerRegistry.isInitialized()) {
+                        // handler 未使用 @MultiRequestBody，不缓存 body
+                        chain.doFilter(request, response);
+                        return;
+                    }
+                }
+                Method handler = handlerMethod != null ? handlerMethod.getMethod() : null;
+                String contentEncoding = httpServletRequest.getHeader(HttpHeaders.CONTENT_ENCODING);
+                if (BodyDecoder.isEncoded(contentEncoding) && !BodyDecoder.isSupported(contentEncoding)) {
+                    ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                            "Unsupported Content-Encoding: " + contentEncoding);
+                    return;
+                }
+                if (asyncRead && request.isAsyncSupported()) {
+                    startAsyncRead(httpServletRequest, (HttpServletResponse) response, handler);
+                    return;
+                }
+                try {
+                    requestWrapper = lazyCapture ? BodyRequestWrapper.lazy(httpServletRequest, bufferPool, maxBodySize,
+                            maxDecompressedBodySize, spillPolicy, metrics, handler) : captureBody(httpServletRequest, handler);
+                } catch (HttpBodyTooLargeException e) {
+                    ((HttpServletResponse) response).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+                    return;
+                } catch (HttpBodyDecodingException e) {
+                    // 压缩数据损坏或不完整
+                    ((HttpServletResponse) response).sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                    return;
+                }
             }
         }
         if (requestWrapper == null) {
             chain.doFilter(request, response);
         } else {
-            chain.doFilter(requestWrapper, response);
+            try {
+                chain.doFilter(requestWrapper, response);
+            } finally {
+                release(requestWrapper);
+            }
+        }
+    }
+
+    /**
+     * 阻塞读取完整 body
+     */
+    private BodyRequestWrapper captureBody(HttpServletRequest request, Method handler) throws IOException {
+        MultiRequestBodyMetrics metrics = this.metrics;
+        long start = metrics.start();
+        BodyRequestWrapper requestWrapper = new BodyRequestWrapper(request, bufferPool, maxBodySize, maxDecompressedBodySize,
+                spillPolicy);
+        metrics.recordBuffer(handler, start, requestWrapper.getBodySize());
+        return requestWrapper;
+    }
+
+    /**
+     * 开启异步，通过 ReadListener 非阻塞读取 body，读取完成后重新分发
+     */
+    private void startAsyncRead(HttpServletRequest request, HttpServletResponse response, Method handler) throws IOException {
+        MultiRequestBodyMetrics metrics = this.metrics;
+        long start = metrics.start();
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        long contentLength = request.getContentLengthLong();
+        BodyCollector collector;
+        try {
+            collector = new BodyCollector(bufferPool, maxBodySize, contentLength, contentLength, spillPolicy);
+        } catch (HttpBodyTooLargeException e) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        }
+        AsyncContext asyncContext = request.startAsync(request, response);
+        ServletInputStream in = request.getInputStream();
+        BodyReadListener listener = new BodyReadListener(asyncContext, in, collector, metrics, handler, start);
+        // 读取超时或出错时归还缓冲区、删除溢出的临时文件
+        asyncContext.addListener(listener);
+        if (BodyDecoder.isEncoded(contentEncoding)) {
+            listener.decodeWith(contentEncoding, bufferPool, BodyDecoder.limit(maxBodySize, maxDecompressedBodySize),
+                    spillPolicy);
+        }
+        in.setReadListener(listener);
+    }
+
+    private boolean isSupportedContentType(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return false;
         }
+        for (MediaType supported : mediaTypes) {
+            if (supported.includes(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 请求结束后归还缓冲区，异步请求在异步处理完成后归还
+     */
+    private void release(BodyRequestWrapper requestWrapper) {
+        if (!requestWrapper.isAsyncStarted()) {
+            requestWrapper.release();
+            return;
+        }
+        requestWrapper.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                requestWrapper.release();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                // do nothing
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // do nothing
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // do nothing
+            }
+        });
     }
 
     @Override
     public void destroy() {
         // do nothing
     }
+
+    /**
+     * 非阻塞读取 body，只在容器通知可读时读取，读取完成后分发给 handler；
+     * 同时监听 AsyncContext，读取超时或出错时归还收集器。
+     * <p>Servlet 规范只保证同一 ReadListener 的回调依次执行，AsyncListener 的超时、出错回调可能在容器的其他线程中
+     * 与 onDataAvailable 并发执行：不加锁时超时线程可能将收集器的缓冲区归还池中，而读取线程仍在写入，
+     * 该缓冲区随后被其他请求取出，造成请求间数据串扰；done 也需要在线程间可见。
+     * 因此读取、完成与失败处理持有同一把锁，只在 isReady 为 true 时读取，持锁期间不会阻塞于 I/O，正常读取时锁无竞争
+     */
+    private static class BodyReadListener implements ReadListener, AsyncListener {
+
+        private final AsyncContext asyncContext;
+        private final ServletInputStream in;
+        private final BodyCollector collector;
+        private final MultiRequestBodyMetrics metrics;
+        private final Method handler;
+        private final long start;
+        private boolean done;
+
+        /**
+         * 压缩 body 的 Content-Encoding，读取完成后再解码；未压缩时为 null
+         */
+        private String contentEncoding;
+        private BodyBufferPool bufferPool;
+        private long decompressedLimit;
+        private BodySpillPolicy spillPolicy;
+
+        BodyReadListener(AsyncContext asyncContext, ServletInputStream in, BodyCollector collector,
+                         MultiRequestBodyMetrics metrics, Method handler, long start) {
+            this.asyncContext = asyncContext;
+            this.in = in;
+            this.collector = collector;
+            this.metrics = metrics;
+            this.handler = handler;
+            this.start = start;
+        }
+
+        /**
+         * 非阻塞读取期间只收集压缩数据，读取完成后一次性解码
+         */
+        void decodeWith(String contentEncoding, BodyBufferPool bufferPool, long decompressedLimit,
+                        BodySpillPolicy spillPolicy) {
+            this.contentEncoding = contentEncoding;
+            this.bufferPool = bufferPool;
+            this.decompressedLimit = decompressedLimit;
+            this.spillPolicy = spillPolicy;
+        }
+
+        @Override
+        public synchronized void onDataAvailable() throws IOException {
+            try {
+                while (!done && in.isReady() && !in.isFinished()) {
+                    if (collector.readFrom(in) == -1) {
+                        break;
+                    }
+                }
+            } catch (HttpBodyTooLargeException e) {
+                fail(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void onAllDataRead() {
+            if (done) {
+                return;
+            }
+            BodyCollector body = collector;
+            if (contentEncoding != null) {
+                try {
+                    body = BodyDecoder.decode(collector, contentEncoding, bufferPool, decompressedLimit, spillPolicy);
+                } catch (HttpBodyTooLargeException e) {
+                    fail(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+                    return;
+                } catch (IOException e) {
+                    fail(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                    return;
+                }
+            }
+            done = true;
+            metrics.recordBuffer(handler, start, body.size());
+            asyncContext.getRequest().setAttribute(COLLECTOR_ATTRIBUTE, body);
+            asyncContext.dispatch();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(HttpServletResponse.SC_BAD_REQUEST, t.getMessage());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            fail(HttpServletResponse.SC_REQUEST_TIMEOUT, "Timed out reading request body");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            Throwable t = event.getThrowable();
+            fail(HttpServletResponse.SC_BAD_REQUEST, t != null ? t.getMessage() : null);
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            if (!done) {
+                // 未读取完成即结束，如客户端断开
+                done = true;
+                collector.release();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // do nothing
+        }
+
+        private synchronized void fail(int status, String message) {
+            if (done) {
+                return;
+            }
+            done = true;
+            collector.release();
+            try {
+                HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+                if (!response.isCommitted()) {
+                    response.sendError(status, message);
+                }
+            } catch (IOException e) {
+                // 客户端已断开，直接结束
+            } finally {
+                asyncContext.complete();
+            }
+        }
+    }
 }
@@ -1,73 +1,559 @@
 package io.github.starlightcs.filter;
 
-import org.apache.commons.io.IOUtils;
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 
 
 /**
  * 从流获取请求
+ * <p>默认在构建时读取完整 body；通过 {@link #lazy} 创建时延迟到首次读取，首个读取方直接读取容器的输入流，
+ * 读取的同时写入 body 缓冲区，再次读取时补齐剩余部分后从缓冲区重放。
+ * <p>body 超过 {@link BodySpillPolicy} 的阈值时溢出到临时文件，{@link #getBody()} 返回文件的内存映射，
+ * 没有 backing array；{@link #release()} 时删除临时文件
  *
  * @author Allen starlightcs@foxmail.com
  */
 public class BodyRequestWrapper extends HttpServletRequestWrapper {
 
-    private byte[] bytes;
+    /**
+     * body 收集器，持有 body 缓冲区；延迟缓存时首次读取前为 null
+     */
+    private BodyCollector collector;
+
+    /**
+     * 完整的 body，延迟缓存时读取完成前为 null
+     */
+    private ByteBuffer body;
     private PushBackServletInputStream pushBackServletInputStream;
 
+    /**
+     * body 是否已按 Content-Encoding 解码，解码后对下游隐藏 Content-Encoding 并按解码后的大小返回 Content-Length
+     */
+    private final boolean decoded;
+
+    /**
+     * 延迟缓存时的配置与状态，立即缓存时不使用
+     */
+    private final BodyBufferPool bufferPool;
+    private final long maxBodySize;
+    private final long maxDecompressedBodySize;
+    private final BodySpillPolicy spillPolicy;
+    private final MultiRequestBodyMetrics metrics;
+    private final Method handler;
+    private long captureStart;
+
+    /**
+     * 延迟缓存时的 body 来源（已按 Content-Encoding 解码），读取完成后关闭
+     */
+    private InputStream source;
+
+    /**
+     * 延迟缓存时交给首个读取方的输入流
+     */
+    private TeeServletInputStream teeInputStream;
+
     public BodyRequestWrapper(HttpServletRequest request) throws IOException {
+        this(request, null, -1);
+    }
+
+    /**
+     * @param request     原始请求
+     * @param bufferPool  缓冲区池，为 null 时不池化
+     * @param maxBodySize 最大 body 大小，小于 0 时不限制，超出时抛出 {@link HttpBodyTooLargeException}
+     */
+    public BodyRequestWrapper(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize) throws IOException {
+        this(request, bufferPool, maxBodySize, -1);
+    }
+
+    /**
+     * @param request                 原始请求
+     * @param bufferPool              缓冲区池，为 null 时不池化
+     * @param maxBodySize             最大 body 大小，小于 0 时不限制，超出时抛出 {@link HttpBodyTooLargeException}
+     * @param maxDecompressedBodySize Content-Encoding 为 gzip、deflate 时解压后的最大 body 大小，小于 0 时只受 maxBodySize 限制
+     */
+    public BodyRequestWrapper(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                              long maxDecompressedBodySize) throws IOException {
+        this(request, bufferPool, maxBodySize, maxDecompressedBodySize, BodySpillPolicy.NONE);
+    }
+
+    /**
+     * @param request                 原始请求
+     * @param bufferPool              缓冲区池，为 null 时不池化
+     * @param maxBodySize             最大 body 大小，小于 0 时不限制，超出时抛出 {@link HttpBodyTooLargeException}
+     * @param maxDecompressedBodySize Content-Encoding 为 gzip、deflate 时解压后的最大 body 大小，小于 0 时只受 maxBodySize 限制
+     * @param spillPolicy             body 溢出到临时文件的策略
+     */
+    public BodyRequestWrapper(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                              long maxDecompressedBodySize, BodySpillPolicy spillPolicy) throws IOException {
+        this(request, readBody(request, bufferPool, maxBodySize, maxDecompressedBodySize, spillPolicy));
+    }
+
+    /**
+     * 使用已收集完成的 body 构建，用于异步读取 body 后再分发的请求
+     *
+     * @param request   原始请求
+     * @param collector 已读取完整 body 的收集器
+     */
+    public BodyRequestWrapper(HttpServletRequest request, BodyCollector collector) throws IOException {
+        super(request);
+        this.collector = collector;
+        this.body = collector.toByteBuffer();
+        this.pushBackServletInputStream = new PushBackServletInputStream(body.duplicate());
+        this.decoded = BodyDecoder.isEncoded(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        this.bufferPool = null;
+        this.maxBodySize = -1;
+        this.maxDecompressedBodySize = -1;
+        this.spillPolicy = BodySpillPolicy.NONE;
+        this.metrics = MultiRequestBodyMetrics.NOOP;
+        this.handler = null;
+    }
+
+    private BodyRequestWrapper(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                               long maxDecompressedBodySize, BodySpillPolicy spillPolicy,
+                               MultiRequestBodyMetrics metrics, Method handler) {
         super(request);
-        // 读取输入流里的请求参数，并保存到bytes里
-        try (InputStream in = request.getInputStream()) {
-            bytes = IOUtils.toByteArray(in);
+        this.decoded = BodyDecoder.isEncoded(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+        this.maxDecompressedBodySize = maxDecompressedBodySize;
+        this.spillPolicy = spillPolicy;
+        this.metrics = metrics;
+        this.handler = handler;
+    }
+
+    /**
+     * 创建延迟缓存 body 的请求，构建时不读取 body；从未读取 body 的请求（被安全 filter 拒绝、路由失败等）不产生任何读取与缓冲区分配
+     *
+     * @param request                 原始请求
+     * @param bufferPool              缓冲区池，为 null 时不池化
+     * @param maxBodySize             最大 body 大小，小于 0 时不限制，读取时超出抛出 {@link HttpBodyTooLargeException}
+     * @param maxDecompressedBodySize Content-Encoding 为 gzip、deflate 时解压后的最大 body 大小，小于 0 时只受 maxBodySize 限制
+     * @param metrics                 指标埋点，body 完整缓存后记录
+     * @param handler                 请求对应的 handler 方法，可为 null
+     * @throws HttpBodyTooLargeException Content-Length 已超出限制
+     */
+    public static BodyRequestWrapper lazy(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                                          long maxDecompressedBodySize, MultiRequestBodyMetrics metrics, Method handler)
+            throws HttpBodyTooLargeException {
+        return lazy(request, bufferPool, maxBodySize, maxDecompressedBodySize, BodySpillPolicy.NONE, metrics, handler);
+    }
+
+    /**
+     * 创建延迟缓存 body 的请求，body 超过溢出阈值时溢出到临时文件
+     *
+     * @see #lazy(HttpServletRequest, BodyBufferPool, long, long, MultiRequestBodyMetrics, Method)
+     */
+    public static BodyRequestWrapper lazy(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                                          long maxDecompressedBodySize, BodySpillPolicy spillPolicy,
+                                          MultiRequestBodyMetrics metrics, Method handler) throws HttpBodyTooLargeException {
+        long contentLength = request.getContentLengthLong();
+        if (maxBodySize >= 0 && contentLength > maxBodySize) {
+            throw new HttpBodyTooLargeException(contentLength, maxBodySize);
+        }
+        return new BodyRequestWrapper(request, bufferPool, maxBodySize, maxDecompressedBodySize, spillPolicy, metrics, handler);
+    }
+
+    private static BodyCollector readBody(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                                          long maxDecompressedBodySize, BodySpillPolicy spillPolicy) throws IOException {
+        // 读取输入流里的请求参数，按 Content-Length 预分配（有上限），按实际到达的数据扩容；压缩的 body 边读取边解压
+        BodyCollector collector = createCollector(request, bufferPool, maxBodySize, maxDecompressedBodySize, spillPolicy);
+        try (InputStream in = openSource(request)) {
+            collector.readFully(in);
+        } catch (IOException | RuntimeException e) {
+            collector.release();
+            throw e;
+        }
+        return collector;
+    }
+
+    private static BodyCollector createCollector(HttpServletRequest request, BodyBufferPool bufferPool, long maxBodySize,
+                                                 long maxDecompressedBodySize, BodySpillPolicy spillPolicy) throws IOException {
+        if (BodyDecoder.isEncoded(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            return BodyDecoder.createCollector(bufferPool, request.getContentLengthLong(), maxBodySize,
+                    BodyDecoder.limit(maxBodySize, maxDecompressedBodySize), spillPolicy);
+        }
+        long contentLength = request.getContentLengthLong();
+        return new BodyCollector(bufferPool, maxBodySize, contentLength, contentLength, spillPolicy);
+    }
+
+    private static InputStream openSource(HttpServletRequest request) throws IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        InputStream in = request.getInputStream();
+        return BodyDecoder.isEncoded(contentEncoding) ? BodyDecoder.decode(in, contentEncoding) : in;
+    }
+
+    /**
+     * 延迟缓存：首次读取时创建收集器并打开容器的输入流
+     */
+    private void startCapture() throws IOException {
+        HttpServletRequest request = (HttpServletRequest) getRequest();
+        captureStart = metrics.start();
+        collector = createCollector(request, bufferPool, maxBodySize, maxDecompressedBodySize, spillPolicy);
+        source = openSource(request);
+    }
+
+    /**
+     * 延迟缓存：读取剩余部分，得到完整 body
+     */
+    private void materialize() throws IOException {
+        if (body != null) {
+            return;
+        }
+        if (collector == null) {
+            startCapture();
+        }
+        collector.readFully(source);
+        complete();
+    }
+
+    /**
+     * 延迟缓存：容器的输入流已读完，关闭来源并记录缓存指标
+     */
+    private void complete() throws IOException {
+        body = collector.toByteBuffer();
+        pushBackServletInputStream = new PushBackServletInputStream(body.duplicate());
+        try {
+            source.close();
+        } finally {
+            source = null;
+            metrics.recordBuffer(handler, captureStart, body.remaining());
+        }
+    }
+
+    /**
+     * body 是否已完整缓存
+     */
+    public boolean isCaptured() {
+        return body != null;
+    }
+
+    /**
+     * 请求结束后归还缓冲区、删除溢出的临时文件，之后不可再读取 body
+     */
+    public void release() {
+        if (collector != null) {
+            collector.release();
         }
-        this.pushBackServletInputStream = new PushBackServletInputStream(new ByteArrayInputStream(bytes));
-        reWriteInputStream();
     }
 
     @Override
-    public PushBackServletInputStream getInputStream() throws IOException {
+    public ServletInputStream getInputStream() throws IOException {
+        if (body == null) {
+            if (teeInputStream == null) {
+                // 首次读取直接读取容器的输入流，同时写入缓冲区
+                startCapture();
+                teeInputStream = new TeeServletInputStream();
+                return teeInputStream;
+            }
+            // 再次读取，补齐剩余部分后从缓冲区重放
+            materialize();
+        }
         reWriteInputStream();
         return pushBackServletInputStream;
     }
 
     @Override
     public BufferedReader getReader() throws IOException {
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+        return new BufferedReader(new InputStreamReader(getInputStream(), getCharset(this)));
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (decoded) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return null;
+            } else if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return body != null ? String.valueOf(body.remaining()) : null;
+            }
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        if (decoded) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            } else if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return body != null ? Collections.enumeration(Collections.singletonList(String.valueOf(body.remaining())))
+                        : Collections.emptyEnumeration();
+            }
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        if (!decoded) {
+            return super.getHeaderNames();
+        }
+        List<String> names = new ArrayList<>();
+        boolean hasContentLength = false;
+        for (String name : Collections.list(super.getHeaderNames())) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                hasContentLength = true;
+                if (body == null) {
+                    // 延迟缓存且尚未解压完成时，解压后的大小未知
+                    continue;
+                }
+            }
+            if (!HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                names.add(name);
+            }
+        }
+        if (!hasContentLength && body != null) {
+            names.add(HttpHeaders.CONTENT_LENGTH);
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        if (decoded && HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return getContentLength();
+        }
+        return super.getIntHeader(name);
+    }
+
+    @Override
+    public int getContentLength() {
+        return decoded ? (body != null ? body.remaining() : -1) : super.getContentLength();
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return decoded ? getContentLength() : super.getContentLengthLong();
     }
 
     public String getRequestParams() throws IOException {
-        return new String(bytes, this.getCharacterEncoding());
+        materialize();
+        // 未声明 charset 的 JSON 请求 getCharacterEncoding() 为 null ，与参数解析使用相同的编码
+        Charset charset = getCharset(this);
+        if (!body.hasArray()) {
+            // 溢出到临时文件的 body
+            return charset.decode(body.duplicate()).toString();
+        }
+        return new String(body.array(), body.arrayOffset(), body.remaining(), charset);
+    }
+
+    /**
+     * 以流的方式读取 body，从 body 当前位置开始，不修改其 position
+     * <p>返回类型为 InputStream ，调用方无需加载 Servlet API ，可在 WebFlux 应用中共用
+     */
+    public static InputStream openStream(ByteBuffer body) {
+        return new PushBackServletInputStream(body.duplicate());
+    }
+
+    /**
+     * 获取 body 编码
+     * <p>优先使用 Content-Type 中声明的 charset（CharacterEncodingFilter 可能强制覆盖 request 编码），
+     * 其次为 request 编码，都未声明时按 JSON 默认的 UTF-8
+     */
+    public static Charset getCharset(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType != null) {
+            try {
+                Charset charset = MediaType.parseMediaType(contentType).getCharset();
+                if (charset != null) {
+                    return charset;
+                }
+            } catch (InvalidMediaTypeException e) {
+                // 非法的 Content-Type 按 request 编码处理
+            }
+        }
+        String encoding = request.getCharacterEncoding();
+        return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 返回 body 的视图，与 wrapper 共享数据不拷贝，调用方不得修改内容；延迟缓存时读取剩余部分得到完整 body。
+     * 溢出到临时文件时为只读的内存映射，{@link ByteBuffer#hasArray()} 为 false
+     */
+    public ByteBuffer getBody() throws IOException {
+        materialize();
+        return body.duplicate();
+    }
+
+    /**
+     * body 字节数，延迟缓存且尚未读取完成时返回 -1
+     */
+    public int getBodySize() {
+        return body != null ? body.remaining() : -1;
     }
 
     public void reWriteInputStream() {
-        pushBackServletInputStream.setStream(new ByteArrayInputStream(bytes != null ? bytes : new byte[0]));
+        if (pushBackServletInputStream != null) {
+            pushBackServletInputStream.rewind();
+        }
+    }
+
+    /**
+     * 延迟缓存时交给首个读取方的输入流，从容器的输入流读取并写入缓冲区，再从缓冲区拷贝给读取方；
+     * 其他读取方触发补齐后，从缓冲区中自身的位置继续读取
+     */
+    private class TeeServletInputStream extends ServletInputStream {
+
+        private int position;
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? collector.get(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = collector.copyTo(position, b, off, len);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return collector.size() - position;
+        }
+
+        /**
+         * 确保当前位置之后有可读的数据
+         *
+         * @return 已读到 body 末尾时返回 false
+         */
+        private boolean fill() throws IOException {
+            while (position >= collector.size()) {
+                if (body != null) {
+                    return false;
+                }
+                if (collector.readFrom(source) == -1) {
+                    complete();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return body != null && position >= collector.size();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+
+        }
     }
 
     public static class PushBackServletInputStream extends ServletInputStream {
 
+        private ByteBuffer buffer;
+
+        /**
+         * 通过 {@link #setStream} 设置的输入流，不为 null 时读取该输入流
+         */
         private InputStream stream;
 
+        public PushBackServletInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @deprecated body 以 ByteBuffer 共享，使用 {@link #PushBackServletInputStream(ByteBuffer)}
+         */
+        @Deprecated
         public PushBackServletInputStream(InputStream stream) {
             this.stream = stream;
         }
 
+        /**
+         * @deprecated body 以 ByteBuffer 共享，重复读取使用 {@link #rewind()}
+         */
+        @Deprecated
         public void setStream(InputStream stream) {
             this.stream = stream;
         }
 
+        /**
+         * 重置到起始位置，可重复读取
+         */
+        public void rewind() {
+            if (buffer != null) {
+                // 转为 Buffer 调用，兼容 Java 8 运行时
+                ((Buffer) buffer).rewind();
+            }
+        }
+
         @Override
         public int read() throws IOException {
-            return stream.read();
+            if (stream != null) {
+                return stream.read();
+            }
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (stream != null) {
+                return stream.read(b, off, len);
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (stream != null) {
+                return stream.skip(n);
+            }
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, buffer.remaining());
+            ((Buffer) buffer).position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return stream != null ? stream.available() : buffer.remaining();
         }
 
         @Override
         public boolean isFinished() {
-            return true;
+            return stream != null || !buffer.hasRemaining();
         }
 
         @Override
@@ -81,4 +567,4 @@ public class BodyRequestWrapper extends HttpServletRequestWrapper {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package io.github.starlightcs.filter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * body 溢出到临时文件的策略
+ * <p>body 超过阈值后不再写入堆内存，而是写入临时文件，读取完成后以内存映射的方式提供给下游，重复读取直接命中页缓存；
+ * 请求结束后删除临时文件。不可变，线程安全
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public final class BodySpillPolicy {
+
+    /**
+     * 不溢出，body 全部保存在堆内存中
+     */
+    public static final BodySpillPolicy NONE = new BodySpillPolicy(-1, null);
+
+    private static final String FILE_PREFIX = "multirequest-";
+
+    private static final String FILE_SUFFIX = ".body";
+
+    /**
+     * 溢出阈值，小于 0 时不溢出
+     */
+    private final long threshold;
+
+    /**
+     * 临时文件目录
+     */
+    private final Path directory;
+
+    /**
+     * @param threshold 溢出阈值，body 超过该字节数时写入临时文件；小于 0 时不溢出
+     * @param directory 临时文件目录，为 null 时使用 java.io.tmpdir
+     */
+    public BodySpillPolicy(long threshold, Path directory) {
+        this.threshold = threshold;
+        this.directory = directory != null ? directory : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * 是否开启溢出
+     */
+    public boolean isEnabled() {
+        return threshold >= 0;
+    }
+
+    /**
+     * 指定大小的 body 是否需要溢出
+     */
+    public boolean shouldSpill(long size) {
+        return threshold >= 0 && size > threshold;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 创建临时文件
+     */
+    Path createFile() throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.starlightcs.json;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONFactory;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.util.TypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fastjson2 引擎
+ * <p>部分解析直接使用 {@link JSONReader} 顺序扫描顶层 key，无关的 value 通过 skipValue 跳过
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class Fastjson2JsonEngine implements JsonEngine {
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        try (JSONReader reader = createReader(body, offset, length, charset)) {
+            if (reader.nextIfNull()) {
+                return null;
+            }
+            Map<String, Object> data = reader.readObject();
+            checkEnd(reader);
+            return data;
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+        Map<String, Object> data = new HashMap<>(Math.max(4, keys.size() * 2));
+        if (length == 0 || keys.isEmpty()) {
+            return data;
+        }
+        try (JSONReader reader = createReader(body, offset, length, charset)) {
+            if (!reader.nextIfObjectStart()) {
+                throw new IOException("Request body is not a JSON object");
+            }
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if (keys.contains(name)) {
+                    data.put(name, reader.readAny());
+                } else {
+                    // 跳过无关的 value，对象和数组整体跳过
+                    reader.skipValue();
+                }
+            }
+            checkEnd(reader);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return data;
+    }
+
+    @Override
+    public Object parse(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        try (JSONReader reader = createReader(body, offset, length, charset)) {
+            Object value = reader.readAny();
+            checkEnd(reader);
+            return value;
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isObject(Object value) {
+        return value instanceof Map;
+    }
+
+    @Override
+    public boolean isArray(Object value) {
+        return value instanceof List;
+    }
+
+    @Override
+    public Object convert(Object value, Type type) {
+        if (value instanceof JSONObject) {
+            return ((JSONObject) value).to(type);
+        } else if (value instanceof JSONArray) {
+            return ((JSONArray) value).to(type);
+        }
+        return TypeUtils.cast(value, type);
+    }
+
+    @Override
+    public void prepare(Type type) {
+        // 生成的 ObjectReader 缓存在默认的 ObjectReaderProvider 中，to(type) 直接复用
+        JSONFactory.getDefaultObjectReaderProvider().getObjectReader(type);
+    }
+
+    /**
+     * UTF-8 及单字节编码直接读取字节，其余编码先解码为字符
+     */
+    private static JSONReader createReader(byte[] body, int offset, int length, Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset)) {
+            return JSONReader.of(body, offset, length, charset);
+        }
+        return JSONReader.of(new String(body, offset, length, charset));
+    }
+
+    private static void checkEnd(JSONReader reader) throws IOException {
+        if (!reader.isEnd()) {
+            throw new IOException("Unexpected content after the request body JSON object");
+        }
+    }
+}
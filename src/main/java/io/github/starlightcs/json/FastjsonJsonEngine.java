@@ -0,0 +1,89 @@
+package io.github.starlightcs.json;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fastjson 1.x 引擎
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class FastjsonJsonEngine implements JsonEngine {
+
+    private static final Type BODY_TYPE = new TypeReference<Map<String, Object>>() {
+    }.getType();
+
+    private final ParserConfig parserConfig;
+
+    private final PartialBodyReader partialBodyReader = new PartialBodyReader();
+
+    public FastjsonJsonEngine() {
+        this(ParserConfig.getGlobalInstance());
+    }
+
+    public FastjsonJsonEngine(ParserConfig parserConfig) {
+        this.parserConfig = parserConfig;
+    }
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) throws IOException {
+        try {
+            return JSON.parseObject(body, offset, length, charset, BODY_TYPE);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+        try {
+            return partialBodyReader.read(body, offset, length, charset, keys);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object parse(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        try {
+            return JSON.parse(new String(body, offset, length, charset));
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isObject(Object value) {
+        return value instanceof JSONObject;
+    }
+
+    @Override
+    public boolean isArray(Object value) {
+        return value instanceof JSONArray;
+    }
+
+    @Override
+    public Object convert(Object value, Type type) {
+        return TypeUtils.cast(value, type, parserConfig);
+    }
+
+    @Override
+    public void prepare(Type type) {
+        // 生成的反序列化器缓存在 ParserConfig 中
+        parserConfig.getDeserializer(type);
+    }
+}
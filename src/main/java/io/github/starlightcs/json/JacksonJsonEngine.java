@@ -0,0 +1,223 @@
+package io.github.starlightcs.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Jackson 引擎
+ * <p>复用应用中的 ObjectMapper，与 Spring MVC 共享其配置、Module 与反序列化器缓存；
+ * 输入流按块读取并解析，不将整个 body 读入堆内存；对象与数组以 JsonNode 保存，转换时由节点直接绑定
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class JacksonJsonEngine implements JsonEngine {
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader treeReader;
+
+    /**
+     * 目标类型对应的 ObjectReader，其中缓存了根反序列化器
+     */
+    private final ConcurrentMap<Type, ObjectReader> typeReaders = new ConcurrentHashMap<>();
+
+    public JacksonJsonEngine() {
+        this(new ObjectMapper());
+    }
+
+    public JacksonJsonEngine(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.treeReader = objectMapper.readerFor(JsonNode.class);
+    }
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        try (JsonParser parser = createParser(body, offset, length, charset)) {
+            return requireEnd(parser, readObject(parser));
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+        if (length == 0 || keys.isEmpty()) {
+            return new HashMap<>(Math.max(4, keys.size() * 2));
+        }
+        try (JsonParser parser = createParser(body, offset, length, charset)) {
+            return readKeys(parser, keys);
+        }
+    }
+
+    @Override
+    public Object parse(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        try (JsonParser parser = createParser(body, offset, length, charset)) {
+            return requireEnd(parser, JsonNodeValues.wrap(treeReader.readValue(parser)));
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseObject(InputStream body, Charset charset) throws IOException {
+        try (JsonParser parser = createParser(body, charset)) {
+            return parser.nextToken() != null ? requireEnd(parser, readObject(parser)) : null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseObject(InputStream body, Charset charset, Set<String> keys) throws IOException {
+        if (keys.isEmpty()) {
+            return new HashMap<>(4);
+        }
+        try (JsonParser parser = createParser(body, charset)) {
+            return readKeys(parser, keys);
+        }
+    }
+
+    @Override
+    public Object parse(InputStream body, Charset charset) throws IOException {
+        try (JsonParser parser = createParser(body, charset)) {
+            return parser.nextToken() != null ? requireEnd(parser, JsonNodeValues.wrap(treeReader.readValue(parser))) : null;
+        }
+    }
+
+    @Override
+    public boolean isObject(Object value) {
+        return value instanceof Map;
+    }
+
+    @Override
+    public boolean isArray(Object value) {
+        return value instanceof List;
+    }
+
+    @Override
+    public Object convert(Object value, Type type) {
+        JsonNode node = JsonNodeValues.unwrap(value);
+        if (node == null) {
+            // 不是本引擎解析出的节点，如调用方自行构造的 Map
+            return objectMapper.convertValue(value, objectMapper.getTypeFactory().constructType(type));
+        }
+        try {
+            return getTypeReader(type).readValue(node);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void prepare(Type type) {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        if (!objectMapper.canDeserialize(javaType)) {
+            throw new IllegalArgumentException("No deserializer for " + javaType);
+        }
+        // 创建 ObjectReader 时即查找并缓存根反序列化器，convert 直接复用
+        getTypeReader(type);
+    }
+
+    private ObjectReader getTypeReader(Type type) {
+        ObjectReader reader = typeReaders.get(type);
+        if (reader == null) {
+            reader = typeReaders.computeIfAbsent(type, key -> objectMapper.readerFor(objectMapper.getTypeFactory().constructType(key)));
+        }
+        return reader;
+    }
+
+    /**
+     * 读取 body 的 JSON 对象，body 为 null 时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readObject(JsonParser parser) throws IOException {
+        JsonNode node = treeReader.readValue(parser);
+        if (node.isNull()) {
+            return null;
+        }
+        if (!node.isObject()) {
+            throw new IOException("Request body is not a JSON object: " + node.getNodeType());
+        }
+        return (Map<String, Object>) JsonNodeValues.wrap(node);
+    }
+
+    /**
+     * 只解析指定的顶层 key，其余 value 直接跳过
+     */
+    private Map<String, Object> readKeys(JsonParser parser, Set<String> keys) throws IOException {
+        Map<String, Object> data = new HashMap<>(Math.max(4, keys.size() * 2));
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return data;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Request body is not a JSON object: " + token);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (keys.contains(name)) {
+                data.put(name, JsonNodeValues.wrap(treeReader.readValue(parser)));
+            } else {
+                // 跳过无关的 value，对象和数组整体跳过
+                parser.skipChildren();
+            }
+        }
+        return requireEnd(parser, data);
+    }
+
+    /**
+     * body 中的 JSON 值之后不允许再有其他内容，与 fastjson 的行为一致
+     */
+    private static <T> T requireEnd(JsonParser parser, T value) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token != null) {
+            throw new IOException("Unexpected content after the JSON body: " + token);
+        }
+        return value;
+    }
+
+    /**
+     * UTF-8 直接读取字节，其余编码先解码为字符
+     */
+    private JsonParser createParser(InputStream body, Charset charset) throws IOException {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return withoutSource(objectMapper.getFactory().createParser(body));
+        }
+        return withoutSource(objectMapper.getFactory().createParser(new InputStreamReader(body, charset)));
+    }
+
+    /**
+     * UTF-8 直接读取字节，其余编码先解码为字符
+     */
+    private JsonParser createParser(byte[] body, int offset, int length, Charset charset) throws IOException {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return withoutSource(objectMapper.getFactory().createParser(body, offset, length));
+        }
+        return withoutSource(objectMapper.getFactory().createParser(new String(body, offset, length, charset).toCharArray()));
+    }
+
+    /**
+     * 错误信息中不包含 body 内容：body 位于复用的缓冲区中，Jackson 会输出整个数组，其中可能残留其他请求的数据
+     */
+    private static JsonParser withoutSource(JsonParser parser) {
+        return parser.disable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.starlightcs.json;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON 引擎
+ * <p>参数解析器只依赖该接口完成 body 解析、节点类型判断与类型转换，可通过注册该类型的 Bean 替换默认实现
+ *
+ * @author Allen starlightcs@foxmail.com
+ * @see JsonEngineType
+ * @see JsonEngines
+ */
+public interface JsonEngine {
+
+    /**
+     * 全量解析 body
+     *
+     * @param body    body
+     * @param offset  起始位置
+     * @param length  长度
+     * @param charset body 编码
+     * @return body 中的参数，body 为 null 时可返回 null
+     * @throws IOException body 不是合法的 JSON 对象
+     */
+    Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) throws IOException;
+
+    /**
+     * 流式部分解析 body，只解析指定的顶层 key，其余 value 直接跳过
+     *
+     * @param body    body
+     * @param offset  起始位置
+     * @param length  长度
+     * @param charset body 编码
+     * @param keys    需要解析的顶层 key
+     * @return 只包含所需 key 的 Map
+     * @throws IOException body 不是合法的 JSON 对象
+     */
+    Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException;
+
+    /**
+     * 全量解析任意 JSON 值，用于批量调用等 body 不是 JSON 对象的场景
+     *
+     * @param body    body
+     * @param offset  起始位置
+     * @param length  长度
+     * @param charset body 编码
+     * @return 解析出的对象、数组或标量节点，body 为空时返回 null
+     * @throws IOException body 不是合法的 JSON
+     */
+    Object parse(byte[] body, int offset, int length, Charset charset) throws IOException;
+
+    /**
+     * 全量解析 body 输入流，用于溢出到临时文件等没有 backing array 的 body
+     * <p>默认读取为字节数组后解析；支持流式解析的引擎应覆盖，避免将整个 body 读入堆内存
+     *
+     * @param body    body 输入流，由调用方关闭
+     * @param charset body 编码
+     * @return body 中的参数，body 为空时可返回 null
+     * @throws IOException body 不是合法的 JSON 对象
+     */
+    default Map<String, Object> parseObject(InputStream body, Charset charset) throws IOException {
+        byte[] bytes = StreamUtils.copyToByteArray(body);
+        return parseObject(bytes, 0, bytes.length, charset);
+    }
+
+    /**
+     * 流式部分解析 body 输入流，只解析指定的顶层 key
+     *
+     * @param body    body 输入流，由调用方关闭
+     * @param charset body 编码
+     * @param keys    需要解析的顶层 key
+     * @return 只包含所需 key 的 Map
+     * @throws IOException body 不是合法的 JSON 对象
+     * @see #parseObject(InputStream, Charset)
+     */
+    default Map<String, Object> parseObject(InputStream body, Charset charset, Set<String> keys) throws IOException {
+        byte[] bytes = StreamUtils.copyToByteArray(body);
+        return parseObject(bytes, 0, bytes.length, charset, keys);
+    }
+
+    /**
+     * 全量解析任意 JSON 值的输入流
+     *
+     * @param body    body 输入流，由调用方关闭
+     * @param charset body 编码
+     * @return 解析出的对象、数组或标量节点，body 为空时返回 null
+     * @throws IOException body 不是合法的 JSON
+     * @see #parseObject(InputStream, Charset)
+     */
+    default Object parse(InputStream body, Charset charset) throws IOException {
+        byte[] bytes = StreamUtils.copyToByteArray(body);
+        return parse(bytes, 0, bytes.length, charset);
+    }
+
+    /**
+     * 是否为该引擎解析出的 JSON 对象节点
+     */
+    boolean isObject(Object value);
+
+    /**
+     * 是否为该引擎解析出的 JSON 数组节点
+     */
+    boolean isArray(Object value);
+
+    /**
+     * 将已解析的节点转换为目标类型，不再序列化后二次解析
+     *
+     * @param value 已解析的对象或数组节点
+     * @param type  目标类型，包含完整泛型
+     * @return 转换后的对象
+     * @throws RuntimeException 节点无法转换为目标类型
+     */
+    Object convert(Object value, Type type);
+
+    /**
+     * 预先生成并缓存目标类型的反序列化器，用于启动时预热，首个请求不再承担生成开销
+     * <p>默认不做任何处理
+     *
+     * @param type 目标类型，包含完整泛型
+     * @throws RuntimeException 目标类型无法由该引擎转换
+     */
+    default void prepare(Type type) {
+    }
+}
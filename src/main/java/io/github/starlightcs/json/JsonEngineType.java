@@ -0,0 +1,30 @@
+package io.github.starlightcs.json;
+
+/**
+ * JSON 引擎类型
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public enum JsonEngineType {
+
+    /**
+     * 自动选择：优先使用应用中的 {@link JsonEngine} Bean，其次 classpath 中的 fastjson2，
+     * 再次应用中的 Jackson ObjectMapper，最后 fastjson 1.x
+     */
+    AUTO,
+
+    /**
+     * Jackson，复用应用中的 ObjectMapper 及其注册的 Module
+     */
+    JACKSON,
+
+    /**
+     * fastjson2，需自行引入 com.alibaba.fastjson2:fastjson2
+     */
+    FASTJSON2,
+
+    /**
+     * fastjson 1.x，需自行引入 com.alibaba:fastjson
+     */
+    FASTJSON
+}
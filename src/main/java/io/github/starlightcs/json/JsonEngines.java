@@ -0,0 +1,62 @@
+package io.github.starlightcs.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.ClassUtils;
+
+/**
+ * JSON 引擎工厂
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public abstract class JsonEngines {
+
+    private static final ClassLoader CLASS_LOADER = JsonEngines.class.getClassLoader();
+
+    private static final boolean FASTJSON2_PRESENT = ClassUtils.isPresent("com.alibaba.fastjson2.JSONReader", CLASS_LOADER);
+
+    private static final boolean FASTJSON_PRESENT = ClassUtils.isPresent("com.alibaba.fastjson.JSON", CLASS_LOADER);
+
+    /**
+     * 按类型创建 JSON 引擎
+     *
+     * @param type         引擎类型
+     * @param customEngine 应用中的 {@link JsonEngine} Bean，可为 null，仅在 {@link JsonEngineType#AUTO} 时使用
+     * @param objectMapper 应用中的 ObjectMapper，可为 null，为 null 时 Jackson 引擎使用默认配置
+     * @return JSON 引擎
+     * @throws IllegalStateException 指定的引擎不在 classpath 中
+     */
+    public static JsonEngine create(JsonEngineType type, JsonEngine customEngine, ObjectMapper objectMapper) {
+        switch (type) {
+            case JACKSON:
+                return objectMapper != null ? new JacksonJsonEngine(objectMapper) : new JacksonJsonEngine();
+            case FASTJSON2:
+                checkPresent(FASTJSON2_PRESENT, "com.alibaba.fastjson2:fastjson2");
+                return new Fastjson2JsonEngine();
+            case FASTJSON:
+                checkPresent(FASTJSON_PRESENT, "com.alibaba:fastjson");
+                return new FastjsonJsonEngine();
+            default:
+                if (customEngine != null) {
+                    return customEngine;
+                } else if (FASTJSON2_PRESENT) {
+                    return new Fastjson2JsonEngine();
+                } else if (objectMapper != null || !FASTJSON_PRESENT) {
+                    return create(JsonEngineType.JACKSON, null, objectMapper);
+                }
+                return new FastjsonJsonEngine();
+        }
+    }
+
+    /**
+     * 未接入 Spring 容器时使用的默认引擎
+     */
+    public static JsonEngine createDefault() {
+        return create(JsonEngineType.AUTO, null, null);
+    }
+
+    private static void checkPresent(boolean present, String artifact) {
+        if (!present) {
+            throw new IllegalStateException("JSON engine requires " + artifact + " on the classpath");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.starlightcs.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Jackson 树节点的只读 Map / List 视图
+ * <p>解析器按 Map / List 读取参数，视图保留底层节点，转换时由节点直接绑定到目标类型；标量节点取出为 Java 值
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+final class JsonNodeValues {
+
+    private JsonNodeValues() {
+    }
+
+    /**
+     * 对象、数组节点包装为视图，标量节点取出其值，null 节点返回 null
+     */
+    static Object wrap(JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        switch (node.getNodeType()) {
+            case OBJECT:
+                return new ObjectNodeMap((ObjectNode) node);
+            case ARRAY:
+                return new ArrayNodeList((ArrayNode) node);
+            case STRING:
+                return node.textValue();
+            case NUMBER:
+                return node.numberValue();
+            case BOOLEAN:
+                return node.booleanValue();
+            case BINARY:
+                return ((BinaryNode) node).binaryValue();
+            case POJO:
+                return ((POJONode) node).getPojo();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 取出视图底层的节点，不是视图时返回 null
+     */
+    static JsonNode unwrap(Object value) {
+        if (value instanceof ObjectNodeMap) {
+            return ((ObjectNodeMap) value).node;
+        }
+        if (value instanceof ArrayNodeList) {
+            return ((ArrayNodeList) value).node;
+        }
+        return null;
+    }
+
+    private static class ObjectNodeMap extends AbstractMap<String, Object> {
+
+        private final ObjectNode node;
+
+        ObjectNodeMap(ObjectNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? wrap(node.get((String) key)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && node.has((String) key);
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, JsonNode> field = fields.next();
+                            return new SimpleImmutableEntry<>(field.getKey(), wrap(field.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return node.size();
+                }
+            };
+        }
+    }
+
+    private static class ArrayNodeList extends AbstractList<Object> implements RandomAccess {
+
+        private final ArrayNode node;
+
+        ArrayNodeList(ArrayNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= node.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + node.size());
+            }
+            return wrap(node.get(index));
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+    }
+}
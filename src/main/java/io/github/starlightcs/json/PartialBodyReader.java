@@ -0,0 +1,123 @@
+package io.github.starlightcs.json;
+
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fastjson 流式部分解析 body
+ * <p>顺序扫描 body 的顶层 key，只解析方法需要的 key，其余 value 直接跳过，不创建任何对象
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class PartialBodyReader {
+
+    /**
+     * 错误信息中不包含 body 内容，避免输出复用缓冲区中残留的其他请求数据
+     */
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
+
+    /**
+     * 解析 body 中指定的顶层 key
+     *
+     * @param body    body
+     * @param offset  起始位置
+     * @param length  长度
+     * @param charset body 编码，非 UTF-8 时先解码为字符再扫描
+     * @param keys    需要解析的顶层 key
+     * @return 只包含所需 key 的 Map，对象和数组为 fastjson 的 JSONObject、JSONArray
+     * @throws IOException body 不是合法的 JSON 对象
+     */
+    public Map<String, Object> read(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+        Map<String, Object> data = new HashMap<>(Math.max(4, keys.size() * 2));
+        if (length == 0 || keys.isEmpty()) {
+            return data;
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            try (JsonParser parser = jsonFactory.createParser(body, offset, length)) {
+                read(parser, keys, data, (start, end) ->
+                        JSON.parse(body, offset + start, end - start, StandardCharsets.UTF_8.newDecoder(), JSON.DEFAULT_PARSER_FEATURE));
+            }
+        } else {
+            char[] chars = new String(body, offset, length, charset).toCharArray();
+            try (JsonParser parser = jsonFactory.createParser(chars)) {
+                read(parser, keys, data, (start, end) -> JSON.parse(new String(chars, start, end - start)));
+            }
+        }
+        return data;
+    }
+
+    private void read(JsonParser parser, Set<String> keys, Map<String, Object> data, SliceParser sliceParser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Request body is not a JSON object: " + token);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if (!keys.contains(name)) {
+                // 跳过无关的 value，对象和数组整体跳过
+                parser.skipChildren();
+                continue;
+            }
+            data.put(name, readValue(parser, token, sliceParser));
+        }
+        // 对象之后不允许再有其他内容，与全量解析的行为一致
+        token = parser.nextToken();
+        if (token != null) {
+            throw new IOException("Unexpected content after the JSON body: " + token);
+        }
+    }
+
+    /**
+     * 读取当前 value，对象和数组按原始内容交给 fastjson 解析，保证与全量解析得到的类型一致
+     */
+    private Object readValue(JsonParser parser, JsonToken token, SliceParser sliceParser) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+            case START_ARRAY:
+                int start = (int) offset(parser.getTokenLocation());
+                parser.skipChildren();
+                int end = (int) offset(parser.getCurrentLocation());
+                return sliceParser.parse(start, end);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDecimalValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 字节解析时取字节偏移，字符解析时取字符偏移
+     */
+    private static long offset(JsonLocation location) {
+        return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+    }
+
+    /**
+     * 解析 body 中的一段对象或数组
+     */
+    private interface SliceParser {
+        Object parse(int start, int end);
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.starlightcs.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Micrometer 的指标实现
+ * <p>所有指标均带 handler 标签（类名#方法名），每个 handler 的指标在首次上报时注册并缓存，之后不再查找注册表：
+ * <ul>
+ * <li>multirequest.body.buffer、multirequest.body.parse、multirequest.bind、multirequest.validate：各阶段耗时</li>
+ * <li>multirequest.body.size：body 字节数分布</li>
+ * <li>multirequest.parameters：每次请求 body 中实际取到 value 的参数个数，不含缺失的参数分布</li>
+ * <li>multirequest.failures：绑定失败次数，reason 标签为 missing_required 或 type_mismatch</li>
+ * </ul>
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MicrometerMultiRequestBodyMetrics implements MultiRequestBodyMetrics {
+
+    /**
+     * handler 未知时的标签值，例如启动完成前的请求
+     */
+    private static final String UNKNOWN_HANDLER = "UNKNOWN";
+
+    private final MeterRegistry registry;
+
+    private final Map<Method, HandlerMeters> handlerMeters = new ConcurrentHashMap<>();
+
+    private volatile HandlerMeters unknownHandlerMeters;
+
+    public MicrometerMultiRequestBodyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public long start() {
+        return registry.config().clock().monotonicTime();
+    }
+
+    @Override
+    public void recordBuffer(Method handler, long startNanos, long bodySize) {
+        HandlerMeters meters = getMeters(handler);
+        meters.buffer.record(elapsed(startNanos), TimeUnit.NANOSECONDS);
+        meters.bodySize.record(bodySize);
+    }
+
+    @Override
+    public void recordParse(Method handler, long startNanos, int parameterCount) {
+        HandlerMeters meters = getMeters(handler);
+        meters.parse.record(elapsed(startNanos), TimeUnit.NANOSECONDS);
+        meters.parameters.record(parameterCount);
+    }
+
+    @Override
+    public void recordBind(Method handler, long startNanos) {
+        getMeters(handler).bind.record(elapsed(startNanos), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordValidate(Method handler, long startNanos) {
+        getMeters(handler).validate.record(elapsed(startNanos), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordFailure(Method handler, Failure failure) {
+        HandlerMeters meters = getMeters(handler);
+        (failure == Failure.MISSING_REQUIRED ? meters.missingRequired : meters.typeMismatch).increment();
+    }
+
+    private long elapsed(long startNanos) {
+        return registry.config().clock().monotonicTime() - startNanos;
+    }
+
+    private HandlerMeters getMeters(Method handler) {
+        if (handler == null) {
+            HandlerMeters meters = unknownHandlerMeters;
+            if (meters == null) {
+                meters = new HandlerMeters(registry, UNKNOWN_HANDLER);
+                unknownHandlerMeters = meters;
+            }
+            return meters;
+        }
+        HandlerMeters meters = handlerMeters.get(handler);
+        if (meters == null) {
+            meters = handlerMeters.computeIfAbsent(handler,
+                    method -> new HandlerMeters(registry, method.getDeclaringClass().getSimpleName() + "#" + method.getName()));
+        }
+        return meters;
+    }
+
+    /**
+     * 单个 handler 的全部指标
+     */
+    private static class HandlerMeters {
+
+        private final Timer buffer;
+        private final Timer parse;
+        private final Timer bind;
+        private final Timer validate;
+        private final DistributionSummary bodySize;
+        private final DistributionSummary parameters;
+        private final Counter missingRequired;
+        private final Counter typeMismatch;
+
+        HandlerMeters(MeterRegistry registry, String handler) {
+            Tags tags = Tags.of("handler", handler);
+            this.buffer = Timer.builder("multirequest.body.buffer").description("Time spent buffering the request body")
+                    .tags(tags).register(registry);
+            this.parse = Timer.builder("multirequest.body.parse").description("Time spent parsing the request body")
+                    .tags(tags).register(registry);
+            this.bind = Timer.builder("multirequest.bind").description("Time spent converting a body value to a parameter")
+                    .tags(tags).register(registry);
+            this.validate = Timer.builder("multirequest.validate").description("Time spent validating a parameter")
+                    .tags(tags).register(registry);
+            this.bodySize = DistributionSummary.builder("multirequest.body.size").description("Request body size")
+                    .baseUnit("bytes").tags(tags).register(registry);
+            this.parameters = DistributionSummary.builder("multirequest.parameters").description("Parameters bound from one request body")
+                    .tags(tags).register(registry);
+            this.missingRequired = Counter.builder("multirequest.failures").description("Parameter binding failures")
+                    .tags(tags).tag("reason", "missing_required").register(registry);
+            this.typeMismatch = Counter.builder("multirequest.failures").description("Parameter binding failures")
+                    .tags(tags).tag("reason", "type_mismatch").register(registry);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.starlightcs.metrics;
+
+import java.lang.reflect.Method;
+
+/**
+ * MultiRequestBody 指标埋点
+ * <p>body 缓存、解析、绑定、校验各阶段通过该接口上报耗时与失败，默认实现 {@link #NOOP} 不做任何事，
+ * 不调用 {@link System#nanoTime()}；classpath 中存在 Micrometer 且应用中有 MeterRegistry 时自动使用
+ * {@link MicrometerMultiRequestBodyMetrics}，也可注册该类型的 Bean 接入链路追踪等其他实现
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public interface MultiRequestBodyMetrics {
+
+    /**
+     * 不上报任何指标
+     */
+    MultiRequestBodyMetrics NOOP = new MultiRequestBodyMetrics() {
+    };
+
+    /**
+     * 开始计时
+     *
+     * @return 开始时间（纳秒），不计时的实现返回 0
+     */
+    default long start() {
+        return 0;
+    }
+
+    /**
+     * body 缓存完成
+     *
+     * @param handler    处理请求的方法，未知时为 null
+     * @param startNanos {@link #start()} 的返回值
+     * @param bodySize   body 字节数
+     */
+    default void recordBuffer(Method handler, long startNanos, long bodySize) {
+    }
+
+    /**
+     * body 解析完成
+     *
+     * @param handler        处理请求的方法
+     * @param startNanos     {@link #start()} 的返回值
+     * @param parameterCount body 中取到 value 的 @MultiRequestBody 参数个数，缺失或为 null 的参数不计入
+     */
+    default void recordParse(Method handler, long startNanos, int parameterCount) {
+    }
+
+    /**
+     * 单个参数类型转换完成
+     *
+     * @param handler    处理请求的方法
+     * @param startNanos {@link #start()} 的返回值
+     */
+    default void recordBind(Method handler, long startNanos) {
+    }
+
+    /**
+     * 单个参数校验完成
+     *
+     * @param handler    处理请求的方法
+     * @param startNanos {@link #start()} 的返回值
+     */
+    default void recordValidate(Method handler, long startNanos) {
+    }
+
+    /**
+     * 参数绑定失败
+     *
+     * @param handler 处理请求的方法
+     * @param failure 失败原因
+     */
+    default void recordFailure(Method handler, Failure failure) {
+    }
+
+    /**
+     * 参数绑定失败原因
+     */
+    enum Failure {
+
+        /**
+         * 必填参数缺失
+         */
+        MISSING_REQUIRED,
+
+        /**
+         * value 类型与方法入参类型不匹配
+         */
+        TYPE_MISMATCH
+    }
+}
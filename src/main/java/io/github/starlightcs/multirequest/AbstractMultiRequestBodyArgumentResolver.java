@@ -0,0 +1,400 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.HttpMediaTypeOrHttpBodyException;
+import io.github.starlightcs.filter.BodyRequestWrapper;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import io.github.starlightcs.json.JsonEngine;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.Errors;
+import org.springframework.validation.annotation.Validated;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MultiRequestBody 参数解析器基类
+ * <p>与 Web 栈无关的部分：body 解析、绑定计划、参数检查与类型转换，供 Spring MVC 与 WebFlux 解析器共用；
+ * JSON 的解析与转换统一交给 {@link JsonEngine}
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public abstract class AbstractMultiRequestBodyArgumentResolver {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /**
+     * org.springframework.core.MethodParameter#nestedIfOptional() 是否存在，建议使用大于或等于 spring 4.3
+     */
+    private static final boolean HAS_NESTED_IF_OPTIONAL = ClassUtils.hasMethod(MethodParameter.class, "nestedIfOptional");
+
+    /**
+     * 是否开启流式部分解析
+     */
+    private final boolean partialParse;
+
+    private final JsonEngine jsonEngine;
+
+    /**
+     * 指标埋点，可在解析器注册后替换，volatile 保证请求线程读取到最新的实现
+     */
+    private volatile MultiRequestBodyMetrics metrics = MultiRequestBodyMetrics.NOOP;
+
+    /**
+     * 每个方法中 @MultiRequestBody 参数的 key 路径索引
+     */
+    private final Map<Method, BodyPathIndex> pathIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 参数绑定计划缓存
+     */
+    private final Map<MethodParameter, ParameterBindingPlan> bindingPlans = new ConcurrentHashMap<>();
+
+    /**
+     * @param partialParse 是否开启流式部分解析，开启后只解析方法中 @MultiRequestBody 参数对应的 key
+     * @param jsonEngine   JSON 引擎
+     */
+    protected AbstractMultiRequestBodyArgumentResolver(boolean partialParse, JsonEngine jsonEngine) {
+        this.partialParse = partialParse;
+        this.jsonEngine = jsonEngine;
+    }
+
+    /**
+     * 设置指标埋点，默认不上报
+     */
+    public void setMetrics(MultiRequestBodyMetrics metrics) {
+        this.metrics = metrics != null ? metrics : MultiRequestBodyMetrics.NOOP;
+    }
+
+    protected MultiRequestBodyMetrics getMetrics() {
+        return metrics;
+    }
+
+    public JsonEngine getJsonEngine() {
+        return jsonEngine;
+    }
+
+    /**
+     * 获取参数绑定计划，首次访问时计算并缓存
+     */
+    protected ParameterBindingPlan getBindingPlan(MethodParameter parameter) {
+        ParameterBindingPlan plan = bindingPlans.get(parameter);
+        if (plan == null) {
+            plan = bindingPlans.computeIfAbsent(parameter, this::createBindingPlan);
+        }
+        return plan;
+    }
+
+    private ParameterBindingPlan createBindingPlan(MethodParameter parameter) {
+        MethodParameter nestedParameter = nestedIfOptional(parameter);
+        // 根据@MultiRequestBody注解value作为json解析的key
+        MultiRequestBody multiRequestBody = nestedParameter.getParameterAnnotation(MultiRequestBody.class);
+        return new ParameterBindingPlan(nestedParameter, resolveName(nestedParameter, multiRequestBody),
+                parameter.getParameterName(), multiRequestBody.required(), getValidationHints(parameter),
+                isBindExceptionRequired(parameter), isLastInMethod(parameter));
+    }
+
+    /**
+     * 是否为方法中最后一个 @MultiRequestBody 参数
+     */
+    private static boolean isLastInMethod(MethodParameter parameter) {
+        for (int i = parameter.getParameterIndex() + 1; i < parameter.getExecutable().getParameterCount(); i++) {
+            if (new SynthesizingMethodParameter(parameter.getMethod(), i).hasParameterAnnotation(MultiRequestBody.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 启动时预先构建并检查方法中所有 @MultiRequestBody 参数的绑定计划与 key 路径索引，首个请求不再承担反射与编译开销
+     * <p>检查 key 无法确定（未设置 value 且编译时未保留参数名）、路径格式错误、同一方法中 key 重复；
+     * 开启预热时同时由 JSON 引擎预先生成非标量参数类型的反序列化器，无法生成时同样视为错误
+     *
+     * @param parameters handler 方法的所有入参
+     * @param warmUp     是否预先生成反序列化器
+     * @return 参数声明的错误，没有错误时返回空列表
+     */
+    public List<String> prepare(MethodParameter[] parameters, boolean warmUp) {
+        List<String> errors = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        List<ParameterBindingPlan> plans = new ArrayList<>();
+        for (MethodParameter parameter : parameters) {
+            if (!parameter.hasParameterAnnotation(MultiRequestBody.class)) {
+                continue;
+            }
+            parameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+            ParameterBindingPlan plan = getBindingPlan(parameter);
+            if (StringUtils.isEmpty(plan.getName())) {
+                errors.add(describeMissingName(parameter));
+            } else if (!names.add(plan.getName())) {
+                errors.add(describe(parameter) + ": duplicate key '" + plan.getName() + "'");
+            } else {
+                plans.add(plan);
+            }
+        }
+        if (!errors.isEmpty() || plans.isEmpty()) {
+            return errors;
+        }
+        try {
+            getPathIndex(parameters[0].getMethod());
+        } catch (IllegalArgumentException e) {
+            errors.add(describe(parameters[0]) + ": " + e.getMessage());
+            return errors;
+        }
+        if (warmUp) {
+            for (ParameterBindingPlan plan : plans) {
+                if (plan.isScalarType()) {
+                    continue;
+                }
+                try {
+                    jsonEngine.prepare(plan.getGenericType());
+                } catch (RuntimeException e) {
+                    errors.add(describe(plan.getParameter()) + ": unsupported type " + plan.getGenericType().getTypeName()
+                            + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static String describe(MethodParameter parameter) {
+        Method method = parameter.getMethod();
+        return method.getDeclaringClass().getName() + "#" + method.getName() + " parameter " + parameter.getParameterIndex();
+    }
+
+    /**
+     * 解析 body 并取出当前方法所有参数的 value，开启流式部分解析时只解析当前方法所需的顶层 key
+     *
+     * @param body      body
+     * @param charset   body 编码
+     * @param parameter 方法入参
+     * @return 以参数 key 为键的 value，body 为空时返回空 Map
+     */
+    protected Map<String, Object> parseBody(ByteBuffer body, Charset charset, MethodParameter parameter) throws Exception {
+        Map<String, Object> data = null;
+        BodyPathIndex pathIndex = getPathIndex(parameter.getMethod());
+        MultiRequestBodyMetrics metrics = this.metrics;
+        long start = metrics.start();
+        try {
+            if (!body.hasArray()) {
+                // 溢出到临时文件的 body，以流的方式解析
+                InputStream in = BodyRequestWrapper.openStream(body);
+                if (partialParse) {
+                    data = jsonEngine.parseObject(in, charset, pathIndex.getTopLevelKeys());
+                } else if (body.hasRemaining()) {
+                    data = jsonEngine.parseObject(in, charset);
+                }
+            } else if (partialParse) {
+                int offset = body.arrayOffset() + body.position();
+                data = jsonEngine.parseObject(body.array(), offset, body.remaining(), charset, pathIndex.getTopLevelKeys());
+            } else if (body.hasRemaining()) {
+                int offset = body.arrayOffset() + body.position();
+                data = jsonEngine.parseObject(body.array(), offset, body.remaining(), charset);
+            }
+        } catch (IOException e) {
+            throw new HttpMediaTypeOrHttpBodyException(parameter, e);
+        }
+        // 嵌套路径在同一次遍历中全部取出
+        data = data != null ? pathIndex.resolve(data) : Collections.emptyMap();
+        metrics.recordParse(parameter.getMethod(), start, pathIndex.countPresent(data));
+        return data;
+    }
+
+    /**
+     * 从 body 中取出参数对应的 value，检查并转换为方法入参类型
+     *
+     * @param plan 参数绑定计划
+     * @param data body 中的参数
+     * @return 方法入参
+     */
+    protected Object readValue(ParameterBindingPlan plan, Map<String, Object> data) throws Exception {
+        Object param = data.get(plan.getName());
+        check(plan, param);
+        if (param == null) {
+            // 非必填的基本类型参数缺省时使用其默认值
+            return plan.getDefaultValue();
+        }
+        MultiRequestBodyMetrics metrics = this.metrics;
+        long start = metrics.start();
+        Object value;
+        if (plan.isScalarType() && !jsonEngine.isObject(param) && !jsonEngine.isArray(param)) {
+            // 标量快速路径：value 已是目标类型时直接返回，否则按绑定计划中的转换器转换并做范围检查
+            try {
+                value = plan.getScalarConverter().convert(param);
+            } catch (IllegalArgumentException e) {
+                throw typeMismatch(plan, plan.getName() + " argument type mismatch: " + e.getMessage());
+            }
+        } else if (jsonEngine.isObject(param) || jsonEngine.isArray(param)) {
+            // 直接由已解析的节点转换为目标类型，不再 toString 后二次解析；使用完整泛型类型以支持 List<Dto> 等
+            try {
+                value = jsonEngine.convert(param, plan.getGenericType());
+            } catch (RuntimeException e) {
+                throw typeMismatch(plan, plan.getName() + " argument type mismatch ");
+            }
+        } else {
+            value = param;
+        }
+        metrics.recordBind(plan.getParameter().getMethod(), start);
+        return value;
+    }
+
+    /**
+     * 按方法的 key 路径索引取出一次调用的参数，用于批量调用中已解析的单个元素
+     *
+     * @param method    handler 方法
+     * @param arguments 一次调用的参数对象
+     * @return 以参数 key 为键的 value
+     */
+    protected Map<String, Object> resolvePaths(Method method, Map<String, Object> arguments) {
+        return getPathIndex(method).resolve(arguments);
+    }
+
+    private BodyPathIndex getPathIndex(Method method) {
+        BodyPathIndex pathIndex = pathIndexes.get(method);
+        if (pathIndex == null) {
+            pathIndex = pathIndexes.computeIfAbsent(method, AbstractMultiRequestBodyArgumentResolver::compilePaths);
+        }
+        return pathIndex;
+    }
+
+    private static String describeMissingName(MethodParameter parameter) {
+        return describe(parameter) + ": key is not specified and the parameter name is not available,"
+                + " set @MultiRequestBody value or compile with -parameters";
+    }
+
+    /**
+     * 编译方法中所有 @MultiRequestBody 参数的 key 路径
+     *
+     * @throws IllegalStateException 参数未设置 key 且编译时未保留参数名
+     */
+    private static BodyPathIndex compilePaths(Method method) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new SynthesizingMethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+            MultiRequestBody multiRequestBody = parameter.getParameterAnnotation(MultiRequestBody.class);
+            if (multiRequestBody != null) {
+                String name = resolveName(parameter, multiRequestBody);
+                if (StringUtils.isEmpty(name)) {
+                    throw new IllegalStateException(describeMissingName(parameter));
+                }
+                keys.add(name);
+            }
+        }
+        return BodyPathIndex.compile(keys);
+    }
+
+    /**
+     * 根据@MultiRequestBody注解value作为json解析的key，未设置时使用参数名
+     */
+    private static String resolveName(MethodParameter parameter, MultiRequestBody multiRequestBody) {
+        return StringUtils.isEmpty(multiRequestBody.value()) ? parameter.getParameterName() : multiRequestBody.value();
+    }
+
+    private MethodParameter nestedIfOptional(MethodParameter parameter) {
+        return HAS_NESTED_IF_OPTIONAL ? parameter.nestedIfOptional() : nested(parameter);
+    }
+
+    private MethodParameter nested(MethodParameter parameter) {
+        parameter = new MethodParameter(parameter);
+        parameter.increaseNestingLevel();
+        return parameter;
+    }
+
+    /**
+     * 检查参数
+     *
+     * @param plan  参数绑定计划
+     * @param param json参数对应的value
+     * @throws MethodArgumentNotValidException
+     */
+    private void check(ParameterBindingPlan plan, Object param) throws Exception {
+        // 如果value是空，并且注解为必填，抛出Valid异常
+        if (Objects.isNull(param) && plan.isRequired()) {
+            metrics.recordFailure(plan.getParameter().getMethod(), MultiRequestBodyMetrics.Failure.MISSING_REQUIRED);
+            throw new MethodArgumentNotValidException(plan.getParameter(), plan.getName() + " is Null ");
+        }
+        // 如果value是空，但是注解为非必填，通过校验
+        if (Objects.isNull(param)) {
+            return;
+        }
+        // 如果value类型与方法入参类型一致，通过校验
+        if (Objects.equals(param.getClass(), plan.getParameterType())) {
+            return;
+        }
+        // 如果value类型与方法入参类型不一致，但入参类型是标量类型，由转换器转换并校验
+        if (plan.isScalarType()) {
+            return;
+        }
+        // value类型json数组对象，并且方法入参是数组或集合，通过校验
+        if (jsonEngine.isArray(param)
+                && (plan.getParameterType().isArray() || Collection.class.isAssignableFrom(plan.getParameterType()))) {
+            return;
+        }
+        // value类型json对象，并且方法入参不是基本类型、数组或集合，通过校验；部分引擎会将对象静默转换为空集合
+        if (jsonEngine.isObject(param)
+                && !plan.getParameterType().isArray() && !Collection.class.isAssignableFrom(plan.getParameterType())) {
+            return;
+        }
+        throw typeMismatch(plan, plan.getName() + " argument type mismatch ");
+    }
+
+    /**
+     * 记录类型不匹配并返回对应异常
+     */
+    private MethodArgumentNotValidException typeMismatch(ParameterBindingPlan plan, String message) {
+        metrics.recordFailure(plan.getParameter().getMethod(), MultiRequestBodyMetrics.Failure.TYPE_MISMATCH);
+        return new MethodArgumentNotValidException(plan.getParameter(), message);
+    }
+
+    /**
+     * Determine the validation hints for the binding target if applicable.
+     * <p>The default implementation checks for {@code @javax.validation.Valid},
+     * Spring's {@link org.springframework.validation.annotation.Validated},
+     * and custom annotations whose name starts with "Valid".
+     *
+     * @param parameter the method parameter descriptor
+     * @return the validation hints, or {@code null} if no validation is required
+     * @see #isBindExceptionRequired
+     * @since 4.1.5
+     */
+    private Object[] getValidationHints(MethodParameter parameter) {
+        Annotation[] annotations = parameter.getParameterAnnotations();
+        for (Annotation ann : annotations) {
+            Validated validatedAnn = AnnotationUtils.getAnnotation(ann, Validated.class);
+            if (validatedAnn != null || ann.annotationType().getSimpleName().startsWith("Valid")) {
+                Object hints = (validatedAnn != null ? validatedAnn.value() : AnnotationUtils.getValue(ann));
+                return (hints instanceof Object[] ? (Object[]) hints : new Object[]{hints});
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether to raise a fatal bind exception on validation errors.
+     *
+     * @param parameter the method parameter descriptor
+     * @return {@code true} if the next method argument is not of type {@link Errors}
+     * @since 4.1.5
+     */
+    private boolean isBindExceptionRequired(MethodParameter parameter) {
+        int i = parameter.getParameterIndex();
+        Class<?>[] paramTypes = parameter.getExecutable().getParameterTypes();
+        boolean hasBindingResult = (paramTypes.length > (i + 1) && Errors.class.isAssignableFrom(paramTypes[i + 1]));
+        return !hasBindingResult;
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.starlightcs.multirequest;
+
+import java.util.*;
+
+/**
+ * 方法中所有 @MultiRequestBody 参数的 key 路径索引
+ * <p>key 支持三种写法：
+ * <ul>
+ * <li>顶层 key，例如 {@code order}</li>
+ * <li>以 . 分隔的路径，例如 {@code payload.order}、{@code payload.items.0}</li>
+ * <li>JSON Pointer（RFC 6901），例如 {@code /payload/items}，key 本身含有 . 时使用该写法，~1 表示 /，~0 表示 ~</li>
+ * </ul>
+ * 路径在启动后首次访问时编译为前缀树，每个请求只遍历一次已解析的 body 即可取出该方法所有参数的 value；
+ * 全部为顶层 key 时不做任何遍历，直接使用解析结果
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public final class BodyPathIndex {
+
+    /**
+     * 路径前缀树的根节点，全部为顶层 key 时为 null
+     */
+    private final Node root;
+
+    /**
+     * 所有路径的第一段，用于流式部分解析
+     */
+    private final Set<String> topLevelKeys;
+
+    /**
+     * 所有参数 key
+     */
+    private final Set<String> names;
+
+    private BodyPathIndex(Node root, Set<String> topLevelKeys, Set<String> names) {
+        this.root = root;
+        this.topLevelKeys = topLevelKeys;
+        this.names = names;
+    }
+
+    /**
+     * 编译 key 路径
+     *
+     * @param names 参数的 key
+     * @return 路径索引
+     * @throws IllegalArgumentException 路径格式错误
+     */
+    public static BodyPathIndex compile(Collection<String> names) {
+        Node root = new Node();
+        Set<String> topLevelKeys = new HashSet<>();
+        boolean nested = false;
+        for (String name : names) {
+            List<String> segments = parse(name);
+            topLevelKeys.add(segments.get(0));
+            nested |= segments.size() > 1 || !segments.get(0).equals(name);
+            Node node = root;
+            for (String segment : segments) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            node.names.add(name);
+        }
+        return new BodyPathIndex(nested ? root : null, Collections.unmodifiableSet(topLevelKeys),
+                Collections.unmodifiableSet(new LinkedHashSet<>(names)));
+    }
+
+    /**
+     * 解析 key 路径为各段
+     */
+    static List<String> parse(String name) {
+        List<String> segments = new ArrayList<>();
+        if (name.startsWith("/")) {
+            // JSON Pointer
+            for (String segment : name.substring(1).split("/", -1)) {
+                segments.add(segment.replace("~1", "/").replace("~0", "~"));
+            }
+        } else if (name.indexOf('.') >= 0) {
+            for (String segment : name.split("\\.", -1)) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid @MultiRequestBody path: " + name);
+                }
+                segments.add(segment);
+            }
+        } else {
+            segments.add(name);
+        }
+        return segments;
+    }
+
+    /**
+     * 所有路径的第一段
+     */
+    public Set<String> getTopLevelKeys() {
+        return topLevelKeys;
+    }
+
+    /**
+     * 参数 key 的个数
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * 统计 {@link #resolve} 的结果中取到 value 的参数 key 个数
+     *
+     * @param values {@link #resolve} 的结果
+     * @return 取到非 null value 的 key 个数
+     */
+    public int countPresent(Map<String, Object> values) {
+        if (root != null) {
+            // 只包含取到 value 的 key
+            return values.size();
+        }
+        int count = 0;
+        for (String name : names) {
+            if (values.get(name) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 取出 body 中所有路径对应的 value
+     *
+     * @param body 已解析的 body
+     * @return 以参数 key 为键的 value，全部为顶层 key 时直接返回 body
+     */
+    public Map<String, Object> resolve(Map<String, Object> body) {
+        if (root == null) {
+            return body;
+        }
+        Map<String, Object> values = new HashMap<>();
+        walk(root, body, values);
+        return values;
+    }
+
+    private static void walk(Node node, Object container, Map<String, Object> values) {
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            Object value = get(container, entry.getKey());
+            if (value == null) {
+                continue;
+            }
+            Node child = entry.getValue();
+            for (String name : child.names) {
+                values.put(name, value);
+            }
+            if (!child.children.isEmpty()) {
+                walk(child, value, values);
+            }
+        }
+    }
+
+    /**
+     * 取出对象的字段或数组的元素，不存在时返回 null
+     */
+    private static Object get(Object container, String segment) {
+        if (container instanceof Map) {
+            return ((Map<?, ?>) container).get(segment);
+        }
+        if (container instanceof List) {
+            List<?> list = (List<?>) container;
+            int index = toIndex(segment);
+            return index >= 0 && index < list.size() ? list.get(index) : null;
+        }
+        return null;
+    }
+
+    private static int toIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * 路径前缀树节点
+     */
+    private static class Node {
+
+        /**
+         * 子节点，按声明顺序遍历
+         */
+        private final Map<String, Node> children = new LinkedHashMap<>();
+
+        /**
+         * 以该节点结尾的参数 key
+         */
+        private final List<String> names = new ArrayList<>(1);
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ElementKind;
+import javax.validation.Path;
+import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.executable.ExecutableValidator;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 以方法为单位校验 @MultiRequestBody 参数
+ * <p>方法的所有 @MultiRequestBody 参数绑定完成后，通过 {@link ExecutableValidator#validateParameters} 一次性校验，
+ * 参数上的约束注解、@Valid 级联校验与跨参数约束在同一次调用中完成，不再为每个参数创建 WebDataBinder；
+ * 校验分组取自方法或类上的 @Validated，参数上的 @Validated 按其声明的分组校验。只检查 @MultiRequestBody 参数，其余参数的约束不在此校验，
+ * 跨参数约束只在方法的参数全部为 @MultiRequestBody 时生效
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MethodArgumentsValidator {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    private final Validator validator;
+
+    private final ExecutableValidator executableValidator;
+
+    /**
+     * 每个方法的校验元数据
+     */
+    private final Map<Method, MethodMetadata> metadata = new ConcurrentHashMap<>();
+
+    public MethodArgumentsValidator(Validator validator) {
+        this.validator = validator;
+        this.executableValidator = validator.forExecutables();
+    }
+
+    /**
+     * 使用应用中唯一的 {@link Validator} Bean（如 Spring Boot 默认的 LocalValidatorFactoryBean），不存在时使用默认的 ValidatorFactory
+     */
+    public static MethodArgumentsValidator create(BeanFactory beanFactory) {
+        return new MethodArgumentsValidator(beanFactory.getBeanProvider(Validator.class)
+                .getIfUnique(() -> Validation.buildDefaultValidatorFactory().getValidator()));
+    }
+
+    /**
+     * 校验方法的所有 @MultiRequestBody 参数
+     *
+     * @param bean      handler 实例
+     * @param parameter 方法中最后一个 @MultiRequestBody 参数，用于构建异常
+     * @param arguments 按参数位置排列的入参，非 @MultiRequestBody 参数为 null
+     * @throws MethodArgumentNotValidException 违反约束
+     */
+    public void validate(Object bean, MethodParameter parameter, Object[] arguments) throws MethodArgumentNotValidException {
+        Method method = parameter.getMethod();
+        MethodMetadata methodMetadata = getMetadata(method);
+        MapBindingResult bindingResult = new MapBindingResult(new LinkedHashMap<>(), method.getName());
+        for (ConstraintViolation<Object> violation : executableValidator.validateParameters(bean, method, arguments, methodMetadata.groups)) {
+            addError(bindingResult, violation, methodMetadata.resolveField(violation.getPropertyPath()));
+        }
+        // @Validated 与自定义的 Valid* 注解不被 ExecutableValidator 识别，按参数上声明的分组单独校验
+        for (int i = 0; i < arguments.length; i++) {
+            Class<?>[] groups = methodMetadata.beanGroups[i];
+            if (groups == null || arguments[i] == null) {
+                continue;
+            }
+            for (ConstraintViolation<Object> violation : validator.validate(arguments[i], groups)) {
+                StringBuilder field = new StringBuilder(methodMetadata.parameterNames[i]);
+                for (Path.Node node : violation.getPropertyPath()) {
+                    appendNode(field, node);
+                }
+                addError(bindingResult, violation, field.toString());
+            }
+        }
+        if (bindingResult.hasErrors()) {
+            throw new MethodArgumentNotValidException(parameter, bindingResult);
+        }
+    }
+
+    private static void addError(MapBindingResult bindingResult, ConstraintViolation<Object> violation, String field) {
+        if (field == null) {
+            return;
+        }
+        String code = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
+        bindingResult.addError(new FieldError(bindingResult.getObjectName(), field, violation.getInvalidValue(), false,
+                bindingResult.resolveMessageCodes(code, field), null, violation.getMessage()));
+    }
+
+    /**
+     * 追加属性、集合元素节点，如 {@code .items[0].name}
+     */
+    private static void appendNode(StringBuilder field, Path.Node node) {
+        if (node.isInIterable()) {
+            field.append('[').append(node.getIndex() != null ? node.getIndex() : node.getKey()).append(']');
+        }
+        if (node.getName() != null && node.getKind() != ElementKind.CONTAINER_ELEMENT) {
+            field.append('.').append(node.getName());
+        }
+    }
+
+    private MethodMetadata getMetadata(Method method) {
+        MethodMetadata methodMetadata = metadata.get(method);
+        if (methodMetadata == null) {
+            methodMetadata = metadata.computeIfAbsent(method, MethodMetadata::new);
+        }
+        return methodMetadata;
+    }
+
+    /**
+     * 方法的校验分组、参数名与 @MultiRequestBody 参数位置，不可变
+     */
+    private static final class MethodMetadata {
+
+        private final Class<?>[] groups;
+
+        private final String[] parameterNames;
+
+        private final boolean[] bound;
+
+        private final boolean allBound;
+
+        /**
+         * 标注 @Validated 或自定义 Valid* 注解的 @MultiRequestBody 参数的校验分组，其余为 null
+         */
+        private final Class<?>[][] beanGroups;
+
+        MethodMetadata(Method method) {
+            Validated validated = AnnotationUtils.findAnnotation(method, Validated.class);
+            if (validated == null) {
+                validated = AnnotationUtils.findAnnotation(method.getDeclaringClass(), Validated.class);
+            }
+            this.groups = validated != null ? validated.value() : new Class<?>[0];
+            this.parameterNames = new String[method.getParameterCount()];
+            this.bound = new boolean[method.getParameterCount()];
+            this.beanGroups = new Class<?>[method.getParameterCount()][];
+            boolean all = true;
+            for (int i = 0; i < bound.length; i++) {
+                MethodParameter parameter = new SynthesizingMethodParameter(method, i);
+                parameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+                String name = parameter.getParameterName();
+                parameterNames[i] = name != null ? name : "arg" + i;
+                bound[i] = parameter.hasParameterAnnotation(MultiRequestBody.class);
+                all &= bound[i];
+                if (bound[i]) {
+                    beanGroups[i] = getBeanGroups(parameter);
+                }
+            }
+            this.allBound = all;
+        }
+
+        /**
+         * 将约束路径转换为 BindingResult 的字段名，如 {@code dto.items[0].name}；不属于 @MultiRequestBody 参数时返回 null
+         */
+        String resolveField(Path path) {
+            StringBuilder field = new StringBuilder();
+            boolean matched = false;
+            for (Path.Node node : path) {
+                ElementKind kind = node.getKind();
+                if (kind == ElementKind.METHOD) {
+                    continue;
+                }
+                if (kind == ElementKind.PARAMETER) {
+                    int index = node.as(Path.ParameterNode.class).getParameterIndex();
+                    if (!bound[index]) {
+                        return null;
+                    }
+                    field.append(parameterNames[index]);
+                    matched = true;
+                } else if (kind == ElementKind.CROSS_PARAMETER) {
+                    if (!allBound) {
+                        return null;
+                    }
+                    field.append(node.getName());
+                    matched = true;
+                } else {
+                    appendNode(field, node);
+                }
+            }
+            return matched ? field.toString() : null;
+        }
+
+        /**
+         * 与按参数校验时相同的规则识别 @Validated 与自定义 Valid* 注解，@Valid 由 ExecutableValidator 级联校验
+         */
+        private static Class<?>[] getBeanGroups(MethodParameter parameter) {
+            for (Annotation ann : parameter.getParameterAnnotations()) {
+                if (ann instanceof Valid) {
+                    return null;
+                }
+                Validated validatedAnn = AnnotationUtils.getAnnotation(ann, Validated.class);
+                if (validatedAnn != null || ann.annotationType().getSimpleName().startsWith("Valid")) {
+                    Object hints = validatedAnn != null ? validatedAnn.value() : AnnotationUtils.getValue(ann);
+                    Object[] values = hints instanceof Object[] ? (Object[]) hints : new Object[]{hints};
+                    List<Class<?>> groups = new ArrayList<>(values.length);
+                    for (Object value : values) {
+                        if (value instanceof Class) {
+                            groups.add((Class<?>) value);
+                        }
+                    }
+                    return groups.toArray(new Class<?>[0]);
+                }
+            }
+            return null;
+        }
+    }
+}
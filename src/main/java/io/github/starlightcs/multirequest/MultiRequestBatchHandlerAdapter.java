@@ -0,0 +1,1138 @@
+package io.github.starlightcs.multirequest;
+
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import io.github.starlightcs.annotation.MultiRequestBatch;
+import io.github.starlightcs.json.JsonEngine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量调用处理器适配器
+ * <p>handler 方法标注了 {@link MultiRequestBatch} 时，排在 {@link RequestMappingHandlerAdapter} 之前处理该请求：将 body 拆分为多次调用，
+ * 每次调用使用独立的 request attribute 与响应缓冲区，通过 {@link MultiRequestBodyArgumentResolver} 按方法已有的参数绑定计划解析参数，
+ * 再交给 {@link RequestMappingHandlerAdapter} 调用 handler，与正常请求经过相同的参数解析器、@InitBinder、@ModelAttribute 方法、
+ * 返回值处理器与 ResponseBodyAdvice。所有调用成功后，各调用的响应 body 组成 JSON 数组或对象写出。
+ * <p>批量请求作为一个整体经过 DispatcherServlet，所有 HandlerInterceptor 与异常处理器对整个批量请求各执行一次。
+ * <p>并行调用时，各调用在其他线程中使用批量开始前在请求线程中复制的 request 快照，不访问容器的 request 与 response：
+ * 快照包含请求行、请求头、请求参数、cookie、attribute、已存在的 session 与认证信息，
+ * 在调用中创建 session、读取 body、isUserInRole、encodeURL 等需要容器 request 或 response 的操作抛出 IllegalStateException。
+ * <p>限制：方法需要以响应 body 作为返回值（@ResponseBody、ResponseEntity 等），不支持视图与 Callable、DeferredResult 等异步返回值
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MultiRequestBatchHandlerAdapter implements HandlerAdapter, Ordered {
+
+    /**
+     * 由 Spring MVC 异步处理的返回值类型，批量调用不支持
+     */
+    private static final String[] ASYNC_RETURN_TYPES = {
+            "java.util.concurrent.Callable",
+            "java.util.concurrent.CompletionStage",
+            "org.springframework.web.context.request.async.DeferredResult",
+            "org.springframework.web.context.request.async.WebAsyncTask",
+            "org.springframework.util.concurrent.ListenableFuture",
+            "org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter",
+            "org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody",
+    };
+
+    /**
+     * 并行调用中代替容器 response 的对象，所有方法都抛出 IllegalStateException
+     */
+    private static final HttpServletResponse DETACHED_RESPONSE = detached(HttpServletResponse.class);
+
+    private final MultiRequestBodyArgumentResolver resolver;
+
+    private final ObjectProvider<RequestMappingHandlerAdapter> handlerAdapterProvider;
+
+    /**
+     * 每个方法的 @MultiRequestBatch 注解，未标注时为 empty
+     */
+    private final Map<Method, Optional<MultiRequestBatch>> batchAnnotations = new ConcurrentHashMap<>();
+
+    /**
+     * 实际调用 handler 的 {@link RequestMappingHandlerAdapter}，首次批量调用时取得
+     */
+    private volatile RequestMappingHandlerAdapter handlerAdapter;
+
+    private volatile Executor executor;
+
+    /**
+     * @param resolver               MultiRequestBody 参数解析器
+     * @param handlerAdapterProvider 实际调用 handler 的 {@link RequestMappingHandlerAdapter}
+     */
+    public MultiRequestBatchHandlerAdapter(MultiRequestBodyArgumentResolver resolver,
+                                           ObjectProvider<RequestMappingHandlerAdapter> handlerAdapterProvider) {
+        this.resolver = resolver;
+        this.handlerAdapterProvider = handlerAdapterProvider;
+    }
+
+    /**
+     * 设置并行调用使用的线程池
+     * <p>默认在 Java 21 及以上使用虚拟线程，每个并行调用一个虚拟线程；更低版本使用最大线程数等于 CPU 核数的有界线程池，
+     * 线程池已满时在当前线程中调用。并行度都由 {@link MultiRequestBatch#parallelism()} 限制
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 排在 {@link RequestMappingHandlerAdapter} 之前
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public boolean supports(Object handler) {
+        return handler instanceof HandlerMethod && getBatchAnnotation((HandlerMethod) handler) != null;
+    }
+
+    @Override
+    public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        MultiRequestBatch batch = getBatchAnnotation(handlerMethod);
+        Object body = resolver.readBatch(new ServletWebRequest(request, response));
+        JsonEngine jsonEngine = resolver.getJsonEngine();
+        if (jsonEngine.isArray(body)) {
+            List<Map<String, Object>> calls = new ArrayList<>();
+            for (Object call : (List<?>) body) {
+                calls.add(toArguments(call, request));
+            }
+            checkSize(batch, calls.size(), request);
+            writeResults(null, invokeAll(handlerMethod, batch, calls, request, response), response);
+        } else if (jsonEngine.isObject(body)) {
+            Map<?, ?> map = (Map<?, ?>) body;
+            checkSize(batch, map.size(), request);
+            List<Map<String, Object>> calls = new ArrayList<>(map.size());
+            for (Object call : map.values()) {
+                calls.add(toArguments(call, request));
+            }
+            writeResults(map.keySet(), invokeAll(handlerMethod, batch, calls, request, response), response);
+        } else {
+            throw new HttpMessageNotReadableException("Batch request body must be a JSON array or object",
+                    new ServletServerHttpRequest(request));
+        }
+        return null;
+    }
+
+    @Override
+    public long getLastModified(HttpServletRequest request, Object handler) {
+        return -1;
+    }
+
+    private MultiRequestBatch getBatchAnnotation(HandlerMethod handlerMethod) {
+        Optional<MultiRequestBatch> batch = batchAnnotations.get(handlerMethod.getMethod());
+        if (batch == null) {
+            batch = batchAnnotations.computeIfAbsent(handlerMethod.getMethod(), method -> {
+                MultiRequestBatch annotation = handlerMethod.getMethodAnnotation(MultiRequestBatch.class);
+                if (annotation != null) {
+                    checkReturnType(handlerMethod);
+                }
+                return Optional.ofNullable(annotation);
+            });
+        }
+        return batch.orElse(null);
+    }
+
+    private static void checkReturnType(HandlerMethod handlerMethod) {
+        Class<?> returnType = handlerMethod.getReturnType().getParameterType();
+        for (String asyncType : ASYNC_RETURN_TYPES) {
+            if (ClassUtils.isPresent(asyncType, null) && ClassUtils.resolveClassName(asyncType, null).isAssignableFrom(returnType)) {
+                throw new IllegalStateException("@MultiRequestBatch does not support async return type "
+                        + returnType.getName() + ": " + handlerMethod.getMethod());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toArguments(Object call, HttpServletRequest request) {
+        if (!resolver.getJsonEngine().isObject(call)) {
+            throw new HttpMessageNotReadableException("Each batch call must be a JSON object",
+                    new ServletServerHttpRequest(request));
+        }
+        return (Map<String, Object>) call;
+    }
+
+    private static void checkSize(MultiRequestBatch batch, int size, HttpServletRequest request) {
+        if (batch.maxCalls() >= 0 && size > batch.maxCalls()) {
+            throw new HttpMessageNotReadableException("Batch request contains " + size
+                    + " calls, exceeds the limit of " + batch.maxCalls(), new ServletServerHttpRequest(request));
+        }
+    }
+
+    /**
+     * 调用 handler，并行度大于 1 时由多个 worker 依次领取未执行的调用，当前线程也作为其中一个 worker；
+     * 任一调用失败后不再领取新的调用，等待已开始的调用结束后抛出第一个异常
+     */
+    private BatchCallResponse[] invokeAll(HandlerMethod handlerMethod, MultiRequestBatch batch, List<Map<String, Object>> calls,
+                                          HttpServletRequest request, HttpServletResponse response) throws Exception {
+        BatchCallResponse[] results = new BatchCallResponse[calls.size()];
+        int workers = Math.min(batch.parallelism(), calls.size());
+        if (workers <= 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = invoke(handlerMethod, calls.get(i), request, response);
+            }
+            return results;
+        }
+        // 容器的 request 与 response 不是线程安全的，并行调用只使用在当前线程中创建的快照
+        RequestSnapshot snapshot = new RequestSnapshot(request);
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < results.length) {
+                try {
+                    results[i] = invoke(handlerMethod, calls.get(i), snapshot, DETACHED_RESPONSE);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    next.set(results.length);
+                }
+            }
+        };
+        Executor batchExecutor = getExecutor();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers - 1];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(worker, batchExecutor);
+        }
+        worker.run();
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            failure.compareAndSet(null, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return results;
+    }
+
+    /**
+     * 调用一次 handler，返回值写入该次调用的响应缓冲区；调用期间 {@link RequestContextHolder} 指向该次调用的 request
+     */
+    private BatchCallResponse invoke(HandlerMethod handlerMethod, Map<String, Object> arguments,
+                                     HttpServletRequest request, HttpServletResponse response) throws Exception {
+        BatchCallRequest callRequest = new BatchCallRequest(request);
+        BatchCallResponse callResponse = new BatchCallResponse(response);
+        resolver.bindBatchCall(new ServletWebRequest(callRequest, callResponse), handlerMethod.getMethod(), arguments);
+        RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(callRequest, callResponse));
+        try {
+            ModelAndView mav = getHandlerAdapter().handle(callRequest, callResponse, handlerMethod);
+            if (mav != null) {
+                throw new IllegalStateException("@MultiRequestBatch method must write its return value as the response body: "
+                        + handlerMethod.getMethod());
+            }
+            return callResponse;
+        } finally {
+            RequestContextHolder.setRequestAttributes(previous);
+        }
+    }
+
+    /**
+     * 所有调用完成后写出批量响应：JSON 类型的响应 body 原样拼接，其余按 JSON 字符串写出，没有 body 时为 null；
+     * 任一调用的状态码不是 2xx 时，以第一个这样的调用的响应作为整个请求的响应
+     *
+     * @param ids 调用 id，为 null 时写出 JSON 数组
+     */
+    private static void writeResults(Collection<?> ids, BatchCallResponse[] calls, HttpServletResponse response) throws IOException {
+        for (BatchCallResponse call : calls) {
+            if (call.getStatus() >= 300) {
+                call.copyTo(response);
+                return;
+            }
+        }
+        for (BatchCallResponse call : calls) {
+            call.copyHeadersTo(response);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        OutputStream out = response.getOutputStream();
+        out.write(ids == null ? '[' : '{');
+        Iterator<?> idIterator = ids != null ? ids.iterator() : null;
+        for (int i = 0; i < calls.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (idIterator != null) {
+                writeString(out, String.valueOf(idIterator.next()));
+                out.write(':');
+            }
+            calls[i].writeJsonTo(out);
+        }
+        out.write(ids == null ? ']' : '}');
+        out.flush();
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        out.write('"');
+        out.write(BufferRecyclers.getJsonStringEncoder().quoteAsUTF8(value));
+        out.write('"');
+    }
+
+    private RequestMappingHandlerAdapter getHandlerAdapter() {
+        RequestMappingHandlerAdapter current = this.handlerAdapter;
+        if (current == null) {
+            current = handlerAdapterProvider.getObject();
+            this.handlerAdapter = current;
+        }
+        return current;
+    }
+
+    private Executor getExecutor() {
+        Executor current = this.executor;
+        return current != null ? current : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 创建所有方法都抛出 IllegalStateException 的对象，作为并行调用中 request、response 包装类的被包装对象，
+     * 快照未覆盖的方法不会访问容器对象
+     */
+    private static <T> T detached(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Detached " + type.getSimpleName();
+                default:
+                    throw new IllegalStateException(type.getSimpleName() + "." + method.getName()
+                            + " is not available in a parallel @MultiRequestBatch call");
+            }
+        }));
+    }
+
+    /**
+     * 默认线程池，首次并行调用时由类初始化创建，之后的读取不加锁
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final String THREAD_NAME_PREFIX = "multirequest-batch-";
+
+        static final Executor EXECUTOR = createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            Executor virtualThreadExecutor = createVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+            threadFactory.setDaemon(true);
+            return new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        /**
+         * 通过反射创建虚拟线程的 {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(...).factory())}，
+         * 保持 Java 8 编译；Java 21 以下或未开启预览特性时返回 null
+         */
+        private static Executor createVirtualThreadExecutor() {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+                ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+                return (Executor) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, threadFactory);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 并行调用使用的 request 快照，在请求线程中复制容器 request 的只读状态，之后可在多个线程中同时读取；
+     * 未复制的方法由被包装的 detached 对象抛出 IllegalStateException
+     */
+    private static class RequestSnapshot extends HttpServletRequestWrapper {
+
+        private final String method;
+        private final String requestUri;
+        private final String requestUrl;
+        private final String queryString;
+        private final String contextPath;
+        private final String servletPath;
+        private final String pathInfo;
+        private final String pathTranslated;
+        private final String protocol;
+        private final String scheme;
+        private final String serverName;
+        private final int serverPort;
+        private final String remoteAddr;
+        private final String remoteHost;
+        private final int remotePort;
+        private final String localName;
+        private final String localAddr;
+        private final int localPort;
+        private final boolean secure;
+        private final String characterEncoding;
+        private final String contentType;
+        private final long contentLength;
+        private final List<Locale> locales;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, String[]> parameters;
+        private final Cookie[] cookies;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final String authType;
+        private final String remoteUser;
+        private final Principal userPrincipal;
+        private final HttpSession session;
+        private final String requestedSessionId;
+        private final boolean requestedSessionIdValid;
+        private final boolean requestedSessionIdFromCookie;
+        private final boolean requestedSessionIdFromUrl;
+        private final ServletContext servletContext;
+        private final DispatcherType dispatcherType;
+
+        RequestSnapshot(HttpServletRequest request) {
+            super(detached(HttpServletRequest.class));
+            this.method = request.getMethod();
+            this.requestUri = request.getRequestURI();
+            this.requestUrl = request.getRequestURL().toString();
+            this.queryString = request.getQueryString();
+            this.contextPath = request.getContextPath();
+            this.servletPath = request.getServletPath();
+            this.pathInfo = request.getPathInfo();
+            this.pathTranslated = request.getPathTranslated();
+            this.protocol = request.getProtocol();
+            this.scheme = request.getScheme();
+            this.serverName = request.getServerName();
+            this.serverPort = request.getServerPort();
+            this.remoteAddr = request.getRemoteAddr();
+            this.remoteHost = request.getRemoteHost();
+            this.remotePort = request.getRemotePort();
+            this.localName = request.getLocalName();
+            this.localAddr = request.getLocalAddr();
+            this.localPort = request.getLocalPort();
+            this.secure = request.isSecure();
+            this.characterEncoding = request.getCharacterEncoding();
+            this.contentType = request.getContentType();
+            this.contentLength = request.getContentLengthLong();
+            this.locales = Collections.unmodifiableList(Collections.list(request.getLocales()));
+            for (String name : Collections.list(request.getHeaderNames())) {
+                headers.put(name, Collections.list(request.getHeaders(name)));
+            }
+            this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(request.getParameterMap()));
+            this.cookies = request.getCookies();
+            for (String name : Collections.list(request.getAttributeNames())) {
+                // 每次调用使用各自的 WebAsyncManager
+                if (!WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE.equals(name)) {
+                    attributes.put(name, request.getAttribute(name));
+                }
+            }
+            this.authType = request.getAuthType();
+            this.remoteUser = request.getRemoteUser();
+            this.userPrincipal = request.getUserPrincipal();
+            this.session = request.getSession(false);
+            this.requestedSessionId = request.getRequestedSessionId();
+            this.requestedSessionIdValid = request.isRequestedSessionIdValid();
+            this.requestedSessionIdFromCookie = request.isRequestedSessionIdFromCookie();
+            this.requestedSessionIdFromUrl = request.isRequestedSessionIdFromURL();
+            this.servletContext = request.getServletContext();
+            this.dispatcherType = request.getDispatcherType();
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return requestUri;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            return new StringBuffer(requestUrl);
+        }
+
+        @Override
+        public String getQueryString() {
+            return queryString;
+        }
+
+        @Override
+        public String getContextPath() {
+            return contextPath;
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return pathInfo;
+        }
+
+        @Override
+        public String getPathTranslated() {
+            return pathTranslated;
+        }
+
+        @Override
+        public String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        public String getScheme() {
+            return scheme;
+        }
+
+        @Override
+        public String getServerName() {
+            return serverName;
+        }
+
+        @Override
+        public int getServerPort() {
+            return serverPort;
+        }
+
+        @Override
+        public String getRemoteAddr() {
+            return remoteAddr;
+        }
+
+        @Override
+        public String getRemoteHost() {
+            return remoteHost;
+        }
+
+        @Override
+        public int getRemotePort() {
+            return remotePort;
+        }
+
+        @Override
+        public String getLocalName() {
+            return localName;
+        }
+
+        @Override
+        public String getLocalAddr() {
+            return localAddr;
+        }
+
+        @Override
+        public int getLocalPort() {
+            return localPort;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public int getContentLength() {
+            return contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return contentLength;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+        }
+
+        @Override
+        public Enumeration<Locale> getLocales() {
+            return Collections.enumeration(locales);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.getFirst(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            List<String> values = headers.get(name);
+            return Collections.enumeration(values != null ? values : Collections.emptyList());
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            return headers.getFirstDate(name);
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = headers.getFirst(name);
+            return value != null ? Integer.parseInt(value) : -1;
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values != null && values.length > 0 ? values[0] : null;
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            String[] values = parameters.get(name);
+            return values != null ? values.clone() : null;
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return parameters;
+        }
+
+        @Override
+        public Cookie[] getCookies() {
+            return cookies != null ? cookies.clone() : null;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public String getAuthType() {
+            return authType;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return remoteUser;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return userPrincipal;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session == null && create) {
+                throw new IllegalStateException("Cannot create a session in a parallel @MultiRequestBatch call");
+            }
+            return session;
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return requestedSessionId;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            return requestedSessionIdValid;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return requestedSessionIdFromCookie;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return requestedSessionIdFromUrl;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean isRequestedSessionIdFromUrl() {
+            return requestedSessionIdFromUrl;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return dispatcherType;
+        }
+    }
+
+    /**
+     * 批量调用中的一次调用，attribute 只在该次调用内可见，读取时回退到原 request；
+     * 原 request 的 WebAsyncManager 不可见，每次调用由 {@link RequestMappingHandlerAdapter} 创建各自的 WebAsyncManager
+     */
+    private static class BatchCallRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, Object> attributes = new HashMap<>(8);
+
+        BatchCallRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        /**
+         * 每次调用都同步完成，不开启异步处理
+         */
+        @Override
+        public boolean isAsyncSupported() {
+            return false;
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return false;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            Object value = attributes.get(name);
+            if (value != null || WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE.equals(name)) {
+                return value;
+            }
+            return super.getAttribute(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            Set<String> names = new LinkedHashSet<>(attributes.keySet());
+            for (String name : Collections.list(super.getAttributeNames())) {
+                if (!WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE.equals(name)) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+    }
+
+    /**
+     * 批量调用中一次调用的响应，状态码、响应头与 body 保存在内存中，不写入原 response；线程封闭
+     */
+    private static class BatchCallResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream(256);
+
+        private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>(8, Locale.ENGLISH);
+
+        private final List<Cookie> cookies = new ArrayList<>(2);
+
+        private int status = SC_OK;
+
+        private String errorMessage;
+
+        private boolean error;
+
+        private String contentType;
+
+        private String characterEncoding;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        BatchCallResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * 以 JSON 值写出 body：JSON 类型原样写出，其余按文本写为 JSON 字符串，没有 body 时为 null
+         */
+        void writeJsonTo(OutputStream out) throws IOException {
+            flushWriter();
+            if (content.size() == 0) {
+                out.write("null".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            MediaType mediaType = getMediaType();
+            Charset charset = mediaType != null && mediaType.getCharset() != null ? mediaType.getCharset()
+                    : Charset.forName(getCharacterEncoding());
+            if (mediaType != null && (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                    || mediaType.getSubtype().endsWith("+json"))) {
+                if (StandardCharsets.UTF_8.equals(charset) || mediaType.getCharset() == null) {
+                    // JSON 默认为 UTF-8
+                    content.writeTo(out);
+                } else {
+                    out.write(new String(content.toByteArray(), charset).getBytes(StandardCharsets.UTF_8));
+                }
+                return;
+            }
+            writeString(out, new String(content.toByteArray(), charset));
+        }
+
+        /**
+         * 将该次调用的响应原样作为整个请求的响应
+         */
+        void copyTo(HttpServletResponse response) throws IOException {
+            flushWriter();
+            copyHeadersTo(response);
+            if (error) {
+                if (errorMessage != null) {
+                    response.sendError(status, errorMessage);
+                } else {
+                    response.sendError(status);
+                }
+                return;
+            }
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            if (characterEncoding != null) {
+                response.setCharacterEncoding(characterEncoding);
+            }
+            response.setContentLength(content.size());
+            content.writeTo(response.getOutputStream());
+            response.flushBuffer();
+        }
+
+        /**
+         * 响应头与 cookie 合并到原 response，已存在的同名响应头不覆盖
+         */
+        void copyHeadersTo(HttpServletResponse response) {
+            headers.forEach((name, values) -> {
+                if (!response.containsHeader(name)) {
+                    for (String value : values) {
+                        response.addHeader(name, value);
+                    }
+                }
+            });
+            for (Cookie cookie : cookies) {
+                response.addCookie(cookie);
+            }
+        }
+
+        private MediaType getMediaType() {
+            if (contentType == null) {
+                return null;
+            }
+            try {
+                return MediaType.parseMediaType(contentType);
+            } catch (InvalidMediaTypeException e) {
+                return null;
+            }
+        }
+
+        private void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            cookies.add(cookie);
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return headers.containsKey(name) || (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) && contentType != null);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) {
+            this.status = sc;
+            this.errorMessage = msg;
+            this.error = true;
+        }
+
+        @Override
+        public void sendError(int sc) {
+            sendError(sc, null);
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+            this.status = SC_FOUND;
+            setHeader(HttpHeaders.LOCATION, location);
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            setHeader(name, formatDate(name, date));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            addHeader(name, formatDate(name, date));
+        }
+
+        private static String formatDate(String name, long date) {
+            HttpHeaders formatter = new HttpHeaders();
+            formatter.setDate(name, date);
+            return formatter.getFirst(name);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!setSpecialHeader(name, value)) {
+                List<String> values = new ArrayList<>(1);
+                values.add(value);
+                headers.put(name, values);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!setSpecialHeader(name, value)) {
+                headers.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+            }
+        }
+
+        /**
+         * Content-Type 单独保存，Content-Length 由批量响应决定
+         */
+        private boolean setSpecialHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                setContentType(value);
+                return true;
+            }
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int sc, String sm) {
+            this.status = sc;
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            this.status = sc;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                return contentType;
+            }
+            List<String> values = headers.get(name);
+            return values != null && !values.isEmpty() ? values.get(0) : null;
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                return contentType != null ? Collections.singletonList(contentType) : Collections.emptyList();
+            }
+            List<String> values = headers.get(name);
+            return values != null ? new ArrayList<>(values) : Collections.emptyList();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            Set<String> names = new LinkedHashSet<>(headers.keySet());
+            if (contentType != null) {
+                names.add(HttpHeaders.CONTENT_TYPE);
+            }
+            return names;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            if (characterEncoding != null) {
+                return characterEncoding;
+            }
+            MediaType mediaType = getMediaType();
+            return mediaType != null && mediaType.getCharset() != null ? mediaType.getCharset().name()
+                    : StandardCharsets.ISO_8859_1.name();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            this.characterEncoding = charset;
+        }
+
+        @Override
+        public void setContentType(String type) {
+            this.contentType = type;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            // 由批量响应决定
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            // 由批量响应决定
+        }
+
+        @Override
+        public void setLocale(Locale loc) {
+            // 不影响批量响应
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        content.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        content.write(b, off, len);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            flushWriter();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            headers.clear();
+            cookies.clear();
+            status = SC_OK;
+            error = false;
+            errorMessage = null;
+            contentType = null;
+            characterEncoding = null;
+        }
+
+        @Override
+        public void resetBuffer() {
+            flushWriter();
+            content.reset();
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+            // 全部保存在内存中
+        }
+    }
+}
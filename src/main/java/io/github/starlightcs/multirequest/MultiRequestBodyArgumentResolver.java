@@ -1,37 +1,85 @@
 package io.github.starlightcs.multirequest;
 
-import com.alibaba.fastjson.*;
 import io.github.starlightcs.annotation.MultiRequestBody;
-import io.github.starlightcs.exception.HttpMediaTypeOrHttpBodyException;
 import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import io.github.starlightcs.filter.BodyRequestWrapper;
+import io.github.starlightcs.json.JsonEngine;
+import io.github.starlightcs.json.JsonEngines;
 import org.springframework.core.MethodParameter;
-import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.util.StringUtils;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.BindingResult;
-import org.springframework.validation.Errors;
-import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
-import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
-
-import java.lang.annotation.Annotation;
-import java.util.HashMap;
-import java.util.List;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * RequestBodyParam 参数解析器
  *
  * @author Allen starlightcs@foxmail.com
  */
-public class MultiRequestBodyArgumentResolver implements HandlerMethodArgumentResolver {
+public class MultiRequestBodyArgumentResolver extends AbstractMultiRequestBodyArgumentResolver implements HandlerMethodArgumentResolver {
+
+    /**
+     * 解析后的 body 缓存在 request attribute 中的 key，同一请求内所有参数共享，body 只解析一次
+     */
+    private static final String BODY_ATTRIBUTE = MultiRequestBodyArgumentResolver.class.getName() + ".BODY";
+
+    /**
+     * 以方法为单位校验时，已绑定的 @MultiRequestBody 入参缓存在 request attribute 中的 key
+     */
+    private static final String ARGUMENTS_ATTRIBUTE = MultiRequestBodyArgumentResolver.class.getName() + ".ARGUMENTS";
+
+    /**
+     * 以方法为单位的校验器，为 null 时按参数分别校验
+     */
+    private MethodArgumentsValidator methodArgumentsValidator;
+
+    /**
+     * 以方法为单位校验时使用的 handler 实例，以 bean 名称注册的 handler 首次解析后复用；约束只按实例的类型查找
+     */
+    private final Map<Method, Object> handlerBeans = new ConcurrentHashMap<>();
+
+    public MultiRequestBodyArgumentResolver() {
+        this(false);
+    }
+
+    /**
+     * @param partialParse 是否开启流式部分解析，开启后只解析方法中 @MultiRequestBody 参数对应的 key
+     */
+    public MultiRequestBodyArgumentResolver(boolean partialParse) {
+        this(partialParse, JsonEngines.createDefault());
+    }
+
+    /**
+     * @param partialParse 是否开启流式部分解析，开启后只解析方法中 @MultiRequestBody 参数对应的 key
+     * @param jsonEngine   JSON 引擎
+     */
+    public MultiRequestBodyArgumentResolver(boolean partialParse, JsonEngine jsonEngine) {
+        super(partialParse, jsonEngine);
+    }
 
-    private static boolean hasNestedIfOptional = true;
+    /**
+     * 设置以方法为单位的校验器
+     * <p>设置后方法的所有 @MultiRequestBody 参数绑定完成后一次性校验，不再为每个参数创建 WebDataBinder 分别校验，
+     * 也不执行对应的 @InitBinder 方法；只有紧随其后是 Errors 参数时才创建 binder 提供 BindingResult
+     */
+    public void setMethodArgumentsValidator(MethodArgumentsValidator methodArgumentsValidator) {
+        this.methodArgumentsValidator = methodArgumentsValidator;
+    }
 
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
@@ -51,13 +99,19 @@ public class MultiRequestBodyArgumentResolver implements HandlerMethodArgumentRe
      */
     @Override
     public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-        Object arg = readWithMessage(webRequest, parameter, mavContainer);
-        String name = parameter.getParameterName();
-        if (binderFactory != null) {
+        ParameterBindingPlan plan = getBindingPlan(parameter);
+        Object arg = readValue(plan, readBody(webRequest, plan.getParameter()));
+        String name = plan.getParameterName();
+        boolean validate = arg != null && plan.isValidationRequired() && methodArgumentsValidator == null;
+        // 不需要校验且下一个参数不是 Errors 时不创建 binder；以方法为单位校验时只为 Errors 参数创建
+        boolean binderRequired = methodArgumentsValidator == null ? plan.isBinderRequired() : !plan.isBindExceptionRequired();
+        if (binderFactory != null && binderRequired) {
             WebDataBinder binder = binderFactory.createBinder(webRequest, arg, name);
-            if (arg != null) {
-                validateIfApplicable(binder, parameter);
-                if (binder.getBindingResult().hasErrors() && isBindExceptionRequired(binder, parameter)) {
+            if (validate) {
+                long start = getMetrics().start();
+                binder.validate(plan.getValidationHints());
+                getMetrics().recordValidate(parameter.getMethod(), start);
+                if (binder.getBindingResult().hasErrors() && plan.isBindExceptionRequired()) {
                     throw new MethodArgumentNotValidException(parameter, binder.getBindingResult());
                 }
             }
@@ -65,181 +119,113 @@ public class MultiRequestBodyArgumentResolver implements HandlerMethodArgumentRe
                 mavContainer.addAttribute(BindingResult.MODEL_KEY_PREFIX + name, binder.getBindingResult());
             }
         }
+        if (methodArgumentsValidator != null) {
+            validateMethodArguments(webRequest, plan, arg);
+        }
         return arg;
     }
 
-    private Object readWithMessage(NativeWebRequest webRequest, MethodParameter parameter, ModelAndViewContainer mavContainer) throws Exception {
-        parameter = nestedIfOptional(parameter);
-        // 根据@MultiRequestBody注解value作为json解析的key
-        MultiRequestBody multiRequestBody = parameter.getParameterAnnotation(MultiRequestBody.class);
-        String json = ((ServletWebRequest) webRequest).getRequest().getReader().lines().collect(Collectors.joining(System.lineSeparator()));
-        Map<String, Object> data = new HashMap<>(4);
-        if (!StringUtils.isEmpty(json)) {
-            try {
-                data = JSON.parseObject(json, new TypeReference<Map<String, Object>>() {
-                });
-            } catch (JSONException e) {
-                throw new HttpMediaTypeOrHttpBodyException(parameter, e);
-            }
-        }
-        String name = StringUtils.isEmpty(multiRequestBody.value()) ? parameter.getParameterName() : multiRequestBody.value();
-        Object param = data.get(name);
-
-        check(parameter, param, name, multiRequestBody);
-        mavContainer.addAttribute(BindingResult.MODEL_KEY_PREFIX + name, param);
-        if (param instanceof Map || param instanceof List) {
-            return JSON.parseObject(param.toString(), parameter.getParameterType());
-        } else if (isDto(parameter.getParameterType())) {
-            return parseBasicTypeWrapper(parameter, param);
-        } else {
-            return param;
+    /**
+     * 收集方法的 @MultiRequestBody 入参，最后一个参数绑定完成后一次性校验
+     */
+    private void validateMethodArguments(NativeWebRequest webRequest, ParameterBindingPlan plan, Object arg) throws Exception {
+        MethodParameter parameter = plan.getParameter();
+        Object[] arguments = (Object[]) webRequest.getAttribute(ARGUMENTS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (arguments == null) {
+            arguments = new Object[parameter.getExecutable().getParameterCount()];
+            webRequest.setAttribute(ARGUMENTS_ATTRIBUTE, arguments, RequestAttributes.SCOPE_REQUEST);
         }
-    }
-
-    private MethodParameter nestedIfOptional(MethodParameter parameter) {
-        // 判断是否 org.springframework.core.MethodParameter#nestedIfOptional() 方法是否存在
-        // 建议使用大于或等于 spring 4.3
-        if (hasNestedIfOptional) {
-            try {
-                return parameter.nestedIfOptional();
-            } catch (NoSuchMethodError e) {
-                hasNestedIfOptional = false;
-                return nested(parameter);
-            }
-        } else {
-            return nested(parameter);
+        arguments[parameter.getParameterIndex()] = arg;
+        if (!plan.isLastInMethod()) {
+            return;
         }
-    }
-
-    private MethodParameter nested(MethodParameter parameter) {
-        parameter = new MethodParameter(parameter);
-        parameter.increaseNestingLevel();
-        return parameter;
+        webRequest.removeAttribute(ARGUMENTS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        Object bean = getHandlerBean(webRequest, parameter);
+        long start = getMetrics().start();
+        methodArgumentsValidator.validate(bean, parameter, arguments);
+        getMetrics().recordValidate(parameter.getMethod(), start);
     }
 
     /**
-     * 检查参数
+     * 取得参数所属的 handler 实例，ExecutableValidator 需要实例才能按其类型查找约束
      *
-     * @param parameter        方法入参
-     * @param param            json参数对应的value
-     * @param name             json参数的key
-     * @param multiRequestBody 自定义注解
-     * @throws MethodArgumentNotValidException
+     * @throws IllegalStateException request 中没有该方法对应的 HandlerMethod，无法以方法为单位校验
      */
-    private void check(MethodParameter parameter, Object param, String name, MultiRequestBody multiRequestBody) throws Exception {
-        // 如果value是空，并且注解为必填，抛出Valid异常
-        if (Objects.isNull(param) && multiRequestBody.required()) {
-            throw new MethodArgumentNotValidException(parameter, name + " is Null ");
+    private Object getHandlerBean(NativeWebRequest webRequest, MethodParameter parameter) {
+        Method method = parameter.getMethod();
+        Object handler = webRequest.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (!(handler instanceof HandlerMethod) || !((HandlerMethod) handler).getMethod().equals(method)) {
+            throw new IllegalStateException("Method validation of " + method + " requires its HandlerMethod in request attribute "
+                    + HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE + ", but found: " + handler);
         }
-        // 如果value是空，但是注解为非必填，通过校验
-        if (Objects.isNull(param)) {
-            return;
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        if (!(handlerMethod.getBean() instanceof String)) {
+            return handlerMethod.getBean();
         }
-        // 如果value类型与方法入参类型一致，通过校验
-        if (Objects.equals(param.getClass(), parameter.getParameterType())) {
-            return;
+        // 该 attribute 中的 handler 以 bean 名称引用 Controller
+        Object bean = handlerBeans.get(method);
+        if (bean == null) {
+            bean = handlerBeans.computeIfAbsent(method, key -> handlerMethod.createWithResolvedBean().getBean());
         }
-        // 如果value类型与方法入参类型不一致，但入参类型是基本包装类型，通过校验
-        if (!Objects.equals(param.getClass(), parameter.getParameterType()) && isDto(parameter.getParameterType())) {
-            return;
-        }
-        // value类型json数组对象，并且方法入参是数组，通过校验
-        if (Objects.equals(param.getClass(), JSONArray.class) && parameter.getParameterType().isArray()) {
-            return;
-        }
-        // value类型json对象，并且方法入参不是基本类型，通过校验
-        if (Objects.equals(param.getClass(), JSONObject.class) && !isDto(parameter.getParameterType())) {
-            return;
-        }
-        throw new MethodArgumentNotValidException(parameter, name + " argument type mismatch ");
+        return bean;
     }
 
     /**
-     * 检查是否基本包装类型
+     * 读取并解析 body，解析结果缓存在 request 中，同一请求的后续参数直接复用
      */
-    private boolean isDto(Class<?> classz) {
-        return (Objects.equals(classz, Integer.class)
-                || Objects.equals(classz, Float.class)
-                || Objects.equals(classz, Double.class)
-                || Objects.equals(classz, Byte.class)
-                || Objects.equals(classz, Boolean.class)
-                || Objects.equals(classz, Character.class)
-                || Objects.equals(classz, Short.class)
-                || Objects.equals(classz, Long.class)
-                || Objects.equals(classz, String.class));
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBody(NativeWebRequest webRequest, MethodParameter parameter) throws Exception {
+        Map<String, Object> data = (Map<String, Object>) webRequest.getAttribute(BODY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (data != null) {
+            return data;
+        }
+        data = parseBody(readBodyBytes(webRequest), getCharset(webRequest), parameter);
+        webRequest.setAttribute(BODY_ATTRIBUTE, data, RequestAttributes.SCOPE_REQUEST);
+        return data;
     }
 
     /**
-     * 基本类型包装类解析
+     * 读取批量调用的 body
+     *
+     * @param webRequest request
+     * @return 解析出的 JSON 节点，body 为空时返回 null
+     * @throws IOException body 不是合法的 JSON
      */
-    private Object parseBasicTypeWrapper(MethodParameter parameter, Object value) throws Exception {
-        try {
-            Class<?> parameterType = parameter.getParameterType();
-            if (Number.class.isAssignableFrom(parameterType)) {
-                Number number = (Number) value;
-                if (parameterType == Integer.class) {
-                    return number.intValue();
-                } else if (parameterType == Short.class) {
-                    return number.shortValue();
-                } else if (parameterType == Long.class) {
-                    return number.longValue();
-                } else if (parameterType == Float.class) {
-                    return number.floatValue();
-                } else if (parameterType == Double.class) {
-                    return number.doubleValue();
-                } else if (parameterType == Byte.class) {
-                    return number.byteValue();
-                }
-            } else if (parameterType == String.class) {
-                return value;
-            } else if (parameterType == Boolean.class) {
-                return value.toString();
-            } else if (parameterType == Character.class) {
-                return value.toString().charAt(0);
-            }
-            return null;
-        } catch (Exception e) {
-            throw new MethodArgumentNotValidException(parameter, "parseBasicTypeWrapper: " + value + " argument type mismatch ");
+    public Object readBatch(NativeWebRequest webRequest) throws IOException {
+        ByteBuffer body = readBodyBytes(webRequest);
+        if (!body.hasArray()) {
+            // 溢出到临时文件的 body，以流的方式解析
+            return getJsonEngine().parse(new BodyRequestWrapper.PushBackServletInputStream(body), getCharset(webRequest));
         }
+        return getJsonEngine().parse(body.array(), body.arrayOffset() + body.position(), body.remaining(), getCharset(webRequest));
     }
 
     /**
-     * Validate the binding target if applicable.
-     * <p>The default implementation checks for {@code @javax.validation.Valid},
-     * Spring's {@link org.springframework.validation.annotation.Validated},
-     * and custom annotations whose name starts with "Valid".
+     * 绑定批量调用中一次调用的参数，该次调用的 @MultiRequestBody 参数只从 arguments 中取值
      *
-     * @param binder    the DataBinder to be used
-     * @param parameter the method parameter descriptor
-     * @see #isBindExceptionRequired
-     * @since 4.1.5
+     * @param webRequest 该次调用独立的 request，attribute 不与其他调用共享
+     * @param method     handler 方法
+     * @param arguments  该次调用的参数对象
      */
-    private void validateIfApplicable(WebDataBinder binder, MethodParameter parameter) {
-        Annotation[] annotations = parameter.getParameterAnnotations();
-        for (Annotation ann : annotations) {
-            Validated validatedAnn = AnnotationUtils.getAnnotation(ann, Validated.class);
-            if (validatedAnn != null || ann.annotationType().getSimpleName().startsWith("Valid")) {
-                Object hints = (validatedAnn != null ? validatedAnn.value() : AnnotationUtils.getValue(ann));
-                Object[] validationHints = (hints instanceof Object[] ? (Object[]) hints : new Object[]{hints});
-                binder.validate(validationHints);
-                break;
-            }
-        }
+    public void bindBatchCall(NativeWebRequest webRequest, Method method, Map<String, Object> arguments) {
+        webRequest.setAttribute(BODY_ATTRIBUTE, resolvePaths(method, arguments), RequestAttributes.SCOPE_REQUEST);
     }
 
     /**
-     * Whether to raise a fatal bind exception on validation errors.
-     *
-     * @param binder    the data binder used to perform data binding
-     * @param parameter the method parameter descriptor
-     * @return {@code true} if the next method argument is not of type {@link Errors}
-     * @since 4.1.5
+     * 获取 body 字节，已被 {@link BodyRequestWrapper} 缓存时直接复用其缓冲区，不再拷贝
      */
-    private boolean isBindExceptionRequired(WebDataBinder binder, MethodParameter parameter) {
-        int i = parameter.getParameterIndex();
-        Class<?>[] paramTypes = parameter.getExecutable().getParameterTypes();
-        boolean hasBindingResult = (paramTypes.length > (i + 1) && Errors.class.isAssignableFrom(paramTypes[i + 1]));
-        return !hasBindingResult;
+    private static ByteBuffer readBodyBytes(NativeWebRequest webRequest) throws IOException {
+        BodyRequestWrapper wrapper = webRequest.getNativeRequest(BodyRequestWrapper.class);
+        if (wrapper != null) {
+            return wrapper.getBody();
+        }
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        return ByteBuffer.wrap(StreamUtils.copyToByteArray(request.getInputStream()));
+    }
+
+    private static Charset getCharset(NativeWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        return request != null ? BodyRequestWrapper.getCharset(request) : StandardCharsets.UTF_8;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,222 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * 使用 @MultiRequestBody 的 handler 注册表
+ * <p>启动时从 {@link RequestMappingHandlerMapping} 中收集含有 @MultiRequestBody 参数的方法，
+ * 请求时按与 Spring MVC 相同的规则选出最佳匹配的映射，再判断其 handler 是否需要缓存 body：
+ * 先按请求路径在全部映射中精确查找不含通配符的映射，未命中时只在使用了 @MultiRequestBody 的映射中逐个匹配，
+ * 多个映射同时匹配时以 {@link RequestMappingInfo#compareTo} 选出最佳的一个。逐个匹配的开销只随 @MultiRequestBody 映射的数量增长，
+ * 代价是 Spring MVC 最终选中的可能是更匹配的其他映射，此时多缓存一次 body ，不会漏掉需要缓存的请求。
+ * <p>设置了参数解析器时，同时在启动阶段预先构建并检查这些方法的参数绑定计划，参数声明有误时启动失败
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MultiRequestBodyHandlerRegistry implements SmartInitializingSingleton {
+
+    private final ListableBeanFactory beanFactory;
+
+    /**
+     * 启动时检查参数声明的解析器，为 null 时不检查
+     */
+    private final AbstractMultiRequestBodyArgumentResolver resolver;
+
+    /**
+     * 是否预先生成参数类型的反序列化器
+     */
+    private final boolean warmUp;
+
+    /**
+     * 按顺序排列的各 handlerMapping 的映射，启动完成前为 null
+     */
+    private volatile List<Lookup> lookups;
+
+    public MultiRequestBodyHandlerRegistry(ListableBeanFactory beanFactory) {
+        this(beanFactory, null, false);
+    }
+
+    /**
+     * @param beanFactory bean 工厂
+     * @param resolver    启动时检查参数声明的解析器，为 null 时不检查
+     * @param warmUp      是否预先生成参数类型的反序列化器
+     */
+    public MultiRequestBodyHandlerRegistry(ListableBeanFactory beanFactory, AbstractMultiRequestBodyArgumentResolver resolver,
+                                           boolean warmUp) {
+        this.beanFactory = beanFactory;
+        this.resolver = resolver;
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<RequestMappingHandlerMapping> handlerMappings =
+                new ArrayList<>(beanFactory.getBeansOfType(RequestMappingHandlerMapping.class).values());
+        // 与 DispatcherServlet 相同的顺序
+        AnnotationAwareOrderComparator.sort(handlerMappings);
+        List<Lookup> found = new ArrayList<>(handlerMappings.size());
+        List<HandlerMethod> handlerMethods = new ArrayList<>();
+        for (RequestMappingHandlerMapping handlerMapping : handlerMappings) {
+            Lookup lookup = new Lookup(handlerMapping);
+            found.add(lookup);
+            handlerMethods.addAll(lookup.handlers.values());
+        }
+        // 排在最后且没有 @MultiRequestBody 的 handlerMapping 不影响结果
+        while (!found.isEmpty() && found.get(found.size() - 1).isEmpty()) {
+            found.remove(found.size() - 1);
+        }
+        if (resolver != null) {
+            prepare(handlerMethods);
+        }
+        this.lookups = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * 构建并检查所有 handler 的参数绑定计划，汇总全部错误后一次性抛出
+     *
+     * @throws IllegalStateException 存在参数声明有误的 handler
+     */
+    private void prepare(Collection<HandlerMethod> handlerMethods) {
+        List<String> errors = new ArrayList<>();
+        Set<Method> prepared = new HashSet<>();
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            // 同一方法可能映射多个路径
+            if (prepared.add(handlerMethod.getMethod())) {
+                errors.addAll(resolver.prepare(handlerMethod.getMethodParameters(), warmUp));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid @MultiRequestBody handler signatures:\n  "
+                    + String.join("\n  ", errors));
+        }
+    }
+
+    /**
+     * 是否已完成启动时的收集
+     */
+    public boolean isInitialized() {
+        return this.lookups != null;
+    }
+
+    /**
+     * 判断请求对应的 handler 是否使用了 @MultiRequestBody，启动完成前一律返回 true
+     */
+    public boolean matches(HttpServletRequest request) {
+        return this.lookups == null || getHandlerMethod(request) != null;
+    }
+
+    /**
+     * 获取请求对应的使用了 @MultiRequestBody 的 handler
+     * <p>精确路径未命中时只在 @MultiRequestBody 的映射中选出最佳匹配，返回的 handler 可能不是 Spring MVC 最终调用的 handler
+     *
+     * @return handler，未匹配或启动完成前返回 null
+     */
+    public HandlerMethod getHandlerMethod(HttpServletRequest request) {
+        List<Lookup> current = this.lookups;
+        if (current == null) {
+            return null;
+        }
+        for (Lookup lookup : current) {
+            RequestMappingInfo best = lookup.getBestMatch(request);
+            if (best != null) {
+                // 最佳匹配不是 @MultiRequestBody 的 handler 时返回 null
+                return lookup.handlers.get(best);
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasMultiRequestBody(HandlerMethod handlerMethod) {
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            if (parameter.hasParameterAnnotation(MultiRequestBody.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一个 handlerMapping 的映射
+     * <p>精确查找包含不使用 @MultiRequestBody 的映射，路径精确相同时选出的最佳匹配与 Spring MVC 一致
+     */
+    private static final class Lookup {
+
+        private final UrlPathHelper urlPathHelper;
+
+        /**
+         * 不含通配符的路径到映射，包含全部映射
+         */
+        private final MultiValueMap<String, RequestMappingInfo> urlLookup = new LinkedMultiValueMap<>();
+
+        /**
+         * 使用了 @MultiRequestBody 的映射及其 handler
+         */
+        private final Map<RequestMappingInfo, HandlerMethod> handlers = new HashMap<>();
+
+        /**
+         * 使用了 @MultiRequestBody 的映射，精确查找未命中时只匹配这些映射
+         */
+        private final List<RequestMappingInfo> candidates = new ArrayList<>();
+
+        Lookup(RequestMappingHandlerMapping handlerMapping) {
+            this.urlPathHelper = handlerMapping.getUrlPathHelper();
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+                RequestMappingInfo info = entry.getKey();
+                for (String pattern : info.getPatternsCondition().getPatterns()) {
+                    if (!handlerMapping.getPathMatcher().isPattern(pattern)) {
+                        urlLookup.add(pattern, info);
+                    }
+                }
+                if (hasMultiRequestBody(entry.getValue())) {
+                    handlers.put(info, entry.getValue());
+                    candidates.add(info);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return handlers.isEmpty();
+        }
+
+        /**
+         * 先匹配路径精确相同的映射，未命中时只匹配使用了 @MultiRequestBody 的映射，多个匹配时选出最佳的一个
+         *
+         * @return 最佳匹配的映射，没有匹配时返回 null
+         */
+        RequestMappingInfo getBestMatch(HttpServletRequest request) {
+            List<RequestMappingInfo> direct = urlLookup.get(urlPathHelper.getLookupPathForRequest(request));
+            RequestMappingInfo best = null;
+            if (direct != null) {
+                best = getBestMatch(direct, request);
+            }
+            return best != null ? best : getBestMatch(candidates, request);
+        }
+
+        private static RequestMappingInfo getBestMatch(List<RequestMappingInfo> candidates, HttpServletRequest request) {
+            RequestMappingInfo best = null;
+            RequestMappingInfo bestMapping = null;
+            for (RequestMappingInfo mapping : candidates) {
+                RequestMappingInfo match = mapping.getMatchingCondition(request);
+                if (match != null && (best == null || match.compareTo(best, request) < 0)) {
+                    best = match;
+                    bestMapping = mapping;
+                }
+            }
+            return bestMapping;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.starlightcs.multirequest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.starlightcs.annotation.MultiResponseBody;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * 写出 @MultiResponseBody 方法的返回值
+ * <p>通过 Jackson 的 JsonGenerator 直接写入响应输出流，各部分按 Map 的迭代顺序依次写出，
+ * Stream、Iterator 逐个元素序列化，生成器缓冲区写满即刷出，不拼装中间的 Map 或 String。
+ * 只处理返回 Map 或 CompletionStage&lt;Map&gt; 的方法，其余返回值交给后续的处理器；需要排在 Spring MVC 内置的 @ResponseBody 处理器之前。
+ * <p>存在未完成的 CompletionStage 时通过 {@link DeferredResult} 交由 Spring MVC 异步处理，不阻塞请求线程，超时时间为 MVC 的异步超时；
+ * 全部完成后再次分发并写出。响应固定为 application/json ，Accept 不接受 JSON 时返回 406 ；不经过 ResponseBodyAdvice 与 HttpMessageConverter
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MultiResponseBodyReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 逐个值写出时不刷新输出流，由生成器的缓冲区决定何时写出
+     */
+    private final ObjectWriter writer;
+
+    public MultiResponseBodyReturnValueHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        if (!returnType.hasMethodAnnotation(MultiResponseBody.class)
+                && !AnnotatedElementUtils.hasAnnotation(returnType.getContainingClass(), MultiResponseBody.class)) {
+            return false;
+        }
+        Class<?> type = returnType.getParameterType();
+        if (Map.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (CompletionStage.class.isAssignableFrom(type)) {
+            Class<?> resultType = ResolvableType.forMethodParameter(returnType).as(CompletionStage.class).resolveGeneric(0);
+            return resultType != null && Map.class.isAssignableFrom(resultType);
+        }
+        return false;
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        checkAcceptable(request);
+        if (!isDone(returnValue) && request.isAsyncSupported()) {
+            // 等待全部完成后再次分发，返回值为完成后的 Map
+            DeferredResult<Object> deferredResult = new DeferredResult<>();
+            toCompletableFuture(returnValue).whenComplete((parts, ex) -> {
+                if (ex != null) {
+                    deferredResult.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    deferredResult.setResult(parts);
+                }
+            });
+            WebAsyncUtils.getAsyncManager(webRequest).startDeferredResultProcessing(deferredResult, mavContainer);
+            return;
+        }
+        mavContainer.setRequestHandled(true);
+        // 已全部完成，或不支持异步时（如批量调用中）在当前线程等待
+        Map<?, ?> parts = (Map<?, ?>) await(returnValue);
+        if (parts != null) {
+            awaitAll(parts);
+        }
+
+        HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+        if (response.getContentType() == null) {
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            // 输出流由容器关闭
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (parts == null) {
+                generator.writeNull();
+                return;
+            }
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> part : parts.entrySet()) {
+                generator.writeFieldName(String.valueOf(part.getKey()));
+                writePart(generator, part.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void checkAcceptable(HttpServletRequest request) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = MediaType.parseMediaTypes(Collections.list(request.getHeaders(HttpHeaders.ACCEPT)));
+        if (accepted.isEmpty()) {
+            return;
+        }
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return;
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(Collections.singletonList(MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * 返回值及其中的各部分是否都已完成
+     */
+    private static boolean isDone(Object returnValue) {
+        if (returnValue instanceof CompletionStage) {
+            CompletableFuture<?> future = ((CompletionStage<?>) returnValue).toCompletableFuture();
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                return false;
+            }
+            returnValue = future.join();
+        }
+        if (returnValue instanceof Map) {
+            for (Object part : ((Map<?, ?>) returnValue).values()) {
+                if (part instanceof CompletionStage && !((CompletionStage<?>) part).toCompletableFuture().isDone()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回值完成后再等待其中所有 CompletionStage 部分完成，结果为返回值本身
+     */
+    private static CompletableFuture<Object> toCompletableFuture(Object returnValue) {
+        CompletableFuture<?> result = returnValue instanceof CompletionStage
+                ? ((CompletionStage<?>) returnValue).toCompletableFuture() : CompletableFuture.completedFuture(returnValue);
+        return result.thenCompose(value -> {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            if (value instanceof Map) {
+                for (Object part : ((Map<?, ?>) value).values()) {
+                    if (part instanceof CompletionStage) {
+                        futures.add(((CompletionStage<?>) part).toCompletableFuture());
+                    }
+                }
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> value);
+        });
+    }
+
+    /**
+     * 开始写出前等待所有 CompletionStage 完成，失败时响应尚未提交，异常交由异常处理器处理
+     */
+    private void awaitAll(Map<?, ?> parts) throws Exception {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (Object part : parts.values()) {
+            if (part instanceof CompletionStage) {
+                futures.add(((CompletionStage<?>) part).toCompletableFuture());
+            }
+        }
+        if (!futures.isEmpty()) {
+            await(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])));
+        }
+    }
+
+    private void writePart(JsonGenerator generator, Object value) throws Exception {
+        value = await(value);
+        if (value instanceof Stream) {
+            try (Stream<?> stream = (Stream<?>) value) {
+                writeArray(generator, stream.iterator());
+            }
+        } else if (value instanceof Iterator) {
+            writeArray(generator, (Iterator<?>) value);
+        } else {
+            writer.writeValue(generator, value);
+        }
+    }
+
+    private void writeArray(JsonGenerator generator, Iterator<?> iterator) throws Exception {
+        generator.writeStartArray();
+        while (iterator.hasNext()) {
+            writer.writeValue(generator, iterator.next());
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 等待 CompletionStage 完成并返回其结果，其余值原样返回；抛出 CompletionStage 失败的原始异常
+     */
+    private static Object await(Object value) throws Exception {
+        if (!(value instanceof CompletionStage)) {
+            return value;
+        }
+        try {
+            return ((CompletionStage<?>) value).toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
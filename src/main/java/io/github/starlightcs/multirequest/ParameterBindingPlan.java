@@ -0,0 +1,148 @@
+package io.github.starlightcs.multirequest;
+
+import org.springframework.core.MethodParameter;
+
+import java.lang.reflect.Type;
+
+/**
+ * 参数绑定计划
+ * <p>每个 {@link MethodParameter} 只在首次解析时通过反射计算一次，之后直接复用，不可变
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public final class ParameterBindingPlan {
+
+    /**
+     * 方法入参（已处理 Optional 嵌套）
+     */
+    private final MethodParameter parameter;
+
+    /**
+     * json参数的key
+     */
+    private final String name;
+
+    /**
+     * 方法入参名称，用于 WebDataBinder 及 BindingResult
+     */
+    private final String parameterName;
+
+    /**
+     * 是否是必要的 body param 参数
+     */
+    private final boolean required;
+
+    /**
+     * 目标类型
+     */
+    private final Class<?> parameterType;
+
+    /**
+     * 目标类型的完整泛型类型
+     */
+    private final Type genericType;
+
+    /**
+     * 标量类型转换器，目标类型不是标量类型时为 null
+     */
+    private final ScalarConverter scalarConverter;
+
+    /**
+     * 非必填参数缺省时的值，基本类型为其默认值，其余为 null
+     */
+    private final Object defaultValue;
+
+    /**
+     * 校验分组，为 null 时不需要校验
+     */
+    private final Object[] validationHints;
+
+    /**
+     * 校验失败时是否抛出异常，下一个参数为 Errors 时不抛出
+     */
+    private final boolean bindExceptionRequired;
+
+    /**
+     * 是否为方法中最后一个 @MultiRequestBody 参数
+     */
+    private final boolean lastInMethod;
+
+    public ParameterBindingPlan(MethodParameter parameter, String name, String parameterName, boolean required,
+                                Object[] validationHints, boolean bindExceptionRequired) {
+        this(parameter, name, parameterName, required, validationHints, bindExceptionRequired, false);
+    }
+
+    public ParameterBindingPlan(MethodParameter parameter, String name, String parameterName, boolean required,
+                                Object[] validationHints, boolean bindExceptionRequired, boolean lastInMethod) {
+        this.parameter = parameter;
+        this.name = name;
+        this.parameterName = parameterName;
+        this.required = required;
+        this.parameterType = parameter.getNestedParameterType();
+        this.genericType = parameter.getNestedGenericParameterType();
+        this.scalarConverter = ScalarConverters.forType(this.parameterType);
+        this.defaultValue = ScalarConverters.defaultValue(this.parameterType);
+        this.validationHints = validationHints;
+        this.bindExceptionRequired = bindExceptionRequired;
+        this.lastInMethod = lastInMethod;
+    }
+
+    public MethodParameter getParameter() {
+        return parameter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public Class<?> getParameterType() {
+        return parameterType;
+    }
+
+    public Type getGenericType() {
+        return genericType;
+    }
+
+    public ScalarConverter getScalarConverter() {
+        return scalarConverter;
+    }
+
+    public boolean isScalarType() {
+        return scalarConverter != null;
+    }
+
+    public Object getDefaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isValidationRequired() {
+        return validationHints != null;
+    }
+
+    public Object[] getValidationHints() {
+        return validationHints;
+    }
+
+    public boolean isBindExceptionRequired() {
+        return bindExceptionRequired;
+    }
+
+    /**
+     * 是否需要创建 binder：需要校验，或下一个参数为 Errors 需要 BindingResult 时才创建
+     */
+    public boolean isBinderRequired() {
+        return validationHints != null || !bindExceptionRequired;
+    }
+
+    public boolean isLastInMethod() {
+        return lastInMethod;
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import io.github.starlightcs.filter.BodyCollector;
+import io.github.starlightcs.json.JsonEngine;
+import io.github.starlightcs.json.JsonEngines;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.support.WebExchangeDataBinder;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * RequestBodyParam 参数解析器（WebFlux）
+ * <p>每个请求只聚合、解析一次 body，解析结果缓存在 {@link ServerWebExchange} 中供所有参数共享；
+ * body 以非阻塞方式聚合，超过 {@link #EVENT_LOOP_PARSE_LIMIT} 的 body 在 parallel 调度器上解析，不占用 event loop
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ReactiveMultiRequestBodyArgumentResolver extends AbstractMultiRequestBodyArgumentResolver implements HandlerMethodArgumentResolver {
+
+    /**
+     * 解析后的 body 缓存在 exchange attribute 中的 key
+     */
+    private static final String BODY_ATTRIBUTE = ReactiveMultiRequestBodyArgumentResolver.class.getName() + ".BODY";
+
+    /**
+     * 直接在 event loop 上解析的最大 body 大小，更大的 body 解析耗时较长，切换到 parallel 调度器以免阻塞同一线程上的其他连接
+     */
+    public static final int EVENT_LOOP_PARSE_LIMIT = 64 * 1024;
+
+    /**
+     * 最大 body 大小，小于 0 时不限制
+     */
+    private final long maxBodySize;
+
+    public ReactiveMultiRequestBodyArgumentResolver() {
+        this(false, -1);
+    }
+
+    /**
+     * @param partialParse 是否开启流式部分解析，开启后只解析方法中 @MultiRequestBody 参数对应的 key
+     * @param maxBodySize  最大 body 大小，小于 0 时不限制，超出时返回 413
+     */
+    public ReactiveMultiRequestBodyArgumentResolver(boolean partialParse, long maxBodySize) {
+        this(partialParse, maxBodySize, JsonEngines.createDefault());
+    }
+
+    /**
+     * @param partialParse 是否开启流式部分解析，开启后只解析方法中 @MultiRequestBody 参数对应的 key
+     * @param maxBodySize  最大 body 大小，小于 0 时不限制，超出时返回 413
+     * @param jsonEngine   JSON 引擎
+     */
+    public ReactiveMultiRequestBodyArgumentResolver(boolean partialParse, long maxBodySize, JsonEngine jsonEngine) {
+        super(partialParse, jsonEngine);
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        // 支持带@MultiRequestBody注解的参数
+        return parameter.hasParameterAnnotation(MultiRequestBody.class);
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext, ServerWebExchange exchange) {
+        ParameterBindingPlan plan = getBindingPlan(parameter);
+        return readBody(exchange, plan.getParameter()).flatMap(data -> {
+            Object arg;
+            try {
+                arg = readValue(plan, data);
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+            if (arg == null) {
+                return Mono.empty();
+            }
+            if (!plan.isBinderRequired()) {
+                // 不需要校验且下一个参数不是 Errors 时不创建 binder
+                return Mono.just(arg);
+            }
+            String name = plan.getParameterName();
+            WebExchangeDataBinder binder = bindingContext.createDataBinder(exchange, arg, name);
+            if (plan.isValidationRequired()) {
+                long start = getMetrics().start();
+                binder.validate(plan.getValidationHints());
+                getMetrics().recordValidate(parameter.getMethod(), start);
+                if (binder.getBindingResult().hasErrors() && plan.isBindExceptionRequired()) {
+                    return Mono.error(new MethodArgumentNotValidException(parameter, binder.getBindingResult()));
+                }
+            }
+            bindingContext.getModel().asMap().put(BindingResult.MODEL_KEY_PREFIX + name, binder.getBindingResult());
+            return Mono.just(arg);
+        });
+    }
+
+    /**
+     * 读取并解析 body，解析结果缓存在 exchange 中，同一请求的后续参数直接复用
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> readBody(ServerWebExchange exchange, MethodParameter parameter) {
+        return (Mono<Map<String, Object>>) exchange.getAttributes().computeIfAbsent(BODY_ATTRIBUTE, key -> {
+            MediaType contentType = exchange.getRequest().getHeaders().getContentType();
+            Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+            return collectBody(exchange, parameter)
+                    .flatMap(collector -> {
+                        Mono<Map<String, Object>> parse = Mono.fromCallable(() -> parseBody(collector.toByteBuffer(), charset, parameter));
+                        return collector.size() > EVENT_LOOP_PARSE_LIMIT ? parse.subscribeOn(Schedulers.parallel()) : parse;
+                    })
+                    .cache();
+        });
+    }
+
+    /**
+     * 聚合 body，每个 DataBuffer 拷贝后立即释放
+     */
+    private Mono<BodyCollector> collectBody(ServerWebExchange exchange, MethodParameter parameter) {
+        long start = getMetrics().start();
+        long contentLength = exchange.getRequest().getHeaders().getContentLength();
+        BodyCollector collector;
+        try {
+            // Content-Length 只用于提前拒绝超限的请求，缓冲区随到达的 DataBuffer 扩容
+            collector = new BodyCollector(null, maxBodySize, contentLength, -1);
+        } catch (HttpBodyTooLargeException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage()));
+        }
+        return exchange.getRequest().getBody()
+                .doOnNext(dataBuffer -> {
+                    try {
+                        collector.readFully(dataBuffer.asInputStream());
+                    } catch (HttpBodyTooLargeException e) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                })
+                .then(Mono.fromCallable(() -> {
+                    getMetrics().recordBuffer(parameter.getMethod(), start, collector.size());
+                    return collector;
+                }));
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.starlightcs.multirequest;
+
+/**
+ * 标量类型转换器
+ * <p>将 JSON 引擎解析出的字符串、数字、布尔值转换为方法入参类型
+ *
+ * @author Allen starlightcs@foxmail.com
+ * @see ScalarConverters
+ */
+@FunctionalInterface
+public interface ScalarConverter {
+
+    /**
+     * 转换 value
+     *
+     * @param value 非 null 的标量 value
+     * @return 转换后的值
+     * @throws IllegalArgumentException value 类型不匹配、格式错误或超出目标类型范围
+     */
+    Object convert(Object value);
+}
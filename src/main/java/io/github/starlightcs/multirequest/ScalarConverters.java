@@ -0,0 +1,293 @@
+package io.github.starlightcs.multirequest;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 标量类型转换器表
+ * <p>覆盖基本类型及其包装类、String、BigDecimal、BigInteger、枚举、UUID 与 java.time 类型；
+ * 每个参数只在创建绑定计划时查表一次。value 已是目标类型时直接返回，不再拆箱装箱；
+ * 整数类型做范围检查，超出范围、含小数或格式错误时抛出 {@link IllegalArgumentException}
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public final class ScalarConverters {
+
+    private static final Map<Class<?>, ScalarConverter> CONVERTERS = new HashMap<>(64);
+
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<>(16);
+
+    /**
+     * long 的取值范围为 [-2^63, 2^63)
+     */
+    private static final BigDecimal LONG_RANGE = new BigDecimal(BigInteger.ONE.shiftLeft(63));
+
+    private static final ScalarConverter INSTANT_PARSER = parsing(Instant.class, Instant::parse);
+
+    static {
+        register(int.class, Integer.class, value -> value instanceof Integer ? value
+                : (int) toLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE, "int"));
+        register(long.class, Long.class, value -> value instanceof Long ? value
+                : toLong(value, Long.MIN_VALUE, Long.MAX_VALUE, "long"));
+        register(short.class, Short.class, value -> value instanceof Short ? value
+                : (short) toLong(value, Short.MIN_VALUE, Short.MAX_VALUE, "short"));
+        register(byte.class, Byte.class, value -> value instanceof Byte ? value
+                : (byte) toLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE, "byte"));
+        register(double.class, Double.class, value -> toDouble(value, "double"));
+        register(float.class, Float.class, ScalarConverters::toFloat);
+        register(boolean.class, Boolean.class, ScalarConverters::toBoolean);
+        register(char.class, Character.class, ScalarConverters::toCharacter);
+        CONVERTERS.put(String.class, ScalarConverters::toText);
+        CONVERTERS.put(BigDecimal.class, ScalarConverters::toBigDecimal);
+        CONVERTERS.put(BigInteger.class, ScalarConverters::toBigInteger);
+        CONVERTERS.put(UUID.class, parsing(UUID.class, UUID::fromString));
+        CONVERTERS.put(LocalDate.class, parsing(LocalDate.class, LocalDate::parse));
+        CONVERTERS.put(LocalTime.class, parsing(LocalTime.class, LocalTime::parse));
+        CONVERTERS.put(LocalDateTime.class, parsing(LocalDateTime.class, LocalDateTime::parse));
+        CONVERTERS.put(OffsetDateTime.class, parsing(OffsetDateTime.class, OffsetDateTime::parse));
+        CONVERTERS.put(ZonedDateTime.class, parsing(ZonedDateTime.class, ZonedDateTime::parse));
+        CONVERTERS.put(Duration.class, parsing(Duration.class, Duration::parse));
+        CONVERTERS.put(Instant.class, ScalarConverters::toInstant);
+
+        PRIMITIVE_DEFAULTS.put(int.class, 0);
+        PRIMITIVE_DEFAULTS.put(long.class, 0L);
+        PRIMITIVE_DEFAULTS.put(short.class, (short) 0);
+        PRIMITIVE_DEFAULTS.put(byte.class, (byte) 0);
+        PRIMITIVE_DEFAULTS.put(double.class, 0D);
+        PRIMITIVE_DEFAULTS.put(float.class, 0F);
+        PRIMITIVE_DEFAULTS.put(boolean.class, false);
+        PRIMITIVE_DEFAULTS.put(char.class, '\0');
+    }
+
+    private ScalarConverters() {
+    }
+
+    /**
+     * 查找目标类型的转换器
+     *
+     * @param type 方法入参类型
+     * @return 转换器，不是标量类型时返回 null
+     */
+    public static ScalarConverter forType(Class<?> type) {
+        ScalarConverter converter = CONVERTERS.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = forEnum(type);
+        }
+        return converter;
+    }
+
+    /**
+     * 基本类型缺省时的值，非基本类型返回 null
+     */
+    public static Object defaultValue(Class<?> type) {
+        return PRIMITIVE_DEFAULTS.get(type);
+    }
+
+    private static void register(Class<?> primitiveType, Class<?> wrapperType, ScalarConverter converter) {
+        CONVERTERS.put(primitiveType, converter);
+        CONVERTERS.put(wrapperType, converter);
+    }
+
+    /**
+     * 枚举按常量名匹配，预先建立常量名到常量的映射
+     */
+    private static ScalarConverter forEnum(Class<?> type) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name(), constant);
+        }
+        String typeName = type.getSimpleName();
+        return value -> {
+            Object constant = value instanceof String ? constants.get(value) : null;
+            if (constant == null) {
+                throw mismatch(value, typeName);
+            }
+            return constant;
+        };
+    }
+
+    private static long toLong(Object value, long min, long max, String type) {
+        long result;
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            result = ((Number) value).longValue();
+        } else if (value instanceof BigInteger) {
+            if (((BigInteger) value).bitLength() > 63) {
+                throw outOfRange(value, type);
+            }
+            result = ((BigInteger) value).longValue();
+        } else if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : toFiniteDecimal((Number) value, type);
+            if (decimal.signum() != 0 && decimal.stripTrailingZeros().scale() > 0) {
+                throw new IllegalArgumentException(value + " is not an integral value for " + type);
+            }
+            if (decimal.compareTo(LONG_RANGE) >= 0 || decimal.compareTo(LONG_RANGE.negate()) < 0) {
+                throw outOfRange(value, type);
+            }
+            result = decimal.longValue();
+        } else if (value instanceof String) {
+            try {
+                result = Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                throw mismatch(value, type);
+            }
+        } else {
+            throw mismatch(value, type);
+        }
+        if (result < min || result > max) {
+            throw outOfRange(value, type);
+        }
+        return result;
+    }
+
+    private static BigDecimal toFiniteDecimal(Number value, String type) {
+        double d = value.doubleValue();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            throw outOfRange(value, type);
+        }
+        return BigDecimal.valueOf(d);
+    }
+
+    /**
+     * 超出 double 范围的数字（如 1e999）与 NaN、Infinity 不是合法的值，按类型不匹配处理
+     */
+    private static double toDouble(Object value, String type) {
+        double d;
+        if (value instanceof Number) {
+            d = ((Number) value).doubleValue();
+        } else if (value instanceof String) {
+            try {
+                d = Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                throw mismatch(value, type);
+            }
+        } else {
+            throw mismatch(value, type);
+        }
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            throw outOfRange(value, type);
+        }
+        return d;
+    }
+
+    private static Object toFloat(Object value) {
+        double d = toDouble(value, "float");
+        if (Math.abs(d) > Float.MAX_VALUE) {
+            throw outOfRange(value, "float");
+        }
+        return value instanceof Float ? value : (float) d;
+    }
+
+    private static Object toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof String) {
+            if ("true".equalsIgnoreCase((String) value)) {
+                return Boolean.TRUE;
+            } else if ("false".equalsIgnoreCase((String) value)) {
+                return Boolean.FALSE;
+            }
+        }
+        throw mismatch(value, "boolean");
+    }
+
+    private static Object toCharacter(Object value) {
+        if (value instanceof Character) {
+            return value;
+        }
+        if (value instanceof String && ((String) value).length() == 1) {
+            return ((String) value).charAt(0);
+        }
+        throw mismatch(value, "char");
+    }
+
+    private static Object toText(Object value) {
+        if (value instanceof String) {
+            return value;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return value.toString();
+        }
+        throw mismatch(value, "String");
+    }
+
+    private static Object toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return toFiniteDecimal((Number) value, "BigDecimal");
+        } else if (value instanceof String) {
+            try {
+                return new BigDecimal((String) value);
+            } catch (NumberFormatException e) {
+                throw mismatch(value, "BigDecimal");
+            }
+        }
+        throw mismatch(value, "BigDecimal");
+    }
+
+    private static Object toBigInteger(Object value) {
+        if (value instanceof BigInteger) {
+            return value;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        } else if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+            try {
+                return ((BigDecimal) toBigDecimal(value)).toBigIntegerExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(value + " is not an integral value for BigInteger");
+            }
+        } else if (value instanceof String) {
+            try {
+                return new BigInteger((String) value);
+            } catch (NumberFormatException e) {
+                throw mismatch(value, "BigInteger");
+            }
+        }
+        throw mismatch(value, "BigInteger");
+    }
+
+    /**
+     * 数字按毫秒时间戳处理，字符串按 ISO-8601 解析
+     */
+    private static Object toInstant(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        return INSTANT_PARSER.convert(value);
+    }
+
+    private static ScalarConverter parsing(Class<?> type, Function<String, Object> parser) {
+        String typeName = type.getSimpleName();
+        return value -> {
+            if (!(value instanceof String)) {
+                throw mismatch(value, typeName);
+            }
+            try {
+                return parser.apply((String) value);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw mismatch(value, typeName);
+            }
+        };
+    }
+
+    private static IllegalArgumentException mismatch(Object value, String type) {
+        return new IllegalArgumentException("cannot convert " + describe(value) + " to " + type);
+    }
+
+    private static IllegalArgumentException outOfRange(Object value, String type) {
+        return new IllegalArgumentException(value + " is out of range for " + type);
+    }
+
+    private static String describe(Object value) {
+        return value instanceof String ? "\"" + value + "\"" : value + " (" + value.getClass().getSimpleName() + ")";
+    }
+}
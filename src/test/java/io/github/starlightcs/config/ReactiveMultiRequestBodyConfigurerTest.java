@@ -0,0 +1,41 @@
+package io.github.starlightcs.config;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.multirequest.ReactiveMultiRequestBodyArgumentResolver;
+import org.junit.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * WebFlux 内部的参数解析器列表无法调整时，存在 Map 类型的 @MultiRequestBody 参数则启动失败
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ReactiveMultiRequestBodyConfigurerTest {
+
+    @Test
+    public void failsFastWhenResolversCannotBeReordered() throws Exception {
+        MethodParameter parameter = new MethodParameter(Controller.class.getMethod("map", Map.class), 0);
+        // 未初始化的 adapter 没有内部的参数解析器列表
+        try {
+            ReactiveMultiRequestBodyConfigurer.moveResolverFirst(new RequestMappingHandlerAdapter(),
+                    new ReactiveMultiRequestBodyArgumentResolver(), parameter);
+            fail("reordering should fail without WebFlux's internal resolver list");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("declare it as a non-Map type"));
+            assertTrue(e.getMessage().contains("map"));
+        }
+    }
+
+    static class Controller {
+
+        public String map(@MultiRequestBody Map<String, String> attrs) {
+            return attrs.toString();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 通过 ReadListener 非阻塞读取 body，读取完成后再分发给 handler
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AsyncReadTest.Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AsyncReadTest {
+
+    private static final String SPILL_DIRECTORY = "target/async-read-spill";
+
+    @LocalServerPort
+    private int port;
+
+    @Before
+    public void clean() {
+        FileSystemUtils.deleteRecursively(new File(SPILL_DIRECTORY));
+    }
+
+    @Test
+    public void readsBodyArrivingInParts() throws Exception {
+        String response = post(("{\"id\":1,\"skip\":[1,{\"a\":2}],\"tags\":[\"x\",\"y\"]}").getBytes(StandardCharsets.UTF_8),
+                false, 200);
+        assertTrue(response, response.startsWith("HTTP/1.1 200"));
+        assertTrue(response, response.endsWith("1|x,y"));
+    }
+
+    @Test
+    public void readsChunkedBody() throws Exception {
+        String response = post("{\"id\":2}".getBytes(StandardCharsets.UTF_8), true, 200);
+        assertTrue(response, response.startsWith("HTTP/1.1 200"));
+        assertTrue(response, response.endsWith("2|null"));
+    }
+
+    @Test
+    public void readsSpilledBody() throws Exception {
+        StringBuilder body = new StringBuilder("{\"id\":3,\"pad\":\"");
+        for (int i = 0; i < 500; i++) {
+            body.append('p');
+        }
+        String response = post(body.append("\"}").toString().getBytes(StandardCharsets.UTF_8), true, 50);
+        assertTrue(response, response.endsWith("3|null"));
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test
+    public void rejectsChunkedBodyAboveLimit() throws Exception {
+        String response = post(new byte[2000], true, 50);
+        assertTrue(response, response.startsWith("HTTP/1.1 413"));
+    }
+
+    @Test
+    public void rejectsDeclaredBodyAboveLimitBeforeReading() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.getOutputStream().write(("POST /async HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                    + "Connection: close\r\nContent-Length: 5000\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            // 容器会等待剩余的 body，只读取状态行
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+            assertTrue(statusLine, statusLine.startsWith("HTTP/1.1 413"));
+        }
+    }
+
+    @Test
+    public void timesOutIncompleteBodyAndReleasesIt() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            StringBuilder partial = new StringBuilder("{\"id\":4,\"pad\":\"");
+            for (int i = 0; i < 100; i++) {
+                partial.append('p');
+            }
+            out.write(("POST /async HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\nConnection: close\r\n"
+                    + "Content-Length: 900\r\n\r\n" + partial).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(300);
+            assertEquals(1, spilledFiles());
+            String response = readResponse(socket);
+            assertTrue(response, response.startsWith("HTTP/1.1 408"));
+        }
+        Thread.sleep(200);
+        assertEquals(0, spilledFiles());
+    }
+
+    private static int spilledFiles() {
+        String[] files = new File(SPILL_DIRECTORY).list();
+        return files != null ? files.length : 0;
+    }
+
+    /**
+     * 分两段发送 body，两段之间暂停
+     */
+    private String post(byte[] body, boolean chunked, long pauseMillis) throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /async HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\nConnection: close\r\n"
+                    + (chunked ? "Transfer-Encoding: chunked\r\n" : "Content-Length: " + body.length + "\r\n") + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            int half = body.length / 2;
+            writePart(out, body, 0, half, chunked);
+            out.flush();
+            Thread.sleep(pauseMillis);
+            writePart(out, body, half, body.length - half, chunked);
+            if (chunked) {
+                out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            out.flush();
+            String response = readResponse(socket);
+            return response.substring(0, response.indexOf("\r\n")) + " " + body(response);
+        }
+    }
+
+    private static void writePart(OutputStream out, byte[] body, int offset, int length, boolean chunked) throws IOException {
+        if (chunked) {
+            out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write(body, offset, length);
+        if (chunked) {
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static String readResponse(Socket socket) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        InputStream in = socket.getInputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            response.write(buffer, 0, n);
+        }
+        return response.toString("UTF-8");
+    }
+
+    /**
+     * 响应 body，chunked 响应只取第一个分块
+     */
+    private static String body(String response) {
+        String body = response.substring(response.indexOf("\r\n\r\n") + 4);
+        if (response.contains("Transfer-Encoding: chunked")) {
+            body = body.substring(body.indexOf("\r\n") + 2);
+            body = body.substring(0, body.indexOf("\r\n"));
+        }
+        return body;
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(asyncRead = true, maxBodySize = 1000, spillThreshold = 64, spillDirectory = SPILL_DIRECTORY)
+    @Import(Controller.class)
+    static class Application {
+
+        @Bean
+        public WebServerFactoryCustomizer<TomcatServletWebServerFactory> asyncTimeout() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setAsyncTimeout(1000));
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/async")
+        public String async(@MultiRequestBody Long id, @MultiRequestBody(required = false) List<String> tags) {
+            return id + "|" + (tags != null ? String.join(",", tags) : null);
+        }
+    }
+}
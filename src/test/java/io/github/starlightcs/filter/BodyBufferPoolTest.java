@@ -0,0 +1,111 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * body 缓冲区按分级复用，超出最大 body 大小时拒绝
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodyBufferPoolTest {
+
+    @Test
+    public void reusesReleasedBufferOfSameSizeClass() {
+        BodyBufferPool pool = new BodyBufferPool();
+        byte[] buffer = pool.acquire(5000);
+        assertEquals(8192, buffer.length);
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire(8000));
+        assertNotSame(buffer, pool.acquire(6000));
+    }
+
+    @Test
+    public void roundsSmallRequestsUpToMinimumClass() {
+        BodyBufferPool pool = new BodyBufferPool();
+        assertEquals(4096, pool.acquire(1).length);
+        assertEquals(4096, pool.acquire(4096).length);
+        assertEquals(8192, pool.acquire(4097).length);
+    }
+
+    @Test
+    public void doesNotPoolBuffersAboveMaxPooledSize() {
+        BodyBufferPool pool = new BodyBufferPool(8192, 1 << 20);
+        byte[] large = pool.acquire(10000);
+        assertEquals(10000, large.length);
+        pool.release(large);
+        assertNotSame(large, pool.acquire(10000));
+    }
+
+    @Test
+    public void ignoresForeignBuffers() {
+        BodyBufferPool pool = new BodyBufferPool();
+        byte[] odd = new byte[5000];
+        pool.release(odd);
+        pool.release(new byte[16]);
+        pool.release(null);
+        assertNotSame(odd, pool.acquire(5000));
+    }
+
+    @Test
+    public void retainsAtMostLimitPerClass() {
+        // 每级最多保留 8KB，即 2 个 4KB 缓冲区
+        BodyBufferPool pool = new BodyBufferPool(8192, 8192);
+        byte[] a = new byte[4096];
+        byte[] b = new byte[4096];
+        byte[] c = new byte[4096];
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertSame(a, pool.acquire(4096));
+        assertSame(b, pool.acquire(4096));
+        byte[] fresh = pool.acquire(4096);
+        assertNotSame(c, fresh);
+    }
+
+    @Test
+    public void wrapperReturnsBufferOnRelease() throws IOException {
+        BodyBufferPool pool = new BodyBufferPool();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContent("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request, pool, -1);
+        byte[] buffer = wrapper.getBody().array();
+        wrapper.release();
+        assertSame(buffer, pool.acquire(8));
+    }
+
+    @Test
+    public void rejectsDeclaredContentLengthAboveLimit() throws IOException {
+        try {
+            new BodyCollector(new BodyBufferPool(), 10, 11);
+            fail("Content-Length above the limit should be rejected");
+        } catch (HttpBodyTooLargeException e) {
+            assertEquals("Request body size 11 exceeds the limit of 10 bytes", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsBodyGrowingAboveLimitWhileReading() throws IOException {
+        BodyBufferPool pool = new BodyBufferPool();
+        BodyCollector collector = new BodyCollector(pool, 10, -1);
+        try {
+            collector.readFully(new ByteArrayInputStream(new byte[11]));
+            fail("body above the limit should be rejected");
+        } catch (HttpBodyTooLargeException e) {
+            collector.release();
+        }
+        BodyCollector exact = new BodyCollector(pool, 10, -1);
+        exact.readFully(new ByteArrayInputStream(new byte[10]));
+        assertEquals(10, exact.size());
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 按配置的请求方法与 Content-Type 缓存 body，并按声明的 charset 解码
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BodyFilterTest.Application.class)
+@AutoConfigureMockMvc
+public class BodyFilterTest {
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void buffersConfiguredMethodsAndMediaTypes() throws Exception {
+        BodyFilter filter = new BodyFilter(new BodyBufferPool(), -1, null, Arrays.asList("POST", "PUT", "PATCH", "DELETE"),
+                Arrays.asList(MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        for (String method : Arrays.asList("POST", "PUT", "PATCH", "DELETE")) {
+            assertTrue(method, isBuffered(filter, method, "application/json"));
+        }
+        assertTrue(isBuffered(filter, "POST", "application/vnd.api+json"));
+        assertTrue(isBuffered(filter, "POST", "application/json;charset=GBK"));
+        assertTrue(isBuffered(filter, "POST", null));
+        assertFalse(isBuffered(filter, "GET", "application/json"));
+        assertFalse(isBuffered(filter, "POST", "text/plain"));
+        assertFalse(isBuffered(filter, "POST", "application/xml"));
+        assertFalse(isBuffered(filter, "POST", "not a media type"));
+    }
+
+    @Test
+    public void buffersOnlyPostByDefault() throws Exception {
+        BodyFilter filter = new BodyFilter();
+        assertTrue(isBuffered(filter, "POST", "application/json"));
+        assertFalse(isBuffered(filter, "PUT", "application/json"));
+    }
+
+    @Test
+    public void nullMetricsFallsBackToNoop() throws Exception {
+        BodyFilter filter = new BodyFilter();
+        filter.setMetrics(null);
+        assertTrue(isBuffered(filter, "POST", "application/json"));
+    }
+
+    @Test
+    public void honoursCustomMediaTypes() throws Exception {
+        BodyFilter filter = new BodyFilter(null, -1, null, Collections.singleton("POST"),
+                Collections.singletonList(MediaType.TEXT_PLAIN));
+        assertTrue(isBuffered(filter, "POST", "text/plain"));
+        assertFalse(isBuffered(filter, "POST", "application/json"));
+    }
+
+    @Test
+    public void decodesBodyWithDeclaredCharset() throws Exception {
+        mockMvc.perform(put("/users").contentType("application/vnd.user+json;charset=GBK")
+                .content("{\"name\":\"张三\"}".getBytes(GBK)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("张三"));
+    }
+
+    @Test
+    public void readsCharsetFromContentType() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json;charset=GBK");
+        request.setCharacterEncoding("UTF-8");
+        assertEquals(GBK, BodyRequestWrapper.getCharset(request));
+        request.setContentType("application/json");
+        request.setCharacterEncoding("ISO-8859-1");
+        assertEquals(Charset.forName("ISO-8859-1"), BodyRequestWrapper.getCharset(request));
+        request.setCharacterEncoding(null);
+        assertEquals(Charset.forName("UTF-8"), BodyRequestWrapper.getCharset(request));
+    }
+
+    private static boolean isBuffered(BodyFilter filter, String method, String contentType) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/");
+        if (contentType != null) {
+            request.setContentType(contentType);
+        }
+        request.setContent("{}".getBytes(GBK));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest() instanceof BodyRequestWrapper;
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PutMapping("/users")
+        public String user(@MultiRequestBody String name) {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.starlightcs.filter;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * body 只缓存一次，之后可重复读取且不再拷贝
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodyRequestWrapperTest {
+
+    private static final String BODY = "{\"id\":1,\"name\":\"中文\"}";
+
+    @Test
+    public void rereadsBodyFromStart() throws IOException {
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request(BODY));
+        assertEquals(BODY, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(BODY, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(BODY, FileCopyUtils.copyToString(wrapper.getReader()));
+        assertEquals(BODY, wrapper.getRequestParams());
+        assertEquals(BODY.getBytes(StandardCharsets.UTF_8).length, wrapper.getBodySize());
+    }
+
+    @Test
+    public void sharesBodyWithoutCopying() throws IOException {
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request(BODY));
+        ByteBuffer first = wrapper.getBody();
+        ByteBuffer second = wrapper.getBody();
+        assertTrue(first.hasArray());
+        assertSame(first.array(), second.array());
+        // 调用方移动 position 不影响 wrapper
+        first.position(first.limit());
+        assertEquals(BODY, StandardCharsets.UTF_8.decode(wrapper.getBody()).toString());
+    }
+
+    @Test
+    public void readsBodyShorterThanContentLength() throws IOException {
+        MockHttpServletRequest request = request("{}");
+        request.addHeader("Content-Length", "1048576");
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request);
+        assertEquals("{}", wrapper.getRequestParams());
+    }
+
+    @Test
+    public void decodesRequestParamsWithoutDeclaredCharset() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        assertEquals(BODY, new BodyRequestWrapper(request).getRequestParams());
+
+        Charset gbk = Charset.forName("GBK");
+        request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json;charset=GBK");
+        request.setContent(BODY.getBytes(gbk));
+        assertEquals(BODY, new BodyRequestWrapper(request).getRequestParams());
+    }
+
+    @Test
+    public void emptyBody() throws IOException {
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(new MockHttpServletRequest("POST", "/"));
+        assertEquals(0, wrapper.getBodySize());
+        assertEquals(-1, wrapper.getInputStream().read());
+        assertTrue(wrapper.getInputStream().isFinished());
+    }
+
+    @Test
+    public void pushBackStreamSupportsSkipAndAvailable() throws IOException {
+        BodyRequestWrapper.PushBackServletInputStream in =
+                new BodyRequestWrapper.PushBackServletInputStream(ByteBuffer.wrap("abcdef".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(6, in.available());
+        assertEquals(2, in.skip(2));
+        assertEquals('c', in.read());
+        byte[] b = new byte[8];
+        assertEquals(3, in.read(b, 0, 8));
+        assertEquals(0, in.read(b, 0, 0));
+        assertEquals(-1, in.read(b, 0, 8));
+        assertEquals(0, in.skip(1));
+        assertTrue(in.isFinished());
+        in.rewind();
+        assertFalse(in.isFinished());
+        assertEquals('a', in.read());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void keepsStreamBasedPushBackApi() throws IOException {
+        BodyRequestWrapper.PushBackServletInputStream in =
+                new BodyRequestWrapper.PushBackServletInputStream(new ByteArrayInputStream(new byte[]{1, 2}));
+        assertEquals(1, in.read());
+        in.setStream(new ByteArrayInputStream(new byte[]{7}));
+        assertEquals(7, in.read());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void capsInitialBufferByContentLength() throws IOException {
+        RecordingBufferPool pool = new RecordingBufferPool();
+        new BodyCollector(pool, -1, 100);
+        new BodyCollector(pool, -1, 100L * 1024 * 1024);
+        new BodyCollector(pool, -1, -1);
+        assertEquals(100, (int) pool.requested.get(0));
+        assertEquals(64 * 1024, (int) pool.requested.get(1));
+        assertEquals(4096, (int) pool.requested.get(2));
+    }
+
+    @Test
+    public void growsBufferAsDataArrives() throws IOException {
+        byte[] data = new byte[100 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        BodyCollector collector = new BodyCollector(null, -1, 10);
+        collector.readFully(new ByteArrayInputStream(data));
+        ByteBuffer body = collector.toByteBuffer();
+        assertEquals(data.length, body.remaining());
+        assertEquals(data[data.length - 1], body.get(data.length - 1));
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json;charset=UTF-8");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * 记录申请的缓冲区大小
+     */
+    static class RecordingBufferPool extends BodyBufferPool {
+
+        final List<Integer> requested = new ArrayList<>();
+
+        @Override
+        public byte[] acquire(int minCapacity) {
+            requested.add(minCapacity);
+            return super.acquire(minCapacity);
+        }
+    }
+}
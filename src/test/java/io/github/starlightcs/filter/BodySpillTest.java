@@ -0,0 +1,187 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 超过阈值的 body 溢出到临时文件，以内存映射读取，释放后删除临时文件
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodySpillTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsBodyBelowThresholdOnHeap() throws IOException {
+        BodySpillPolicy policy = policy(64);
+        BodyCollector collector = new BodyCollector(null, -1, -1, -1, policy);
+        collector.readFully(new ByteArrayInputStream(data(64)));
+        assertFalse(collector.isSpilled());
+        assertTrue(collector.toByteBuffer().hasArray());
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void spillsOnceBodyExceedsThreshold() throws IOException {
+        BodySpillPolicy policy = policy(64);
+        byte[] data = data(10_000);
+        BodyCollector collector = new BodyCollector(null, -1, -1, -1, policy);
+        collector.readFully(new ByteArrayInputStream(data));
+        assertTrue(collector.isSpilled());
+        assertEquals(1, spilledFiles(policy));
+        assertEquals(data.length, collector.size());
+
+        // 映射前从文件读取
+        assertEquals(data[5000], collector.get(5000));
+        byte[] part = new byte[10];
+        assertEquals(10, collector.copyTo(100, part, 0, 10));
+        assertArrayEquals(slice(data, 100, 10), part);
+
+        ByteBuffer body = collector.toByteBuffer();
+        assertFalse(body.hasArray());
+        byte[] read = new byte[body.remaining()];
+        body.get(read);
+        assertArrayEquals(data, read);
+        // 映射后从映射读取
+        assertEquals(data[9999], collector.get(9999));
+        assertEquals(4, collector.copyTo(9996, part, 0, 10));
+
+        collector.release();
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void spillsImmediatelyWhenSizeHintExceedsThreshold() throws IOException {
+        BodySpillPolicy policy = policy(64);
+        BodyCollector collector = new BodyCollector(null, -1, 1000, 1000, policy);
+        assertTrue(collector.isSpilled());
+        assertEquals(1, spilledFiles(policy));
+        collector.release();
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void enforcesLimitAfterSpilling() throws IOException {
+        BodySpillPolicy policy = policy(64);
+        BodyCollector collector = new BodyCollector(null, 1000, -1, -1, policy);
+        try {
+            collector.readFully(new ByteArrayInputStream(data(2000)));
+            fail("body above the limit should be rejected");
+        } catch (HttpBodyTooLargeException e) {
+            assertTrue(collector.isSpilled());
+        } finally {
+            collector.release();
+        }
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void wrapperServesSpilledBody() throws IOException {
+        BodySpillPolicy policy = policy(16);
+        StringBuilder json = new StringBuilder("{\"name\":\"");
+        for (int i = 0; i < 100; i++) {
+            json.append("中文");
+        }
+        String body = json.append("\"}").toString();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json;charset=UTF-8");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request, null, -1, -1, policy);
+        assertFalse(wrapper.getBody().hasArray());
+        assertEquals(body, wrapper.getRequestParams());
+        assertEquals(body, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(body, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(1, spilledFiles(policy));
+        wrapper.release();
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void decodesSpilledRequestParamsWithoutDeclaredCharset() throws IOException {
+        BodySpillPolicy policy = policy(16);
+        String body = "{\"name\":\"中文中文中文中文中文中文\"}";
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        BodyRequestWrapper wrapper = new BodyRequestWrapper(request, null, -1, -1, policy);
+        assertFalse(wrapper.getBody().hasArray());
+        assertEquals(body, wrapper.getRequestParams());
+        wrapper.release();
+    }
+
+    @Test
+    public void decodedBodyEstimateIsCapped() throws IOException {
+        BodySpillPolicy policy = policy(128 * 1024);
+        BodyRequestWrapperTest.RecordingBufferPool pool = new BodyRequestWrapperTest.RecordingBufferPool();
+        // 按 4 倍预估为 2MB ，超过溢出阈值；预估值封顶后不在解压前溢出，也不预分配大缓冲区
+        BodyCollector collector = BodyDecoder.createCollector(pool, 512 * 1024, -1, -1, policy);
+        try {
+            assertFalse(collector.isSpilled());
+            assertEquals(64 * 1024, (int) pool.requested.get(0));
+            collector.readFully(new ByteArrayInputStream(data(100 * 1024)));
+            assertFalse(collector.isSpilled());
+            assertEquals(100 * 1024, collector.size());
+        } finally {
+            collector.release();
+        }
+        assertEquals(0, spilledFiles(policy));
+    }
+
+    @Test
+    public void policyThresholds() throws IOException {
+        assertFalse(BodySpillPolicy.NONE.isEnabled());
+        assertFalse(BodySpillPolicy.NONE.shouldSpill(Long.MAX_VALUE));
+        BodySpillPolicy policy = policy(10);
+        assertTrue(policy.isEnabled());
+        assertFalse(policy.shouldSpill(10));
+        assertTrue(policy.shouldSpill(11));
+        assertFalse(policy.shouldSpill(-1));
+        Path file = new BodySpillPolicy(0, folder.getRoot().toPath().resolve("created/lazily")).createFile();
+        assertTrue(file.toFile().isFile());
+        assertEquals(new File(System.getProperty("java.io.tmpdir")).toPath(), new BodySpillPolicy(1, null).getDirectory());
+    }
+
+    private BodySpillPolicy policy(long threshold) throws IOException {
+        return new BodySpillPolicy(threshold, folder.newFolder().toPath());
+    }
+
+    private static int spilledFiles(BodySpillPolicy policy) {
+        String[] files = policy.getDirectory().toFile().list();
+        return files != null ? files.length : 0;
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    private static byte[] slice(byte[] data, int offset, int length) {
+        byte[] slice = new byte[length];
+        System.arraycopy(data, offset, slice, 0, length);
+        return slice;
+    }
+}
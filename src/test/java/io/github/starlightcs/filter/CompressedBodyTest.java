@@ -0,0 +1,149 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Content-Encoding 为 gzip、deflate 的 body 在缓存时解压，解压后大小受限
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = CompressedBodyTest.Application.class)
+@AutoConfigureMockMvc
+public class CompressedBodyTest {
+
+    private static final byte[] BODY = "{\"name\":\"compressed\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void inflatesGzipBody() throws Exception {
+        mockMvc.perform(encoded("gzip", gzip(BODY)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("compressed|null|" + BODY.length + "|" + BODY.length));
+    }
+
+    @Test
+    public void inflatesZlibAndRawDeflateBodies() throws Exception {
+        mockMvc.perform(encoded("deflate", deflate(BODY, false)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("compressed|null|" + BODY.length + "|" + BODY.length));
+        mockMvc.perform(encoded("deflate", deflate(BODY, true)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("compressed|null|" + BODY.length + "|" + BODY.length));
+    }
+
+    @Test
+    public void decodesMultipleEncodingsInReverseOrder() throws Exception {
+        mockMvc.perform(encoded("deflate, x-gzip", gzip(deflate(BODY, false))))
+                .andExpect(status().isOk())
+                .andExpect(content().string("compressed|null|" + BODY.length + "|" + BODY.length));
+    }
+
+    @Test
+    public void keepsIdentityBodyAsIs() throws Exception {
+        mockMvc.perform(encoded("identity", BODY).header(HttpHeaders.CONTENT_LENGTH, BODY.length))
+                .andExpect(status().isOk())
+                .andExpect(content().string("compressed|identity|" + BODY.length + "|" + BODY.length));
+    }
+
+    @Test
+    public void rejectsBodyInflatingBeyondLimit() throws Exception {
+        byte[] bomb = new byte[64 * 1024];
+        Arrays.fill(bomb, (byte) ' ');
+        bomb[0] = '{';
+        bomb[bomb.length - 1] = '}';
+        byte[] compressed = gzip(bomb);
+        mockMvc.perform(encoded("gzip", compressed))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    public void rejectsCorruptOrTruncatedData() throws Exception {
+        mockMvc.perform(encoded("gzip", BODY))
+                .andExpect(status().isBadRequest());
+        byte[] compressed = gzip(BODY);
+        mockMvc.perform(encoded("gzip", Arrays.copyOf(compressed, compressed.length - 12)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(encoded("deflate", "not deflate data".getBytes(StandardCharsets.US_ASCII)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void rejectsUnsupportedEncoding() throws Exception {
+        mockMvc.perform(encoded("br", BODY))
+                .andExpect(status().isUnsupportedMediaType());
+        mockMvc.perform(encoded("gzip, compress", gzip(BODY)))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    private static MockHttpServletRequestBuilder encoded(String contentEncoding, byte[] content) {
+        return post("/compressed").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, contentEncoding).content(content);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (OutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(maxDecompressedBodySize = 1024)
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/compressed")
+        public String compressed(@MultiRequestBody String name, HttpServletRequest request) {
+            return name + "|" + request.getHeader(HttpHeaders.CONTENT_ENCODING) + "|" + request.getContentLength()
+                    + "|" + request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        }
+    }
+}
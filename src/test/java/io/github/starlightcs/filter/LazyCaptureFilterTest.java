@@ -0,0 +1,109 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 开启 lazyCapture 后 filter 不预先读取 body，被拒绝的请求不读取 body
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = LazyCaptureFilterTest.Application.class)
+@AutoConfigureMockMvc
+public class LazyCaptureFilterTest {
+
+    private static final String BODY = "{\"name\":\"lazy\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Application application;
+
+    @Test
+    public void bindsAndRereadsLazilyCapturedBody() throws Exception {
+        mockMvc.perform(post("/lazy").contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(content().string("lazy|" + BODY));
+    }
+
+    @Test
+    public void doesNotReadBodyOfRejectedRequest() throws Exception {
+        mockMvc.perform(post("/lazy").contentType(MediaType.APPLICATION_JSON).content(BODY).header("X-Reject", "true"))
+                .andExpect(status().isForbidden());
+        assertFalse(application.rejectedCaptured);
+        assertEquals(-1, application.rejectedBodySize);
+    }
+
+    @Test
+    public void rejectsDeclaredContentLengthAboveLimit() throws Exception {
+        mockMvc.perform(post("/lazy").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"a name that is much longer than the configured limit\"}"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(lazyCapture = true, maxBodySize = 48)
+    @Import(Controller.class)
+    static class Application implements WebMvcConfigurer {
+
+        volatile boolean rejectedCaptured = true;
+
+        volatile int rejectedBodySize;
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                    if (request.getHeader("X-Reject") == null) {
+                        return true;
+                    }
+                    BodyRequestWrapper wrapper = WebUtils.getNativeRequest(request, BodyRequestWrapper.class);
+                    rejectedCaptured = wrapper == null || wrapper.isCaptured();
+                    rejectedBodySize = wrapper != null ? wrapper.getBodySize() : 0;
+                    response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                    return false;
+                }
+            });
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/lazy")
+        public String lazy(@MultiRequestBody String name, HttpServletRequest request) throws IOException {
+            return name + "|" + StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.exception.HttpBodyTooLargeException;
+import io.github.starlightcs.metrics.MultiRequestBodyMetrics;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 延迟缓存：构建时不读取 body，首个读取方直接读取容器的输入流，再次读取时才补齐完整 body
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class LazyCaptureTest {
+
+    private static final String BODY = "{\"id\":1,\"name\":\"中文\",\"padding\":\"0123456789\"}";
+
+    private static final int BODY_SIZE = BODY.getBytes(StandardCharsets.UTF_8).length;
+
+    @Test
+    public void doesNotTouchBodyUntilRead() throws IOException {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        BodyRequestWrapperTest.RecordingBufferPool pool = new BodyRequestWrapperTest.RecordingBufferPool();
+        BodyRequestWrapper wrapper = lazy(request, pool, -1);
+        assertFalse(wrapper.isCaptured());
+        assertEquals(-1, wrapper.getBodySize());
+        wrapper.release();
+        assertEquals(0, request.opened);
+        assertEquals(0, request.bytesRead);
+        assertTrue(pool.requested.isEmpty());
+    }
+
+    @Test
+    public void firstReaderStreamsFromContainer() throws IOException {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        BodyRequestWrapper wrapper = lazy(request, null, -1);
+        InputStream first = wrapper.getInputStream();
+        byte[] chunk = new byte[8];
+        assertEquals(4, first.read(chunk));
+        // 首个读取方只读取了需要的部分
+        assertTrue(request.bytesRead < BODY_SIZE);
+        assertFalse(wrapper.isCaptured());
+
+        assertEquals(BODY.substring(4), StreamUtils.copyToString(first, StandardCharsets.UTF_8));
+        assertTrue(wrapper.isCaptured());
+        assertEquals(BODY_SIZE, wrapper.getBodySize());
+        assertEquals(-1, first.read());
+        assertEquals(BODY, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(1, request.opened);
+        assertEquals(BODY_SIZE, request.bytesRead);
+    }
+
+    @Test
+    public void secondReaderMaterializesRemainingBody() throws IOException {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        BodyRequestWrapper wrapper = lazy(request, null, -1);
+        InputStream first = wrapper.getInputStream();
+        assertEquals('{', first.read());
+
+        assertEquals(BODY, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertTrue(wrapper.isCaptured());
+        // 首个读取方从自身的位置继续读取
+        assertEquals(BODY.substring(1), StreamUtils.copyToString(first, StandardCharsets.UTF_8));
+        assertEquals(BODY_SIZE, request.bytesRead);
+    }
+
+    @Test
+    public void bodyAccessMaterializesWithoutPriorRead() throws IOException {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        BodyRequestWrapper wrapper = lazy(request, null, -1);
+        assertEquals(BODY, StandardCharsets.UTF_8.decode(wrapper.getBody()).toString());
+        assertEquals(BODY, wrapper.getRequestParams());
+        assertEquals(1, request.opened);
+    }
+
+    @Test
+    public void rejectsDeclaredContentLengthAboveLimit() {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        try {
+            lazy(request, null, 16);
+            fail("Content-Length above the limit should be rejected");
+        } catch (HttpBodyTooLargeException e) {
+            assertEquals(0, request.opened);
+        }
+    }
+
+    @Test
+    public void rejectsBodyExceedingLimitWhileReading() throws IOException {
+        CountingRequest request = new CountingRequest(BODY.getBytes(StandardCharsets.UTF_8));
+        request.chunked = true;
+        BodyRequestWrapper wrapper = lazy(request, null, 16);
+        InputStream in = wrapper.getInputStream();
+        try {
+            StreamUtils.copyToByteArray(in);
+            fail("body above the limit should be rejected");
+        } catch (HttpBodyTooLargeException e) {
+            assertFalse(wrapper.isCaptured());
+        }
+        wrapper.release();
+    }
+
+    @Test
+    public void reportsDecodedContentLengthOnceCaptured() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        CountingRequest request = new CountingRequest(compressed.toByteArray());
+        request.addHeader("Content-Encoding", "gzip");
+        request.addHeader("Content-Length", String.valueOf(compressed.size()));
+        BodyRequestWrapper wrapper = lazy(request, null, -1);
+        assertEquals(-1, wrapper.getContentLength());
+        assertEquals(null, wrapper.getHeader("Content-Encoding"));
+        assertEquals(BODY, StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(BODY_SIZE, wrapper.getContentLength());
+        assertEquals(String.valueOf(BODY_SIZE), wrapper.getHeader("Content-Length"));
+    }
+
+    private static BodyRequestWrapper lazy(CountingRequest request, BodyBufferPool pool, long maxBodySize)
+            throws HttpBodyTooLargeException {
+        return BodyRequestWrapper.lazy(request, pool, maxBodySize, -1, MultiRequestBodyMetrics.NOOP, null);
+    }
+
+    /**
+     * 记录输入流的打开次数与读取的字节数
+     */
+    private static class CountingRequest extends MockHttpServletRequest {
+
+        private final byte[] content;
+
+        int opened;
+
+        int bytesRead;
+
+        /**
+         * 为 true 时不声明 Content-Length
+         */
+        boolean chunked;
+
+        CountingRequest(byte[] content) {
+            super("POST", "/");
+            this.content = content;
+            setContent(content);
+            setContentType("application/json;charset=UTF-8");
+        }
+
+        @Override
+        public int getContentLength() {
+            return chunked ? -1 : super.getContentLength();
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return getContentLength();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            opened++;
+            ByteArrayInputStream in = new ByteArrayInputStream(content);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    int b = in.read();
+                    if (b != -1) {
+                        bytesRead++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    // 每次最多返回 4 个字节，模拟分段到达的 body
+                    int n = in.read(b, off, Math.min(len, 4));
+                    if (n > 0) {
+                        bytesRead += n;
+                    }
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 超出 maxBodySize 的 body 返回 413
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MaxBodySizeTest.Application.class)
+@AutoConfigureMockMvc
+public class MaxBodySizeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void acceptsBodyWithinLimit() throws Exception {
+        mockMvc.perform(post("/limited").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"short\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("short"));
+    }
+
+    @Test
+    public void rejectsBodyAboveLimit() throws Exception {
+        mockMvc.perform(post("/limited").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"a name that is longer than the limit\"}"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    public void doesNotLimitHandlersWithoutMultiRequestBody() throws Exception {
+        mockMvc.perform(post("/plain").contentType(MediaType.APPLICATION_JSON)
+                .content("\"a body that is longer than the limit\""))
+                .andExpect(status().isOk());
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(maxBodySize = 32)
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/limited")
+        public String limited(@MultiRequestBody String name) {
+            return name;
+        }
+
+        @PostMapping("/plain")
+        public String plain(@RequestBody String body) {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.starlightcs.filter;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.HttpMediaTypeOrHttpBodyException;
+import io.github.starlightcs.json.JsonEngineType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.NestedServletException;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 超过溢出阈值的 body 写入临时文件后以流的方式解析，请求结束后删除临时文件
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SpillFilterTest.Application.class)
+@AutoConfigureMockMvc
+public class SpillFilterTest {
+
+    private static final String SPILL_DIRECTORY = "target/spill-filter";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Before
+    public void clean() {
+        FileSystemUtils.deleteRecursively(new File(SPILL_DIRECTORY));
+    }
+
+    @Test
+    public void bindsSpilledBodyAndDeletesFile() throws Exception {
+        StringBuilder body = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 500; i++) {
+            body.append(i > 0 ? "," : "").append("{\"pad\":\"").append(i).append("\"}");
+        }
+        body.append("],\"id\":7,\"tags\":[\"a\",\"b\"]}");
+        mockMvc.perform(post("/spill").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("7|a,b|spilled|1"));
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test
+    public void keepsSmallBodyOnHeap() throws Exception {
+        mockMvc.perform(post("/spill").contentType(MediaType.APPLICATION_JSON).content("{\"id\":1,\"tags\":[]}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1||heap|0"));
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test
+    public void reportsMalformedSpilledBody() throws Exception {
+        StringBuilder body = new StringBuilder("{\"id\":1,\"pad\":\"");
+        for (int i = 0; i < 200; i++) {
+            body.append('x');
+        }
+        try {
+            mockMvc.perform(post("/spill").contentType(MediaType.APPLICATION_JSON).content(body.append("\",").toString()));
+            fail("malformed body should not be bound");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof HttpMediaTypeOrHttpBodyException);
+        }
+        assertEquals(0, spilledFiles());
+    }
+
+    private static int spilledFiles() {
+        String[] files = new File(SPILL_DIRECTORY).list();
+        return files != null ? files.length : 0;
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(spillThreshold = 64, spillDirectory = SPILL_DIRECTORY, jsonEngine = JsonEngineType.JACKSON)
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/spill")
+        public String spill(@MultiRequestBody int id, @MultiRequestBody List<String> tags,
+                            HttpServletRequest request) throws IOException {
+            BodyRequestWrapper wrapper = WebUtils.getNativeRequest(request, BodyRequestWrapper.class);
+            String storage = wrapper.getBody().hasArray() ? "heap" : "spilled";
+            return id + "|" + String.join(",", tags) + "|" + storage + "|" + spilledFiles();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.starlightcs.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * body 位于复用的缓冲区中时，解析错误信息不能带出缓冲区中残留的其他请求数据；已解析的节点直接绑定到目标类型
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class JacksonJsonEngineTest {
+
+    private static final String STALE = "{\"password\":\"secret\"}";
+
+    @Test
+    public void parseErrorDoesNotExposeBuffer() {
+        assertNoLeak(new JacksonJsonEngine(), false);
+        assertNoLeak(new JacksonJsonEngine(), true);
+        assertNoLeak(new FastjsonJsonEngine(), true);
+    }
+
+    private static void assertNoLeak(JsonEngine engine, boolean partial) {
+        byte[] buffer = new byte[64];
+        byte[] stale = STALE.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(stale, 0, buffer, 0, stale.length);
+        byte[] body = "{\"id\":".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(body, 0, buffer, 0, body.length);
+        try {
+            if (partial) {
+                engine.parseObject(buffer, 0, body.length, StandardCharsets.UTF_8, Collections.singleton("id"));
+            } else {
+                engine.parseObject(buffer, 0, body.length, StandardCharsets.UTF_8);
+            }
+            fail("malformed body should not be parsed");
+        } catch (IOException e) {
+            assertFalse(e.getMessage(), e.getMessage().contains("secret"));
+        }
+    }
+
+    @Test
+    public void convertBindsParsedNodeWithoutConvertValue() throws IOException {
+        JacksonJsonEngine engine = new JacksonJsonEngine(new ObjectMapper() {
+            @Override
+            public <T> T convertValue(Object fromValue, JavaType toValueType) {
+                throw new AssertionError("parsed nodes should not be serialized again");
+            }
+        });
+        byte[] body = "{\"user\":{\"id\":1,\"name\":\"n\"},\"ids\":[1,2]}".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> data = engine.parseObject(body, 0, body.length, StandardCharsets.UTF_8);
+        engine.prepare(JsonEngineTest.User.class);
+        JsonEngineTest.User user = (JsonEngineTest.User) engine.convert(data.get("user"), JsonEngineTest.User.class);
+        assertEquals(Long.valueOf(1), user.getId());
+        assertEquals("n", user.getName());
+        assertEquals(LinkedHashMap.class, engine.convert(data.get("user"), Map.class).getClass());
+        assertEquals(Arrays.asList(1, 2), engine.convert(data.get("ids"), List.class));
+    }
+
+    @Test
+    public void parsedNodesReadAsMapsAndLists() throws IOException {
+        JacksonJsonEngine engine = new JacksonJsonEngine();
+        byte[] body = "{\"a\":{\"b\":[\"x\",2,true,null,1.5]},\"n\":null}".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> data = engine.parseObject(body, 0, body.length, StandardCharsets.UTF_8);
+        assertTrue(data.containsKey("n"));
+        assertNull(data.get("n"));
+        assertTrue(engine.isObject(data.get("a")));
+        Object list = ((Map<?, ?>) data.get("a")).get("b");
+        assertTrue(engine.isArray(list));
+        assertEquals(Arrays.asList("x", 2, true, null, 1.5), list);
+        assertEquals(Collections.singletonMap("b", list), data.get("a"));
+    }
+
+    @Test
+    public void rejectsBodyThatIsNotAnObject() throws IOException {
+        JacksonJsonEngine engine = new JacksonJsonEngine();
+        byte[] array = "[1]".getBytes(StandardCharsets.UTF_8);
+        try {
+            engine.parseObject(array, 0, array.length, StandardCharsets.UTF_8);
+            fail("array body should be rejected");
+        } catch (IOException expected) {
+            // expected
+        }
+        byte[] nullBody = "null".getBytes(StandardCharsets.UTF_8);
+        assertNull(engine.parseObject(nullBody, 0, nullBody.length, StandardCharsets.UTF_8));
+    }
+}
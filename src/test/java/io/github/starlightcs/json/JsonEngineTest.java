@@ -0,0 +1,199 @@
+package io.github.starlightcs.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 各 JSON 引擎的解析、节点判断与类型转换结果一致
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(Parameterized.class)
+public class JsonEngineTest {
+
+    private static final String BODY = "{\"id\":1,\"name\":\"n\",\"users\":[{\"id\":2,\"name\":\"u\"}],"
+            + "\"scores\":{\"math\":90},\"skip\":{\"a\":[1,2]}}";
+
+    private static final Type USERS = new ParameterizedTypeReference<List<User>>() {
+    }.getType();
+
+    private static final Type SCORES = new ParameterizedTypeReference<Map<String, Integer>>() {
+    }.getType();
+
+    @Parameterized.Parameter
+    public JsonEngine engine;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> engines() {
+        return Arrays.asList(new Object[][]{
+                {new JacksonJsonEngine()}, {new Fastjson2JsonEngine()}, {new FastjsonJsonEngine()}
+        });
+    }
+
+    @Test
+    public void parsesWholeBody() throws IOException {
+        assertBody(engine.parseObject(bytes(BODY), 0, bytes(BODY).length, StandardCharsets.UTF_8), true);
+        assertBody(engine.parseObject(new ByteArrayInputStream(bytes(BODY)), StandardCharsets.UTF_8), true);
+    }
+
+    @Test
+    public void parsesRequestedKeysOnly() throws IOException {
+        HashSet<String> keys = new HashSet<>(Arrays.asList("id", "name", "users", "scores"));
+        assertBody(engine.parseObject(bytes(BODY), 0, bytes(BODY).length, StandardCharsets.UTF_8, keys), false);
+        assertBody(engine.parseObject(new ByteArrayInputStream(bytes(BODY)), StandardCharsets.UTF_8, keys), false);
+    }
+
+    @Test
+    public void parsesSliceWithCharset() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        byte[] body = "xx{\"name\":\"张三\",\"tags\":[\"标签\"]}".getBytes(gbk);
+        Map<String, Object> data = engine.parseObject(body, 2, body.length - 2, gbk);
+        assertEquals("张三", data.get("name"));
+        Map<String, Object> partial = engine.parseObject(body, 2, body.length - 2, gbk, Collections.singleton("tags"));
+        assertEquals(Collections.singletonList("标签"), engine.convert(partial.get("tags"), List.class));
+    }
+
+    @Test
+    public void parsesAnyValue() throws IOException {
+        Object array = engine.parse(bytes("[{\"id\":1},2]"), 0, 12, StandardCharsets.UTF_8);
+        assertTrue(engine.isArray(array));
+        assertFalse(engine.isObject(array));
+        assertTrue(engine.isArray(engine.parse(new ByteArrayInputStream(bytes("[]")), StandardCharsets.UTF_8)));
+        assertNull(engine.parse(new byte[0], 0, 0, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void convertsNodesToGenericTypes() throws IOException {
+        Map<String, Object> data = engine.parseObject(bytes(BODY), 0, bytes(BODY).length, StandardCharsets.UTF_8);
+        @SuppressWarnings("unchecked")
+        List<User> users = (List<User>) engine.convert(data.get("users"), USERS);
+        assertEquals(User.class, users.get(0).getClass());
+        assertEquals(Long.valueOf(2), users.get(0).getId());
+        assertEquals("u", users.get(0).getName());
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> scores = (Map<String, Integer>) engine.convert(data.get("scores"), SCORES);
+        assertEquals(Integer.valueOf(90), scores.get("math"));
+        engine.prepare(USERS);
+    }
+
+    @Test
+    public void rejectsIncompatibleNode() throws IOException {
+        Map<String, Object> data = engine.parseObject(bytes("{\"users\":[{\"id\":\"abc\"}]}"), 0, 24, StandardCharsets.UTF_8);
+        try {
+            engine.convert(data.get("users"), USERS);
+            fail("\"abc\" should not be converted to Long");
+        } catch (RuntimeException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsMalformedBody() {
+        for (String body : Arrays.asList("{\"id\":", "{\"id\":1}}", "{id:}")) {
+            byte[] bytes = bytes(body);
+            try {
+                engine.parseObject(bytes, 0, bytes.length, StandardCharsets.UTF_8);
+                fail(body + " should be rejected");
+            } catch (IOException expected) {
+                // expected
+            }
+            try {
+                engine.parseObject(bytes, 0, bytes.length, StandardCharsets.UTF_8, Collections.singleton("id"));
+                fail(body + " should be rejected by partial parse");
+            } catch (IOException expected) {
+                // expected
+            }
+            try {
+                engine.parse(bytes, 0, bytes.length, StandardCharsets.UTF_8);
+                fail(body + " should be rejected as a value");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void selectsEngineByType() {
+        JsonEngine custom = new JacksonJsonEngine();
+        assertTrue(JsonEngines.create(JsonEngineType.AUTO, custom, null) == custom);
+        assertTrue(JsonEngines.create(JsonEngineType.AUTO, null, null) instanceof Fastjson2JsonEngine);
+        assertTrue(JsonEngines.create(JsonEngineType.JACKSON, custom, null) instanceof JacksonJsonEngine);
+        assertTrue(JsonEngines.create(JsonEngineType.FASTJSON2, null, null) instanceof Fastjson2JsonEngine);
+        assertTrue(JsonEngines.create(JsonEngineType.FASTJSON, null, null) instanceof FastjsonJsonEngine);
+    }
+
+    @Test
+    public void jacksonEngineUsesApplicationObjectMapper() throws IOException {
+        ObjectMapper strict = new ObjectMapper().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        ObjectMapper lenient = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        byte[] body = bytes("{\"user\":{\"id\":1,\"unknown\":true}}");
+        JsonEngine lenientEngine = JsonEngines.create(JsonEngineType.JACKSON, null, lenient);
+        Object user = lenientEngine.parseObject(body, 0, body.length, StandardCharsets.UTF_8).get("user");
+        assertEquals(Long.valueOf(1), ((User) lenientEngine.convert(user, User.class)).getId());
+        JsonEngine strictEngine = JsonEngines.create(JsonEngineType.JACKSON, null, strict);
+        try {
+            strictEngine.convert(strictEngine.parseObject(body, 0, body.length, StandardCharsets.UTF_8).get("user"), User.class);
+            fail("unknown property should be rejected by the application ObjectMapper");
+        } catch (RuntimeException expected) {
+            // expected
+        }
+    }
+
+    private void assertBody(Map<String, Object> data, boolean whole) {
+        assertEquals(1, ((Number) data.get("id")).intValue());
+        assertEquals("n", data.get("name"));
+        assertTrue(engine.isArray(data.get("users")));
+        assertTrue(engine.isObject(data.get("scores")));
+        assertFalse(engine.isObject(data.get("name")));
+        assertEquals(whole, data.containsKey("skip"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static class User {
+
+        private Long id;
+
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.starlightcs.json;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 流式部分解析只读取所需的顶层 key
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class PartialBodyReaderTest {
+
+    private final PartialBodyReader reader = new PartialBodyReader();
+
+    @Test
+    public void readsOnlyRequestedKeys() throws IOException {
+        Map<String, Object> data = read("{\"skip\":{\"a\":[1,{\"b\":2}]},\"user\":{\"id\":1},\"ids\":[1,2],"
+                + "\"name\":\"n\",\"age\":18,\"score\":1.5,\"ok\":true,\"none\":null,\"tail\":[3]}", "user", "ids", "name", "age",
+                "score", "ok", "none", "missing");
+        assertEquals(new HashSet<>(Arrays.asList("user", "ids", "name", "age", "score", "ok", "none")), data.keySet());
+        assertTrue(data.get("user") instanceof JSONObject);
+        assertEquals(1, ((JSONObject) data.get("user")).getIntValue("id"));
+        assertTrue(data.get("ids") instanceof JSONArray);
+        assertEquals(2, ((JSONArray) data.get("ids")).size());
+        assertEquals("n", data.get("name"));
+        assertEquals(18, ((Number) data.get("age")).intValue());
+        assertEquals(new BigDecimal("1.5"), data.get("score"));
+        assertEquals(Boolean.TRUE, data.get("ok"));
+        assertNull(data.get("none"));
+    }
+
+    @Test
+    public void readsSliceOfBuffer() throws IOException {
+        byte[] buffer = "xx{\"id\":{\"v\":1}}yy".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> data = reader.read(buffer, 2, buffer.length - 4, StandardCharsets.UTF_8, Collections.singleton("id"));
+        assertEquals(1, ((JSONObject) data.get("id")).getIntValue("v"));
+    }
+
+    @Test
+    public void decodesNonUtf8Body() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        byte[] body = "{\"跳过\":\"值\",\"user\":{\"name\":\"张三\"}}".getBytes(gbk);
+        Map<String, Object> data = reader.read(body, 0, body.length, gbk, Collections.singleton("user"));
+        assertEquals("张三", ((JSONObject) data.get("user")).getString("name"));
+    }
+
+    @Test
+    public void emptyBodyOrNoKeysYieldsEmptyMap() throws IOException {
+        assertTrue(reader.read(new byte[0], 0, 0, StandardCharsets.UTF_8, Collections.singleton("id")).isEmpty());
+        assertTrue(read("{\"id\":1}").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNonObjectBody() throws IOException {
+        read("[{\"id\":1}]", "id");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedSkippedValue() throws IOException {
+        read("{\"skip\":[1,2,\"id\":1}", "id");
+    }
+
+    @Test
+    public void stopsAtEndOfTopLevelObject() throws IOException {
+        Map<String, Object> data = read("{\"a\":{\"id\":9},\"id\":1}", "id");
+        assertEquals(1, ((Number) data.get("id")).intValue());
+        assertFalse(data.containsKey("a"));
+    }
+
+    private Map<String, Object> read(String body, String... keys) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        Set<String> set = new HashSet<>(Arrays.asList(keys));
+        return reader.read(bytes, 0, bytes.length, StandardCharsets.UTF_8, set);
+    }
+}
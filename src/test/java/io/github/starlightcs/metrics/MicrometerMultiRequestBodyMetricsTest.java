@@ -0,0 +1,124 @@
+package io.github.starlightcs.metrics;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 存在 MeterRegistry 时按 handler 上报各阶段的指标
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrometerMultiRequestBodyMetricsTest.Application.class)
+@AutoConfigureMockMvc
+public class MicrometerMultiRequestBodyMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void recordsEachStage() throws Exception {
+        String body = "{\"id\":1,\"user\":{\"name\":\"n\"},\"other\":true}";
+        mockMvc.perform(post("/bind").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        String handler = "Controller#bind";
+        assertEquals(1, registry.get("multirequest.body.buffer").tag("handler", handler).timer().count());
+        assertEquals(1, registry.get("multirequest.body.parse").tag("handler", handler).timer().count());
+        // 缺省的参数没有转换，不记录绑定耗时
+        assertEquals(2, registry.get("multirequest.bind").tag("handler", handler).timer().count());
+        assertEquals(1, registry.get("multirequest.validate").tag("handler", handler).timer().count());
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length,
+                registry.get("multirequest.body.size").tag("handler", handler).summary().totalAmount(), 0);
+        // 缺省的非必填参数不计入
+        assertEquals(2, registry.get("multirequest.parameters").tag("handler", handler).summary().totalAmount(), 0);
+    }
+
+    @Test
+    public void countsMissingRequiredParameters() throws Exception {
+        mockMvc.perform(post("/missing").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, registry.get("multirequest.failures").tag("handler", "Controller#missing")
+                .tag("reason", "missing_required").counter().count(), 0);
+        assertEquals(0, registry.get("multirequest.failures").tag("handler", "Controller#missing")
+                .tag("reason", "type_mismatch").counter().count(), 0);
+    }
+
+    @Test
+    public void countsTypeMismatches() throws Exception {
+        mockMvc.perform(post("/mismatch").contentType(MediaType.APPLICATION_JSON).content("{\"id\":\"abc\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, registry.get("multirequest.failures").tag("handler", "Controller#mismatch")
+                .tag("reason", "type_mismatch").counter().count(), 0);
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/bind")
+        public String bind(@MultiRequestBody Long id, @Valid @MultiRequestBody User user,
+                           @MultiRequestBody(required = false) String note) {
+            return id + user.getName() + note;
+        }
+
+        @PostMapping("/missing")
+        public String missing(@MultiRequestBody Long id) {
+            return String.valueOf(id);
+        }
+
+        @PostMapping("/mismatch")
+        public String mismatch(@MultiRequestBody Long id) {
+            return String.valueOf(id);
+        }
+    }
+
+    public static class User {
+
+        @NotNull
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.starlightcs.multirequest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * key 路径编译为前缀树，一次遍历取出所有参数的 value
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class BodyPathIndexTest {
+
+    @Test
+    public void returnsBodyAsIsForTopLevelKeys() {
+        BodyPathIndex index = BodyPathIndex.compile(Arrays.asList("id", "name"));
+        Map<String, Object> body = body();
+        assertSame(body, index.resolve(body));
+        assertEquals(new HashSet<>(Arrays.asList("id", "name")), index.getTopLevelKeys());
+        assertEquals(2, index.size());
+        assertEquals(1, index.countPresent(body));
+    }
+
+    @Test
+    public void resolvesDottedPathsAndArrayIndexes() {
+        BodyPathIndex index = BodyPathIndex.compile(Arrays.asList("id", "payload.order", "payload.order.no",
+                "payload.items.1", "payload.items.5", "payload.missing.x"));
+        Map<String, Object> values = index.resolve(body());
+        assertEquals(1, values.get("id"));
+        assertEquals(Collections.singletonMap("no", "A1"), values.get("payload.order"));
+        assertEquals("A1", values.get("payload.order.no"));
+        assertEquals("b", values.get("payload.items.1"));
+        assertNull(values.get("payload.items.5"));
+        assertFalse(values.containsKey("payload.missing.x"));
+        assertEquals(new HashSet<>(Arrays.asList("id", "payload")), index.getTopLevelKeys());
+        assertEquals(4, index.countPresent(values));
+    }
+
+    @Test
+    public void resolvesJsonPointers() {
+        Map<String, Object> body = new HashMap<>();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("a.b", 1);
+        payload.put("c/d", 2);
+        payload.put("e~f", 3);
+        body.put("payload", payload);
+        BodyPathIndex index = BodyPathIndex.compile(Arrays.asList("/payload/a.b", "/payload/c~1d", "/payload/e~0f"));
+        Map<String, Object> values = index.resolve(body);
+        assertEquals(1, values.get("/payload/a.b"));
+        assertEquals(2, values.get("/payload/c~1d"));
+        assertEquals(3, values.get("/payload/e~0f"));
+    }
+
+    @Test
+    public void pointerToTopLevelKeyWithDot() {
+        BodyPathIndex index = BodyPathIndex.compile(Collections.singletonList("/a.b"));
+        assertEquals(5, index.resolve(Collections.singletonMap("a.b", 5)).get("/a.b"));
+        assertEquals(Collections.singleton("a.b"), index.getTopLevelKeys());
+    }
+
+    @Test
+    public void ignoresNonNumericIndexAndScalarContainers() {
+        BodyPathIndex index = BodyPathIndex.compile(Arrays.asList("payload.items.x", "id.value", "payload.items.1234567890"));
+        assertEquals(0, index.resolve(body()).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptySegment() {
+        BodyPathIndex.compile(Collections.singletonList("payload..order"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTrailingDot() {
+        BodyPathIndex.compile(Collections.singletonList("payload."));
+    }
+
+    private static Map<String, Object> body() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("order", Collections.singletonMap("no", "A1"));
+        List<String> items = Arrays.asList("a", "b");
+        payload.put("items", items);
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", 1);
+        body.put("payload", payload);
+        return body;
+    }
+}
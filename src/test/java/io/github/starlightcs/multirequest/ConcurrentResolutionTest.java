@@ -0,0 +1,130 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBatch;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 高并发下共享的绑定计划、路径索引与批量调用线程池
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ConcurrentResolutionTest.Application.class)
+@AutoConfigureMockMvc
+public class ConcurrentResolutionTest {
+
+    private static final int THREADS = 16;
+
+    private static final int REQUESTS_PER_THREAD = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Controller controller;
+
+    @Test
+    public void resolvesConcurrentRequestsIndependently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    int matched = 0;
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        int id = thread * REQUESTS_PER_THREAD + i;
+                        String response = mockMvc.perform(post("/echo").contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"id\":" + id + ",\"payload\":{\"name\":\"n" + id + "\"},\"flag\":" + (id % 2 == 0) + "}"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                        if (response.equals(id + "|n" + id + "|" + (id % 2 == 0))) {
+                            matched++;
+                        }
+                    }
+                    return matched;
+                }));
+            }
+            // 所有线程同时开始，首批请求并发创建绑定计划与路径索引
+            start.countDown();
+            int matched = 0;
+            for (Future<Integer> future : futures) {
+                matched += future.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(THREADS * REQUESTS_PER_THREAD, matched);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsParallelBatchCallsOnDefaultExecutor() throws Exception {
+        controller.threads.clear();
+        controller.latch = new CountDownLatch(2);
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"id\":1},{\"id\":2}]"))
+                .andExpect(status().isOk());
+        assertEquals(controller.threads.toString(), 2, controller.threads.size());
+        assertTrue(controller.threads.toString(),
+                controller.threads.stream().anyMatch(name -> name.startsWith("multirequest-batch-")));
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        final Set<String> threads = new CopyOnWriteArraySet<>();
+
+        volatile CountDownLatch latch;
+
+        @PostMapping("/echo")
+        public String echo(@MultiRequestBody long id, @MultiRequestBody("payload.name") String name,
+                           @MultiRequestBody Boolean flag) {
+            return id + "|" + name + "|" + flag;
+        }
+
+        @MultiRequestBatch(parallelism = 2)
+        @PostMapping("/batch")
+        public String batch(@MultiRequestBody int id) throws InterruptedException {
+            threads.add(Thread.currentThread().getName());
+            latch.countDown();
+            latch.await(5, TimeUnit.SECONDS);
+            return String.valueOf(id);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.validation.Validation;
+import javax.validation.constraints.Min;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 以方法为单位校验时 handler 实例的获取：以 bean 名称注册的 handler 只解析一次，取不到 HandlerMethod 时直接失败
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class MethodValidationHandlerBeanTest {
+
+    private static final Method METHOD = findMethod();
+
+    private final CountingBeanFactory beanFactory = new CountingBeanFactory();
+
+    private MultiRequestBodyArgumentResolver resolver;
+
+    @Before
+    public void setUp() {
+        RootBeanDefinition definition = new RootBeanDefinition(Controller.class);
+        definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("controller", definition);
+        resolver = new MultiRequestBodyArgumentResolver();
+        resolver.setMethodArgumentsValidator(new MethodArgumentsValidator(Validation.buildDefaultValidatorFactory().getValidator()));
+    }
+
+    @Test
+    public void resolvesNamedHandlerBeanOnce() throws Exception {
+        HandlerMethod handlerMethod = new HandlerMethod("controller", beanFactory, METHOD);
+        assertEquals(2, resolve(handlerMethod, "{\"count\":2}"));
+        assertEquals(3, resolve(handlerMethod, "{\"count\":3}"));
+        assertEquals(1, beanFactory.lookups.get());
+        try {
+            resolve(handlerMethod, "{\"count\":0}");
+            fail("count below 1 should be rejected");
+        } catch (MethodArgumentNotValidException e) {
+            assertEquals("count", e.getBindingResult().getFieldError().getField());
+        }
+        assertEquals(1, beanFactory.lookups.get());
+    }
+
+    @Test
+    public void usesResolvedHandlerBeanDirectly() throws Exception {
+        assertEquals(2, resolve(new HandlerMethod(new Controller(), METHOD), "{\"count\":2}"));
+        assertEquals(0, beanFactory.lookups.get());
+    }
+
+    @Test
+    public void failsWithoutHandlerMethod() throws Exception {
+        assertFailsWith(null);
+        assertFailsWith(new HandlerMethod(new Controller(), Controller.class.getMethod("other", int.class)));
+    }
+
+    private void assertFailsWith(Object handler) throws Exception {
+        try {
+            resolve(handler, "{\"count\":2}");
+            fail("method validation should not be skipped");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        }
+    }
+
+    private Object resolve(Object handler, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/count");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (handler != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+        }
+        MethodParameter parameter = new SynthesizingMethodParameter(METHOD, 0);
+        return resolver.resolveArgument(parameter, null, new ServletWebRequest(request, new MockHttpServletResponse()), null);
+    }
+
+    private static Method findMethod() {
+        try {
+            return Controller.class.getMethod("count", int.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Controller {
+
+        public int count(@MultiRequestBody("count") @Min(1) int count) {
+            return count;
+        }
+
+        public int other(@MultiRequestBody("count") int count) {
+            return count;
+        }
+    }
+
+    private static class CountingBeanFactory extends DefaultListableBeanFactory {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public Object getBean(String name) throws BeansException {
+            lookups.incrementAndGet();
+            return super.getBean(name);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Constraint;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.Payload;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraintvalidation.SupportedValidationTarget;
+import javax.validation.constraintvalidation.ValidationTarget;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 开启 methodValidation 后方法的所有 @MultiRequestBody 参数一次性校验，不再为每个参数创建 WebDataBinder
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MethodValidationTest.Application.class)
+@AutoConfigureMockMvc
+public class MethodValidationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Controller controller;
+
+    @Before
+    public void reset() {
+        controller.binders.set(0);
+    }
+
+    @Test
+    public void acceptsValidArguments() throws Exception {
+        mockMvc.perform(post("/create").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"count\":2,\"user\":{\"id\":1,\"name\":\"n\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2|n"));
+        assertEquals(0, controller.binders.get());
+    }
+
+    @Test
+    public void reportsParameterAndCascadedViolationsTogether() throws Exception {
+        List<String> fields = rejectedFields(post("/create").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"count\":0,\"user\":{\"id\":1}}"));
+        assertEquals(2, fields.size());
+        assertTrue(fields.toString(), fields.contains("count"));
+        assertTrue(fields.toString(), fields.contains("user.name"));
+        assertEquals(0, controller.binders.get());
+    }
+
+    @Test
+    public void usesGroupsFromMethodValidated() throws Exception {
+        // 方法上的 @Validated(Create.class) 只校验 Create 分组，id 为空即失败
+        List<String> fields = rejectedFields(post("/create").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"count\":1,\"user\":{\"name\":\"n\"}}"));
+        assertEquals(1, fields.size());
+        assertEquals("user.id", fields.get(0));
+        // 默认分组不校验 id
+        mockMvc.perform(post("/update").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{\"name\":\"n\"}}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void usesGroupsFromParameterValidated() throws Exception {
+        List<String> fields = rejectedFields(post("/parameter-group").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"user\":{\"name\":\"n\"}}"));
+        assertEquals("user.id", fields.get(0));
+        mockMvc.perform(post("/parameter-group").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"user\":{\"id\":1}}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void reportsCollectionElementPath() throws Exception {
+        List<String> fields = rejectedFields(post("/list").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"name\":\"a\"},{}]}"));
+        assertEquals(1, fields.size());
+        assertEquals("users[1].name", fields.get(0));
+    }
+
+    @Test
+    public void appliesCrossParameterConstraint() throws Exception {
+        mockMvc.perform(post("/range").contentType(MediaType.APPLICATION_JSON).content("{\"from\":1,\"to\":2}"))
+                .andExpect(status().isOk());
+        List<String> fields = rejectedFields(post("/range").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"from\":3,\"to\":2}"));
+        assertEquals(1, fields.size());
+        assertTrue(fields.get(0), fields.get(0).contains("cross-parameter"));
+    }
+
+    @Test
+    public void createsBinderOnlyForErrorsParameter() throws Exception {
+        mockMvc.perform(post("/errors").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{\"id\":1,\"name\":\"n\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+        assertEquals(1, controller.binders.get());
+        // 违反约束时不填充 Errors，直接返回 400
+        mockMvc.perform(post("/errors").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{\"id\":1}}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> rejectedFields(org.springframework.test.web.servlet.RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(status().isBadRequest()).andReturn();
+        assertTrue(result.getResolvedException() instanceof MethodArgumentNotValidException);
+        BindingResult bindingResult = ((MethodArgumentNotValidException) result.getResolvedException()).getBindingResult();
+        return bindingResult.getFieldErrors().stream().map(FieldError::getField).collect(Collectors.toList());
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(methodValidation = true)
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        final AtomicInteger binders = new AtomicInteger();
+
+        @InitBinder
+        public void initBinder(WebDataBinder binder) {
+            binders.incrementAndGet();
+        }
+
+        @Validated({Create.class, javax.validation.groups.Default.class})
+        @PostMapping("/create")
+        public String create(@MultiRequestBody @Min(1) int count, @Valid @MultiRequestBody User user) {
+            return count + "|" + user.getName();
+        }
+
+        @PostMapping("/update")
+        public String update(@Valid @MultiRequestBody User user) {
+            return user.getName();
+        }
+
+        @PostMapping("/parameter-group")
+        public String parameterGroup(@Validated(Create.class) @MultiRequestBody User user) {
+            return String.valueOf(user.getId());
+        }
+
+        @PostMapping("/list")
+        public int list(@Valid @MultiRequestBody List<User> users) {
+            return users.size();
+        }
+
+        @Ordered
+        @PostMapping("/range")
+        public String range(@MultiRequestBody int from, @MultiRequestBody int to) {
+            return from + "-" + to;
+        }
+
+        @PostMapping("/errors")
+        public String errors(@Valid @MultiRequestBody User user, Errors errors) {
+            return String.valueOf(errors.getErrorCount());
+        }
+    }
+
+    interface Create {
+    }
+
+    public static class User {
+
+        @NotNull(groups = Create.class)
+        private Long id;
+
+        @NotNull
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 跨参数约束：第一个参数不大于第二个参数
+     */
+    @Constraint(validatedBy = OrderedValidator.class)
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Ordered {
+
+        String message() default "from must not be greater than to";
+
+        Class<?>[] groups() default {};
+
+        Class<? extends Payload>[] payload() default {};
+    }
+
+    @SupportedValidationTarget(ValidationTarget.PARAMETERS)
+    public static class OrderedValidator implements ConstraintValidator<Ordered, Object[]> {
+
+        @Override
+        public boolean isValid(Object[] value, ConstraintValidatorContext context) {
+            return (int) value[0] <= (int) value[1];
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBatch;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.NestedServletException;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 标注 @MultiRequestBatch 的方法按 body 中的每次调用分别绑定参数并调用
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MultiRequestBatchTest.Application.class)
+@AutoConfigureMockMvc
+public class MultiRequestBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Controller controller;
+
+    @Autowired
+    private CountingInterceptor interceptor;
+
+    @Before
+    public void reset() {
+        controller.initBinders.set(0);
+        interceptor.preHandle.set(0);
+        interceptor.afterCompletion.set(0);
+    }
+
+    @Test
+    public void invokesOncePerArrayElement() throws Exception {
+        mockMvc.perform(post("/sum").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"a\":1,\"b\":2},{\"a\":3,\"b\":4}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("[{\"sum\":3},{\"sum\":7}]", true));
+    }
+
+    @Test
+    public void returnsResultsByCallId() throws Exception {
+        mockMvc.perform(post("/sum").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"first\":{\"a\":1,\"b\":2},\"se\\\"cond\":{\"a\":5,\"b\":5}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"first\":{\"sum\":3},\"se\\\"cond\":{\"sum\":10}}", true));
+    }
+
+    @Test
+    public void writesTextResultsAsJsonStrings() throws Exception {
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"a\\\"b\"},{\"name\":\"c\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[\"hi a\\\"b\",\"hi c\"]"));
+    }
+
+    @Test
+    public void singleCallStillWorksForNonBatchMethods() throws Exception {
+        mockMvc.perform(post("/single").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"x\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("hi x"));
+    }
+
+    @Test
+    public void rejectsTooManyCalls() throws Exception {
+        mockMvc.perform(post("/limited").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/limited").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"1\":{\"name\":\"a\"},\"2\":{\"name\":\"b\"},\"3\":{\"name\":\"c\"}}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/limited").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"a\"},{\"name\":\"b\"}]"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void rejectsCallsThatAreNotObjects() throws Exception {
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON).content("[{\"name\":\"a\"},1]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON).content("{\"x\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON).content("\"calls\""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void rejectsCallMissingRequiredArgument() throws Exception {
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON).content("[{\"name\":\"a\"},{}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void failingCallIsHandledByExceptionHandler() throws Exception {
+        mockMvc.perform(post("/status").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"code\":200},{\"code\":-1}]"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string("failed: -1"));
+    }
+
+    @Test
+    public void propagatesFirstNonSuccessfulCall() throws Exception {
+        mockMvc.perform(post("/status").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"code\":200},{\"code\":404},{\"code\":409}]"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("X-Code", "404"))
+                .andExpect(content().json("{\"code\":404}"));
+    }
+
+    @Test
+    public void mergesResponseHeadersOfSuccessfulCalls() throws Exception {
+        mockMvc.perform(post("/status").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"code\":200},{\"code\":201}]"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Code", "200"))
+                .andExpect(content().json("[{\"code\":200},{\"code\":201}]", true));
+    }
+
+    @Test
+    public void runsInitBinderAndModelAttributeMethodsPerCall() throws Exception {
+        mockMvc.perform(post("/model").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"a\"},{\"name\":\"b\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[\"T:a\",\"T:b\"]"));
+        assertEquals(2, controller.initBinders.get());
+    }
+
+    @Test
+    public void runsCallsInParallel() throws Exception {
+        controller.latch = new CountDownLatch(2);
+        mockMvc.perform(post("/parallel").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"index\":0},{\"index\":1}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"index\":0,\"concurrent\":true},{\"index\":1,\"concurrent\":true}]", true));
+    }
+
+    @Test
+    public void runsInterceptorsOnceForTheWholeBatch() throws Exception {
+        mockMvc.perform(post("/greet").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Intercepted", "true"));
+        assertEquals(1, interceptor.preHandle.get());
+        assertEquals(1, interceptor.afterCompletion.get());
+    }
+
+    @Test
+    public void sequentialCallsSeeTheContainerRequest() throws Exception {
+        mockMvc.perform(post("/snapshot/sequential").contentType(MediaType.APPLICATION_JSON).header("X-Tenant", "t1")
+                .content("[{\"index\":0},{\"index\":1}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[\"t1:0:true\",\"t1:1:true\"]"));
+    }
+
+    @Test
+    public void parallelCallsReadARequestSnapshot() throws Exception {
+        mockMvc.perform(post("/snapshot/parallel").contentType(MediaType.APPLICATION_JSON).header("X-Tenant", "t1")
+                .content("[{\"index\":0},{\"index\":1},{\"index\":2}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[\"t1:0:false\",\"t1:1:false\",\"t1:2:false\"]"));
+    }
+
+    @Test
+    public void parallelCallsCannotCreateSessions() throws Exception {
+        try {
+            mockMvc.perform(post("/session").contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"index\":0},{\"index\":1}]"));
+            fail("parallel calls should not create sessions on the container request");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(e.getCause().getMessage().contains("Cannot create a session"));
+        }
+    }
+
+    @Test
+    public void rejectsAsyncReturnTypes() throws Exception {
+        try {
+            mockMvc.perform(post("/async").contentType(MediaType.APPLICATION_JSON).content("[{\"name\":\"a\"}]"));
+            fail("async return types should not be invoked in batches");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(e.getCause().getMessage().contains("async return type"));
+        }
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application implements WebMvcConfigurer {
+
+        @Bean
+        public CountingInterceptor countingInterceptor() {
+            return new CountingInterceptor();
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(countingInterceptor());
+        }
+    }
+
+    static class CountingInterceptor implements HandlerInterceptor {
+
+        final AtomicInteger preHandle = new AtomicInteger();
+
+        final AtomicInteger afterCompletion = new AtomicInteger();
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            preHandle.incrementAndGet();
+            response.setHeader("X-Intercepted", "true");
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            afterCompletion.incrementAndGet();
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        final AtomicInteger initBinders = new AtomicInteger();
+
+        volatile CountDownLatch latch;
+
+        @InitBinder
+        public void initBinder(WebDataBinder binder) {
+            initBinders.incrementAndGet();
+        }
+
+        @ModelAttribute("tag")
+        public String tag() {
+            return "T";
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/sum")
+        public Map<String, Object> sum(@MultiRequestBody int a, @MultiRequestBody int b) {
+            return Collections.singletonMap("sum", a + b);
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/greet")
+        public String greet(@MultiRequestBody String name) {
+            return "hi " + name;
+        }
+
+        @PostMapping("/single")
+        public String single(@MultiRequestBody String name) {
+            return "hi " + name;
+        }
+
+        @MultiRequestBatch(maxCalls = 2)
+        @PostMapping("/limited")
+        public String limited(@MultiRequestBody String name) {
+            return name;
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/status")
+        public ResponseEntity<Map<String, Object>> status(@MultiRequestBody int code) {
+            if (code < 0) {
+                throw new IllegalArgumentException("failed: " + code);
+            }
+            return ResponseEntity.status(code).header("X-Code", String.valueOf(code))
+                    .body(Collections.singletonMap("code", code));
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/model")
+        public String model(@ModelAttribute("tag") String tag, @MultiRequestBody String name) {
+            return tag + ":" + name;
+        }
+
+        @MultiRequestBatch(parallelism = 4)
+        @PostMapping("/parallel")
+        public Map<String, Object> parallel(@MultiRequestBody int index) throws InterruptedException {
+            latch.countDown();
+            boolean concurrent = latch.await(5, TimeUnit.SECONDS);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", index);
+            result.put("concurrent", concurrent);
+            return result;
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/snapshot/sequential")
+        public String sequentialSnapshot(@RequestHeader("X-Tenant") String tenant, @MultiRequestBody int index,
+                                         HttpServletRequest request) {
+            return describe(tenant, index, request);
+        }
+
+        @MultiRequestBatch(parallelism = 3)
+        @PostMapping("/snapshot/parallel")
+        public String parallelSnapshot(@RequestHeader("X-Tenant") String tenant, @MultiRequestBody int index,
+                                       HttpServletRequest request) {
+            return describe(tenant, index, request);
+        }
+
+        private static String describe(String tenant, int index, HttpServletRequest request) {
+            boolean container = WebUtils.getNativeRequest(request, MockHttpServletRequest.class) != null;
+            return tenant + ":" + index + ":" + container;
+        }
+
+        @MultiRequestBatch(parallelism = 2)
+        @PostMapping("/session")
+        public String session(@MultiRequestBody int index, HttpServletRequest request) {
+            return request.getSession().getId();
+        }
+
+        @MultiRequestBatch
+        @PostMapping("/async")
+        public Callable<String> async(@MultiRequestBody String name) {
+            return () -> name;
+        }
+
+        @ExceptionHandler(IllegalArgumentException.class)
+        public ResponseEntity<String> handle(IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.HttpMediaTypeOrHttpBodyException;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import io.github.starlightcs.json.JacksonJsonEngine;
+import io.github.starlightcs.json.JsonEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.NestedServletException;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 同一请求的 body 只解析一次，由所有 @MultiRequestBody 参数共享
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MultiRequestBodyArgumentResolverTest.Application.class)
+@AutoConfigureMockMvc
+public class MultiRequestBodyArgumentResolverTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountingJsonEngine jsonEngine;
+
+    @Autowired
+    private Controller controller;
+
+    @Before
+    public void reset() {
+        jsonEngine.parses.set(0);
+        controller.binders.set(0);
+    }
+
+    @Test
+    public void parsesBodyOnceForAllParameters() throws Exception {
+        mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":1,\"name\":\"allen\",\"age\":18,\"unused\":{\"a\":[1,2]}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1|allen|18"));
+        assertEquals(1, jsonEngine.parses.get());
+    }
+
+    @Test
+    public void eachRequestParsesItsOwnBody() throws Exception {
+        mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON).content("{\"id\":1,\"name\":\"a\",\"age\":1}"))
+                .andExpect(content().string("1|a|1"));
+        mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON).content("{\"id\":2,\"name\":\"b\",\"age\":2}"))
+                .andExpect(content().string("2|b|2"));
+        assertEquals(2, jsonEngine.parses.get());
+    }
+
+    @Test
+    public void optionalParametersMayBeMissing() throws Exception {
+        mockMvc.perform(post("/optional").contentType(MediaType.APPLICATION_JSON).content("{\"id\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3|null|0"));
+        mockMvc.perform(post("/optional").contentType(MediaType.APPLICATION_JSON).content("{\"id\":3,\"name\":\"n\",\"count\":5}"))
+                .andExpect(content().string("3|n|5"));
+    }
+
+    @Test
+    public void rejectsMissingRequiredParameter() throws Exception {
+        MvcResult result = mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON).content("{\"id\":1,\"age\":2}"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertTrue(result.getResolvedException() instanceof MethodArgumentNotValidException);
+        assertTrue(result.getResolvedException().getMessage().contains("name"));
+    }
+
+    @Test
+    public void rejectsEmptyBodyForRequiredParameter() throws Exception {
+        mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void reportsMalformedBody() throws Exception {
+        try {
+            mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON).content("{\"id\":1,"));
+            fail("malformed body should not be bound");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof HttpMediaTypeOrHttpBodyException);
+        }
+        assertEquals(1, jsonEngine.parses.get());
+    }
+
+    @Test
+    public void collectsValidationErrorsIntoFollowingErrorsParameter() throws Exception {
+        mockMvc.perform(post("/errors").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1|name"));
+        mockMvc.perform(post("/errors").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{\"name\":\"n\"}}"))
+                .andExpect(content().string("0|null"));
+    }
+
+    @Test
+    public void rejectsInvalidParameterWithoutErrors() throws Exception {
+        MvcResult result = mockMvc.perform(post("/valid").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{}}"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertTrue(result.getResolvedException() instanceof MethodArgumentNotValidException);
+    }
+
+    @Test
+    public void createsBinderOnlyForValidatedParameters() throws Exception {
+        mockMvc.perform(post("/shared").contentType(MediaType.APPLICATION_JSON).content("{\"id\":1,\"name\":\"a\",\"age\":1}"))
+                .andExpect(status().isOk());
+        assertEquals(0, controller.binders.get());
+        mockMvc.perform(post("/valid").contentType(MediaType.APPLICATION_JSON).content("{\"user\":{\"name\":\"n\"}}"))
+                .andExpect(status().isOk());
+        assertEquals(1, controller.binders.get());
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+
+        @Bean
+        public CountingJsonEngine jsonEngine() {
+            return new CountingJsonEngine();
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        final AtomicInteger binders = new AtomicInteger();
+
+        @InitBinder
+        public void initBinder(WebDataBinder binder) {
+            binders.incrementAndGet();
+        }
+
+        @PostMapping("/shared")
+        public String shared(@MultiRequestBody Long id, @MultiRequestBody String name, @MultiRequestBody int age) {
+            return id + "|" + name + "|" + age;
+        }
+
+        @PostMapping("/optional")
+        public String optional(@MultiRequestBody Long id, @MultiRequestBody(required = false) String name,
+                               @MultiRequestBody(required = false) int count) {
+            return id + "|" + name + "|" + count;
+        }
+
+        @PostMapping("/errors")
+        public String errors(@Valid @MultiRequestBody User user, Errors errors) {
+            FieldError error = errors.getFieldError();
+            return errors.getErrorCount() + "|" + (error != null ? error.getField() : null);
+        }
+
+        @PostMapping("/valid")
+        public String valid(@Valid @MultiRequestBody User user) {
+            return user.getName();
+        }
+    }
+
+    public static class User {
+
+        @NotNull
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 统计全量解析次数的 Jackson 引擎
+     */
+    static class CountingJsonEngine implements JsonEngine {
+
+        private final JsonEngine delegate = new JacksonJsonEngine();
+
+        final AtomicInteger parses = new AtomicInteger();
+
+        @Override
+        public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) throws IOException {
+            parses.incrementAndGet();
+            return delegate.parseObject(body, offset, length, charset);
+        }
+
+        @Override
+        public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+            parses.incrementAndGet();
+            return delegate.parseObject(body, offset, length, charset, keys);
+        }
+
+        @Override
+        public Object parse(byte[] body, int offset, int length, Charset charset) throws IOException {
+            return delegate.parse(body, offset, length, charset);
+        }
+
+        @Override
+        public boolean isObject(Object value) {
+            return delegate.isObject(value);
+        }
+
+        @Override
+        public boolean isArray(Object value) {
+            return delegate.isArray(value);
+        }
+
+        @Override
+        public Object convert(Object value, Type type) {
+            return delegate.convert(value, type);
+        }
+    }
+}
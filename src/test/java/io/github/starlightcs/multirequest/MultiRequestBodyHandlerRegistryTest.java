@@ -0,0 +1,146 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.filter.BodyRequestWrapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 只缓存最佳匹配 handler 使用了 @MultiRequestBody 的请求
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MultiRequestBodyHandlerRegistryTest.Application.class)
+@AutoConfigureMockMvc
+public class MultiRequestBodyHandlerRegistryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MultiRequestBodyHandlerRegistry registry;
+
+    @Test
+    public void wrapsRequestForMultiRequestBodyHandler() throws Exception {
+        mockMvc.perform(post("/items/5").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"n\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5|n|true"));
+    }
+
+    @Test
+    public void exactMappingWinsOverPattern() throws Exception {
+        mockMvc.perform(post("/items/special").contentType(MediaType.APPLICATION_JSON).content("\"raw\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"raw\"|false"));
+    }
+
+    @Test
+    public void moreSpecificPatternWinsOverWildcard() throws Exception {
+        mockMvc.perform(post("/files/a/b").contentType(MediaType.APPLICATION_JSON).content("\"raw\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"raw\"|false"));
+        mockMvc.perform(post("/files/a").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"f\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("f|true"));
+    }
+
+    @Test
+    public void resolvesHandlerMethod() {
+        assertTrue(registry.isInitialized());
+        assertTrue(registry.matches(request("/items/1")));
+        assertFalse(registry.matches(request("/items/special")));
+        assertNull(registry.getHandlerMethod(request("/unknown")));
+    }
+
+    @Test
+    public void patternFallbackOnlyConsidersMultiRequestBodyMappings() {
+        assertEquals("file", registry.getHandlerMethod(request("/files/a")).getMethod().getName());
+        // 只匹配 /files/** 的请求不缓存
+        assertNull(registry.getHandlerMethod(request("/files/a/b")));
+        // 精确路径存在但请求方法不匹配时，回退到 @MultiRequestBody 的映射
+        MockHttpServletRequest put = request("/items/special");
+        put.setMethod("PUT");
+        assertEquals("update", registry.getHandlerMethod(put).getMethod().getName());
+    }
+
+    @Test
+    public void matchesEverythingBeforeInitialization() {
+        MultiRequestBodyHandlerRegistry uninitialized = new MultiRequestBodyHandlerRegistry(new DefaultListableBeanFactory());
+        assertFalse(uninitialized.isInitialized());
+        assertTrue(uninitialized.matches(request("/unknown")));
+        assertNull(uninitialized.getHandlerMethod(request("/unknown")));
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return request;
+    }
+
+    private static boolean isWrapped(HttpServletRequest request) {
+        return WebUtils.getNativeRequest(request, BodyRequestWrapper.class) != null;
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/items/{id}")
+        public String item(@PathVariable Long id, @MultiRequestBody String name, HttpServletRequest request) {
+            return id + "|" + name + "|" + isWrapped(request);
+        }
+
+        @PutMapping("/items/{id}")
+        public String update(@PathVariable Long id, @MultiRequestBody String name) {
+            return id + "|" + name;
+        }
+
+        @PostMapping("/items/special")
+        public String special(@RequestBody String body, HttpServletRequest request) {
+            return body + "|" + isWrapped(request);
+        }
+
+        @PostMapping("/files/{name}")
+        public String file(@MultiRequestBody String name, HttpServletRequest request) {
+            return name + "|" + isWrapped(request);
+        }
+
+        @PostMapping("/files/**")
+        public String files(@RequestBody String body, HttpServletRequest request) {
+            return body + "|" + isWrapped(request);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiResponseBody;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @MultiResponseBody 方法的各部分返回值以流的方式写出为一个 JSON 对象
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MultiResponseBodyTest.Application.class)
+@AutoConfigureMockMvc
+public class MultiResponseBodyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Controller controller;
+
+    @Test
+    public void writesPartsInOrder() throws Exception {
+        controller.streamClosed.set(false);
+        mockMvc.perform(get("/parts"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string("{\"id\":1,\"stream\":[\"a\",\"b\"],\"iterator\":[1,2,3],"
+                        + "\"nested\":{\"k\":\"v\"},\"empty\":null,\"done\":\"ready\"}"));
+        assertTrue(controller.streamClosed.get());
+    }
+
+    @Test
+    public void waitsForPendingPartsAsynchronously() throws Exception {
+        controller.pending = new CompletableFuture<>();
+        MvcResult result = mockMvc.perform(get("/pending"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        controller.pending.complete(Arrays.asList("x", "y"));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"first\":\"now\",\"later\":[\"x\",\"y\"]}"));
+    }
+
+    @Test
+    public void waitsForCompletionStageOfMap() throws Exception {
+        controller.pendingMap = new CompletableFuture<>();
+        MvcResult result = mockMvc.perform(get("/stage"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        controller.pendingMap.complete(Collections.singletonMap("value", Stream.of(1, 2)));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"value\":[1,2]}"));
+    }
+
+    @Test
+    public void handlesFailedPartWithExceptionHandler() throws Exception {
+        mockMvc.perform(get("/failed"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("unavailable: backend down"));
+    }
+
+    @Test
+    public void handlesPendingPartFailingLater() throws Exception {
+        controller.pending = new CompletableFuture<>();
+        MvcResult result = mockMvc.perform(get("/pending"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        controller.pending.completeExceptionally(new IllegalStateException("timed out"));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("unavailable: timed out"));
+    }
+
+    @Test
+    public void writesNullMap() throws Exception {
+        mockMvc.perform(get("/null"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("null"));
+    }
+
+    @Test
+    public void rejectsNonJsonAccept() throws Exception {
+        mockMvc.perform(get("/parts").accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/null").accept(MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void classLevelAnnotationOnlyAppliesToMapReturns() throws Exception {
+        mockMvc.perform(get("/plain"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("plain"));
+        mockMvc.perform(get("/entity"))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string("entity"));
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    @MultiResponseBody
+    static class Controller {
+
+        final AtomicBoolean streamClosed = new AtomicBoolean();
+
+        volatile CompletableFuture<Object> pending;
+
+        volatile CompletableFuture<Map<String, Object>> pendingMap;
+
+        @GetMapping("/parts")
+        public Map<String, Object> parts() {
+            Map<String, Object> parts = new LinkedHashMap<>();
+            parts.put("id", 1);
+            parts.put("stream", Stream.of("a", "b").onClose(() -> streamClosed.set(true)));
+            parts.put("iterator", Arrays.asList(1, 2, 3).iterator());
+            parts.put("nested", Collections.singletonMap("k", "v"));
+            parts.put("empty", null);
+            parts.put("done", CompletableFuture.completedFuture("ready"));
+            return parts;
+        }
+
+        @GetMapping("/pending")
+        public Map<String, Object> pending() {
+            Map<String, Object> parts = new LinkedHashMap<>();
+            parts.put("first", "now");
+            parts.put("later", pending);
+            return parts;
+        }
+
+        @GetMapping("/stage")
+        public CompletionStage<Map<String, Object>> stage() {
+            return pendingMap;
+        }
+
+        @GetMapping("/failed")
+        public Map<String, Object> failed() {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("backend down"));
+            return Collections.singletonMap("part", failed);
+        }
+
+        @GetMapping("/null")
+        public Map<String, Object> nullMap() {
+            return null;
+        }
+
+        @GetMapping("/plain")
+        public String plain() {
+            return "plain";
+        }
+
+        @GetMapping("/entity")
+        public ResponseEntity<String> entity() {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("entity");
+        }
+
+        @ExceptionHandler(IllegalStateException.class)
+        public ResponseEntity<String> handle(IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("unavailable: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 通过点号路径与 JSON Pointer 绑定嵌套 key，以及无法确定 key 时的报错
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = NestedPathTest.Application.class)
+@AutoConfigureMockMvc
+public class NestedPathTest {
+
+    private static final String ENVELOPE = "{\"meta\":{\"trace\":\"t1\"},"
+            + "\"payload\":{\"order\":{\"no\":\"A1\",\"amount\":3},\"items\":[\"x\",\"y\"]}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void bindsNestedPaths() throws Exception {
+        mockMvc.perform(post("/nested").contentType(MediaType.APPLICATION_JSON).content(ENVELOPE))
+                .andExpect(status().isOk())
+                .andExpect(content().string("A1|3|x,y|t1|y"));
+    }
+
+    @Test
+    public void rejectsMissingRequiredPath() throws Exception {
+        mockMvc.perform(post("/nested").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"meta\":{\"trace\":\"t1\"},\"payload\":{\"items\":[]}}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void bindsOptionalMissingPathAsNull() throws Exception {
+        mockMvc.perform(post("/optional").contentType(MediaType.APPLICATION_JSON).content("{\"payload\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("null"));
+    }
+
+    @Test
+    public void reportsMissingParameterName() throws Exception {
+        Method method = compileWithoutParameterNames().getMethod("handle", String.class);
+        MultiRequestBodyArgumentResolver resolver = new MultiRequestBodyArgumentResolver();
+
+        List<String> errors = resolver.prepare(new MethodParameter[]{new MethodParameter(method, 0)}, false);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("compile with -parameters"));
+
+        try {
+            resolver.bindBatchCall(new ServletWebRequest(new MockHttpServletRequest()), method,
+                    Collections.<String, Object>singletonMap("value", "v"));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("parameter name is not available"));
+        }
+    }
+
+    /**
+     * 以 -g:none 且不带 -parameters 编译一个 handler，使运行时无法取得参数名
+     */
+    private Class<?> compileWithoutParameterNames() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+        File dir = folder.newFolder();
+        File source = new File(dir, "NamelessHandler.java");
+        Files.write(source.toPath(), ("public class NamelessHandler {\n"
+                + "    public void handle(@io.github.starlightcs.annotation.MultiRequestBody String value) {}\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        String classpath = new File(MultiRequestBody.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath();
+        int result = compiler.run(null, null, null, "-g:none", "-cp", classpath, "-d", dir.getPath(), source.getPath());
+        assertEquals(0, result);
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, getClass().getClassLoader());
+        return classLoader.loadClass("NamelessHandler");
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/nested")
+        public String nested(@MultiRequestBody("payload.order.no") String no,
+                             @MultiRequestBody("/payload/order/amount") int amount,
+                             @MultiRequestBody("payload.items") List<String> items,
+                             @MultiRequestBody("meta") Map<String, Object> meta,
+                             @MultiRequestBody("payload.items.1") String second) {
+            return no + "|" + amount + "|" + String.join(",", items) + "|" + meta.get("trace") + "|" + second;
+        }
+
+        @PostMapping("/optional")
+        public String optional(@MultiRequestBody(value = "payload.order.no", required = false) String no) {
+            return String.valueOf(no);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 对象、数组参数直接由已解析的节点转换为完整的泛型类型
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = NodeBindingTest.Application.class)
+@AutoConfigureMockMvc
+public class NodeBindingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void bindsGenericCollectionsWithElementTypes() throws Exception {
+        mockMvc.perform(post("/collections").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"id\":1,\"name\":\"a\"},{\"id\":2}],\"scores\":{\"math\":[90,95]},"
+                        + "\"ids\":[3,3,4],\"tags\":[\"x\",\"y\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("User|User(1,a)|User(2,null)|[90, 95]|Integer|2|[x, y]"));
+    }
+
+    @Test
+    public void bindsNestedObjects() throws Exception {
+        mockMvc.perform(post("/nested").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"group\":{\"name\":\"g\",\"owner\":{\"id\":7,\"name\":\"o\"},\"members\":[{\"id\":8}]}}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("g|User(7,o)|[User(8,null)]"));
+    }
+
+    @Test
+    public void bindsScalarStringFromScalarNode() throws Exception {
+        mockMvc.perform(post("/nested").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"group\":{\"name\":123}}"))
+                .andExpect(content().string("123|null|null"));
+    }
+
+    @Test
+    public void rejectsObjectForCollection() throws Exception {
+        MvcResult result = mockMvc.perform(post("/collections").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":{\"id\":1},\"scores\":{},\"ids\":[],\"tags\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertTrue(result.getResolvedException() instanceof MethodArgumentNotValidException);
+        assertTrue(result.getResolvedException().getMessage().contains("users argument type mismatch"));
+    }
+
+    @Test
+    public void rejectsIncompatibleElementType() throws Exception {
+        mockMvc.perform(post("/collections").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"id\":\"abc\"}],\"scores\":{},\"ids\":[],\"tags\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/collections")
+        public String collections(@MultiRequestBody List<User> users, @MultiRequestBody Map<String, List<Integer>> scores,
+                                  @MultiRequestBody Set<Long> ids, @MultiRequestBody String[] tags) {
+            StringBuilder sb = new StringBuilder(users.isEmpty() ? "" : users.get(0).getClass().getSimpleName());
+            for (User user : users) {
+                sb.append('|').append(user);
+            }
+            List<Integer> math = scores.get("math");
+            return sb.append('|').append(math).append('|').append(math.get(0).getClass().getSimpleName())
+                    .append('|').append(ids.size()).append('|').append(Arrays.toString(tags)).toString();
+        }
+
+        @PostMapping("/nested")
+        public String nested(@MultiRequestBody Group group) {
+            return group.getName() + "|" + group.getOwner() + "|" + group.getMembers();
+        }
+    }
+
+    public static class User {
+
+        private Long id;
+
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return "User(" + id + "," + name + ")";
+        }
+    }
+
+    public static class Group {
+
+        private String name;
+
+        private User owner;
+
+        private List<User> members;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public User getOwner() {
+            return owner;
+        }
+
+        public void setOwner(User owner) {
+            this.owner = owner;
+        }
+
+        public List<User> getMembers() {
+            return members;
+        }
+
+        public void setMembers(List<User> members) {
+            this.members = members;
+        }
+    }
+}
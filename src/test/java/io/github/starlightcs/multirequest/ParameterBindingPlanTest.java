@@ -0,0 +1,105 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.MultiRequestBody;
+import org.junit.Test;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.validation.Errors;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 参数绑定计划只在首次解析时计算，之后复用
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ParameterBindingPlanTest {
+
+    private final MultiRequestBodyArgumentResolver resolver = new MultiRequestBodyArgumentResolver();
+
+    @Test
+    public void cachesPlanPerParameter() throws Exception {
+        MethodParameter parameter = parameter("handle", 0);
+        ParameterBindingPlan plan = resolver.getBindingPlan(parameter);
+        assertSame(plan, resolver.getBindingPlan(parameter));
+        assertSame(plan, resolver.getBindingPlan(parameter("handle", 0)));
+    }
+
+    @Test
+    public void computesScalarPlan() throws Exception {
+        ParameterBindingPlan plan = resolver.getBindingPlan(parameter("handle", 0));
+        assertEquals("id", plan.getName());
+        assertEquals("id", plan.getParameterName());
+        assertTrue(plan.isRequired());
+        assertTrue(plan.isScalarType());
+        assertEquals(0, plan.getDefaultValue());
+        assertFalse(plan.isValidationRequired());
+        assertTrue(plan.isBindExceptionRequired());
+        assertFalse(plan.isBinderRequired());
+        assertFalse(plan.isLastInMethod());
+    }
+
+    @Test
+    public void usesAnnotationValueAsKey() throws Exception {
+        ParameterBindingPlan plan = resolver.getBindingPlan(parameter("handle", 1));
+        assertEquals("user_name", plan.getName());
+        assertEquals("name", plan.getParameterName());
+        assertFalse(plan.isRequired());
+        assertNull(plan.getDefaultValue());
+    }
+
+    @Test
+    public void computesValidationAndErrorsPlan() throws Exception {
+        ParameterBindingPlan validated = resolver.getBindingPlan(parameter("handle", 2));
+        assertFalse(validated.isScalarType());
+        assertEquals(List.class, validated.getParameterType());
+        assertEquals("java.util.List<java.lang.String>", validated.getGenericType().getTypeName());
+        assertArrayEquals(new Object[]{Group.class}, validated.getValidationHints());
+        assertFalse(validated.isBindExceptionRequired());
+        assertTrue(validated.isBinderRequired());
+        assertFalse(validated.isLastInMethod());
+
+        ParameterBindingPlan valid = resolver.getBindingPlan(parameter("handle", 4));
+        assertTrue(valid.isValidationRequired());
+        assertTrue(valid.isBindExceptionRequired());
+        assertTrue(valid.isBinderRequired());
+        assertTrue(valid.isLastInMethod());
+    }
+
+    private static MethodParameter parameter(String name, int index) throws NoSuchMethodException {
+        Method method = null;
+        for (Method candidate : Handler.class.getDeclaredMethods()) {
+            if (candidate.getName().equals(name)) {
+                method = candidate;
+            }
+        }
+        if (method == null) {
+            throw new NoSuchMethodException(name);
+        }
+        MethodParameter parameter = new SynthesizingMethodParameter(method, index);
+        parameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+        return parameter;
+    }
+
+    interface Group {
+    }
+
+    static class Handler {
+
+        void handle(@MultiRequestBody int id, @MultiRequestBody(value = "user_name", required = false) String name,
+                    @Validated(Group.class) @MultiRequestBody List<String> tags, Errors errors,
+                    @Valid @MultiRequestBody Object payload) {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.HttpMediaTypeOrHttpBodyException;
+import io.github.starlightcs.json.JacksonJsonEngine;
+import io.github.starlightcs.json.JsonEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.NestedServletException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 开启流式部分解析后只解析方法参数对应的顶层 key
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = PartialParseTest.Application.class)
+@AutoConfigureMockMvc
+public class PartialParseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private KeyRecordingJsonEngine jsonEngine;
+
+    @Before
+    public void reset() {
+        jsonEngine.requestedKeys.clear();
+    }
+
+    @Test
+    public void parsesOnlyParameterKeys() throws Exception {
+        mockMvc.perform(post("/partial").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"large\":[{\"x\":1},{\"x\":2}],\"id\":5,\"tags\":[\"a\",\"b\"],\"other\":\"o\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5|[a, b]|null"));
+        assertEquals(1, jsonEngine.requestedKeys.size());
+        assertEquals(new HashSet<>(Arrays.asList("id", "tags", "note")), jsonEngine.requestedKeys.get(0));
+    }
+
+    @Test
+    public void rejectsMissingRequiredKey() throws Exception {
+        mockMvc.perform(post("/partial").contentType(MediaType.APPLICATION_JSON).content("{\"tags\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void reportsNonObjectBody() throws Exception {
+        try {
+            mockMvc.perform(post("/partial").contentType(MediaType.APPLICATION_JSON).content("[1,2]"));
+            fail("non-object body should not be bound");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof HttpMediaTypeOrHttpBodyException);
+        }
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(partialParse = true)
+    @Import(Controller.class)
+    static class Application {
+
+        @Bean
+        public KeyRecordingJsonEngine jsonEngine() {
+            return new KeyRecordingJsonEngine();
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/partial")
+        public String partial(@MultiRequestBody Long id, @MultiRequestBody List<String> tags,
+                              @MultiRequestBody(required = false) String note) {
+            return id + "|" + tags + "|" + note;
+        }
+    }
+
+    /**
+     * 记录部分解析请求的 key，不允许全量解析
+     */
+    static class KeyRecordingJsonEngine implements JsonEngine {
+
+        private final JsonEngine delegate = new JacksonJsonEngine();
+
+        final List<Set<String>> requestedKeys = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset) {
+            throw new AssertionError("partial parse should not read the whole body");
+        }
+
+        @Override
+        public Map<String, Object> parseObject(byte[] body, int offset, int length, Charset charset, Set<String> keys) throws IOException {
+            requestedKeys.add(new HashSet<>(keys));
+            return delegate.parseObject(body, offset, length, charset, keys);
+        }
+
+        @Override
+        public Object parse(byte[] body, int offset, int length, Charset charset) throws IOException {
+            return delegate.parse(body, offset, length, charset);
+        }
+
+        @Override
+        public boolean isObject(Object value) {
+            return delegate.isObject(value);
+        }
+
+        @Override
+        public boolean isArray(Object value) {
+            return delegate.isArray(value);
+        }
+
+        @Override
+        public Object convert(Object value, Type type) {
+            return delegate.convert(value, type);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.BindingContext;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WebFlux 下同一请求的 body 只聚合、解析一次
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ReactiveMultiRequestBodyArgumentResolverTest.Application.class,
+        properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveMultiRequestBodyArgumentResolverTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private MultiRequestBodyArgumentResolverTest.CountingJsonEngine jsonEngine;
+
+    @Before
+    public void reset() {
+        jsonEngine.parses.set(0);
+    }
+
+    @Test
+    public void parsesBodyOnceForAllParameters() {
+        post("{\"id\":1,\"tags\":[\"a\",\"b\"],\"user\":{\"id\":2}}")
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("1|a,b|2");
+        assertEquals(1, jsonEngine.parses.get());
+    }
+
+    @Test
+    public void bindsMapParameter() {
+        post("{\"attrs\":{\"k\":\"v\"}}")
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{k=v}");
+    }
+
+    @Test
+    public void decodesDeclaredCharset() {
+        Charset gbk = Charset.forName("GBK");
+        client.post().uri("/charset").contentType(MediaType.parseMediaType("application/json;charset=GBK"))
+                .syncBody("{\"name\":\"张三\"}".getBytes(gbk)).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("张三");
+    }
+
+    @Test
+    public void rejectsMissingRequiredParameter() {
+        post("{\"tags\":[]}").expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void rejectsInvalidParameter() {
+        post("{\"id\":1,\"tags\":[],\"user\":{}}").expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void rejectsBodyAboveLimit() {
+        post("{\"id\":1,\"tags\":[\"a body that is much longer than the sixty-four byte limit\"]}")
+                .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    public void parsesSmallBodyOnCallingThread() throws Exception {
+        String thread = resolveOnThread("{\"name\":\"n\"}");
+        assertEquals(Thread.currentThread().getName(), thread);
+    }
+
+    @Test
+    public void parsesLargeBodyOffEventLoop() throws Exception {
+        char[] padding = new char[ReactiveMultiRequestBodyArgumentResolver.EVENT_LOOP_PARSE_LIMIT];
+        Arrays.fill(padding, 'x');
+        String thread = resolveOnThread("{\"skip\":\"" + new String(padding) + "\",\"name\":\"n\"}");
+        assertTrue(thread, thread.startsWith("parallel-"));
+    }
+
+    /**
+     * 解析 charset 方法的 name 参数，返回发出参数值的线程
+     */
+    private static String resolveOnThread(String body) throws Exception {
+        MethodParameter parameter = new SynthesizingMethodParameter(Controller.class.getMethod("charset", String.class), 0);
+        parameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/charset")
+                .contentType(MediaType.APPLICATION_JSON).body(body));
+        return new ReactiveMultiRequestBodyArgumentResolver().resolveArgument(parameter, new BindingContext(), exchange)
+                .map(arg -> {
+                    assertEquals("n", arg);
+                    return Thread.currentThread().getName();
+                })
+                .block();
+    }
+
+    private WebTestClient.ResponseSpec post(String body) {
+        String uri = body.contains("attrs") ? "/map" : "/bind";
+        return client.post().uri(uri).contentType(MediaType.APPLICATION_JSON).syncBody(body).exchange();
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(maxBodySize = 64)
+    @Import(Controller.class)
+    static class Application {
+
+        @Bean
+        public MultiRequestBodyArgumentResolverTest.CountingJsonEngine jsonEngine() {
+            return new MultiRequestBodyArgumentResolverTest.CountingJsonEngine();
+        }
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/bind")
+        public String bind(@MultiRequestBody Long id, @MultiRequestBody List<String> tags,
+                           @Validated @MultiRequestBody(required = false) User user) {
+            return id + "|" + String.join(",", tags) + "|" + (user != null ? user.getId() : null);
+        }
+
+        @PostMapping("/map")
+        public String map(@MultiRequestBody Map<String, String> attrs) {
+            return attrs.toString();
+        }
+
+        @PostMapping("/charset")
+        public String charset(@MultiRequestBody String name) {
+            return name;
+        }
+
+        @ExceptionHandler(MethodArgumentNotValidException.class)
+        public ResponseEntity<String> invalid(MethodArgumentNotValidException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    public static class User {
+
+        @NotNull
+        private Long id;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+}
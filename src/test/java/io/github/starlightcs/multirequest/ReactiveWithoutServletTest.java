@@ -0,0 +1,68 @@
+package io.github.starlightcs.multirequest;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * WebFlux 应用的 classpath 中没有 Servlet API ，WebFlux 版本的配置与参数解析器不能引用 javax.servlet
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ReactiveWithoutServletTest {
+
+    @Test
+    public void loadsReactiveClassesWithoutServletApi() throws Exception {
+        try (WithoutServletClassLoader classLoader = new WithoutServletClassLoader()) {
+            Class.forName("io.github.starlightcs.config.ReactiveMultiRequestBodyConfigurer", true, classLoader);
+            Class<?> resolverType = Class.forName(ReactiveMultiRequestBodyArgumentResolver.class.getName(), true, classLoader);
+            Object resolver = resolverType.getConstructor().newInstance();
+            assertEquals(classLoader, resolver.getClass().getClassLoader());
+        }
+    }
+
+    @Test
+    public void classLoaderHidesServletApi() throws Exception {
+        try (WithoutServletClassLoader classLoader = new WithoutServletClassLoader()) {
+            Class.forName("io.github.starlightcs.filter.BodyRequestWrapper", true, classLoader);
+            fail("servlet classes should not be loadable");
+        } catch (NoClassDefFoundError e) {
+            assertEquals("javax/servlet/http/HttpServletRequestWrapper", e.getMessage());
+        }
+    }
+
+    /**
+     * 优先从编译输出中加载本项目的类，javax.servlet 不可见，其余委托给父加载器
+     */
+    private static class WithoutServletClassLoader extends URLClassLoader {
+
+        WithoutServletClassLoader() {
+            super(new URL[]{ReactiveMultiRequestBodyArgumentResolver.class.getProtectionDomain().getCodeSource().getLocation()},
+                    ReactiveWithoutServletTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("javax.servlet.")) {
+                throw new ClassNotFoundException(name);
+            }
+            if (!name.startsWith("io.github.starlightcs.")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    type = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.exception.MethodArgumentNotValidException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 基本类型、包装类与常用值类型参数经转换器表绑定
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ScalarBindingTest.Application.class)
+@AutoConfigureMockMvc
+public class ScalarBindingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void bindsScalarParameters() throws Exception {
+        mockMvc.perform(post("/scalars").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":9007199254740993,\"flag\":true,\"wrapped\":\"false\",\"price\":12.50,"
+                        + "\"unit\":\"SECONDS\",\"uuid\":\"00000000-0000-0000-0000-000000000001\",\"day\":\"2020-01-02\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("9007199254740993|true|Boolean:false|12.50|SECONDS|"
+                        + "00000000-0000-0000-0000-000000000001|2020-01-02"));
+    }
+
+    @Test
+    public void usesPrimitiveDefaultsForMissingOptionalValues() throws Exception {
+        mockMvc.perform(post("/defaults").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0|false|0.0"));
+    }
+
+    @Test
+    public void rejectsValueOutOfRange() throws Exception {
+        assertMismatch("{\"value\":2147483648}", "out of range for int");
+        assertMismatch("{\"value\":1.5}", "not an integral value");
+        assertMismatch("{\"value\":\"abc\"}", "cannot convert");
+    }
+
+    @Test
+    public void rejectsUnknownEnumConstant() throws Exception {
+        mockMvc.perform(post("/scalars").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":1,\"flag\":true,\"wrapped\":true,\"price\":1,\"unit\":\"WEEKS\","
+                        + "\"uuid\":\"00000000-0000-0000-0000-000000000001\",\"day\":\"2020-01-02\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertMismatch(String body, String message) throws Exception {
+        MvcResult result = mockMvc.perform(post("/int").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertTrue(result.getResolvedException() instanceof MethodArgumentNotValidException);
+        assertTrue(result.getResolvedException().getMessage(), result.getResolvedException().getMessage().contains(message));
+    }
+
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(Controller.class)
+    static class Application {
+    }
+
+    @RestController
+    static class Controller {
+
+        @PostMapping("/scalars")
+        public String scalars(@MultiRequestBody long id, @MultiRequestBody boolean flag, @MultiRequestBody Boolean wrapped,
+                              @MultiRequestBody BigDecimal price, @MultiRequestBody TimeUnit unit,
+                              @MultiRequestBody UUID uuid, @MultiRequestBody LocalDate day) {
+            return id + "|" + flag + "|" + wrapped.getClass().getSimpleName() + ":" + wrapped + "|" + price.toPlainString()
+                    + "|" + unit + "|" + uuid + "|" + day;
+        }
+
+        @PostMapping("/defaults")
+        public String defaults(@MultiRequestBody(required = false) int count,
+                               @MultiRequestBody(required = false) boolean flag,
+                               @MultiRequestBody(required = false) double ratio) {
+            return count + "|" + flag + "|" + ratio;
+        }
+
+        @PostMapping("/int")
+        public String integer(@MultiRequestBody int value) {
+            return String.valueOf(value);
+        }
+    }
+}
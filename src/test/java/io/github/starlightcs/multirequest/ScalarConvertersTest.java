@@ -0,0 +1,167 @@
+package io.github.starlightcs.multirequest;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 标量转换器的类型覆盖、范围检查与错误信息
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class ScalarConvertersTest {
+
+    @Test
+    public void returnsValuesOfTargetTypeAsIs() {
+        Integer i = 1000;
+        Long l = 1000L;
+        assertSame(i, convert(int.class, i));
+        assertSame(i, convert(Integer.class, i));
+        assertSame(l, convert(long.class, l));
+        assertSame(Boolean.TRUE, convert(boolean.class, Boolean.TRUE));
+        String text = "text";
+        assertSame(text, convert(String.class, text));
+    }
+
+    @Test
+    public void convertsIntegralTypes() {
+        assertEquals(5, convert(int.class, 5L));
+        assertEquals(5, convert(Integer.class, "5"));
+        assertEquals(5, convert(int.class, new BigDecimal("5.00")));
+        assertEquals(5, convert(int.class, 5.0D));
+        assertEquals(Long.MAX_VALUE, convert(long.class, BigInteger.valueOf(Long.MAX_VALUE)));
+        assertEquals(Long.MIN_VALUE, convert(long.class, new BigDecimal(Long.MIN_VALUE)));
+        assertEquals((short) -3, convert(short.class, -3));
+        assertEquals((byte) 127, convert(Byte.class, 127));
+    }
+
+    @Test
+    public void rejectsIntegralValuesOutOfRange() {
+        assertRejected(int.class, (long) Integer.MAX_VALUE + 1, "out of range");
+        assertRejected(int.class, (long) Integer.MIN_VALUE - 1, "out of range");
+        assertRejected(short.class, 40000, "out of range");
+        assertRejected(byte.class, 128, "out of range");
+        assertRejected(long.class, BigInteger.ONE.shiftLeft(63), "out of range");
+        assertRejected(long.class, new BigDecimal("9223372036854775808"), "out of range");
+        assertRejected(long.class, 1e19, "out of range");
+        assertRejected(int.class, Double.NaN, "out of range");
+        assertRejected(int.class, Double.POSITIVE_INFINITY, "out of range");
+    }
+
+    @Test
+    public void rejectsFractionalAndMalformedIntegers() {
+        assertRejected(int.class, 1.5D, "not an integral value");
+        assertRejected(long.class, new BigDecimal("0.1"), "not an integral value");
+        assertRejected(int.class, "1.0", "cannot convert \"1.0\" to int");
+        assertRejected(long.class, "abc", "cannot convert");
+        assertRejected(int.class, Boolean.TRUE, "cannot convert true (Boolean) to int");
+    }
+
+    @Test
+    public void convertsFloatingPointTypes() {
+        assertEquals(1.5D, convert(double.class, 1.5F));
+        assertEquals(2D, convert(Double.class, 2));
+        assertEquals(2.5D, convert(double.class, "2.5"));
+        assertEquals(1.5F, convert(float.class, 1.5D));
+        Float f = 3F;
+        assertSame(f, convert(Float.class, f));
+    }
+
+    @Test
+    public void rejectsNonFiniteFloatingPointValues() {
+        assertRejected(double.class, Double.NaN, "out of range");
+        assertRejected(double.class, Double.NEGATIVE_INFINITY, "out of range");
+        assertRejected(double.class, new BigDecimal("1e999"), "out of range");
+        assertRejected(double.class, "NaN", "out of range");
+        assertRejected(float.class, 1e39, "out of range");
+        assertRejected(float.class, -1e39, "out of range");
+        assertRejected(double.class, "x", "cannot convert");
+    }
+
+    @Test
+    public void convertsBooleansAndCharacters() {
+        assertEquals(Boolean.TRUE, convert(Boolean.class, "TRUE"));
+        assertEquals(Boolean.FALSE, convert(boolean.class, "false"));
+        assertRejected(boolean.class, "yes", "cannot convert");
+        assertRejected(boolean.class, 1, "cannot convert");
+        assertEquals('a', convert(char.class, "a"));
+        assertRejected(Character.class, "ab", "cannot convert");
+    }
+
+    @Test
+    public void convertsTextAndBigNumbers() {
+        assertEquals("12", convert(String.class, 12));
+        assertEquals("true", convert(String.class, true));
+        assertRejected(String.class, new Object(), "cannot convert");
+        assertEquals(new BigDecimal("1.25"), convert(BigDecimal.class, "1.25"));
+        assertEquals(BigDecimal.valueOf(7), convert(BigDecimal.class, 7L));
+        assertEquals(new BigDecimal("0.1"), convert(BigDecimal.class, 0.1D));
+        assertRejected(BigDecimal.class, Double.NaN, "out of range");
+        assertRejected(BigDecimal.class, "1,5", "cannot convert");
+        assertEquals(new BigInteger("123456789012345678901234567890"),
+                convert(BigInteger.class, "123456789012345678901234567890"));
+        assertEquals(BigInteger.TEN, convert(BigInteger.class, new BigDecimal("10.0")));
+        assertRejected(BigInteger.class, 1.5D, "not an integral value");
+    }
+
+    @Test
+    public void convertsEnumsByConstantName() {
+        assertEquals(TimeUnit.SECONDS, convert(TimeUnit.class, "SECONDS"));
+        assertRejected(TimeUnit.class, "seconds", "cannot convert \"seconds\" to TimeUnit");
+        assertRejected(TimeUnit.class, 1, "cannot convert");
+    }
+
+    @Test
+    public void convertsIdentifiersAndTimes() {
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid, convert(UUID.class, uuid.toString()));
+        assertRejected(UUID.class, "not-a-uuid", "cannot convert");
+        assertEquals(LocalDate.of(2020, 1, 2), convert(LocalDate.class, "2020-01-02"));
+        assertEquals(LocalTime.of(10, 30), convert(LocalTime.class, "10:30"));
+        assertEquals(LocalDateTime.of(2020, 1, 2, 10, 30), convert(LocalDateTime.class, "2020-01-02T10:30"));
+        assertEquals(OffsetDateTime.parse("2020-01-02T10:30+08:00"), convert(OffsetDateTime.class, "2020-01-02T10:30+08:00"));
+        assertEquals(Duration.ofSeconds(90), convert(Duration.class, "PT1M30S"));
+        assertEquals(Instant.ofEpochMilli(1000), convert(Instant.class, 1000L));
+        assertEquals(Instant.parse("2020-01-02T10:30:00Z"), convert(Instant.class, "2020-01-02T10:30:00Z"));
+        assertRejected(LocalDate.class, "2020-13-01", "cannot convert");
+        assertRejected(LocalDate.class, 20200102, "cannot convert");
+    }
+
+    @Test
+    public void providesPrimitiveDefaultsAndSkipsNonScalarTypes() {
+        assertEquals(0, ScalarConverters.defaultValue(int.class));
+        assertEquals(false, ScalarConverters.defaultValue(boolean.class));
+        assertEquals('\0', ScalarConverters.defaultValue(char.class));
+        assertNull(ScalarConverters.defaultValue(Integer.class));
+        assertNull(ScalarConverters.forType(Object.class));
+        assertNull(ScalarConverters.forType(java.util.List.class));
+    }
+
+    private static Object convert(Class<?> type, Object value) {
+        return ScalarConverters.forType(type).convert(value);
+    }
+
+    private static void assertRejected(Class<?> type, Object value, String message) {
+        try {
+            Object result = convert(type, value);
+            fail(value + " should not be converted to " + type + ", got " + result);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.starlightcs.multirequest;
+
+import io.github.starlightcs.annotation.EnableMultiRequestBody;
+import io.github.starlightcs.annotation.MultiRequestBody;
+import io.github.starlightcs.json.JacksonJsonEngine;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 启动时检查与预热 handler 的 @MultiRequestBody 参数声明
+ *
+ * @author Allen starlightcs@foxmail.com
+ */
+public class StartupValidationTest {
+
+    @Test
+    public void startsWithInvalidSignatureByDefault() {
+        try (ConfigurableApplicationContext context = run(DefaultApplication.class)) {
+            assertTrue(context.getBean(MultiRequestBodyHandlerRegistry.class).isInitialized());
+        }
+    }
+
+    @Test
+    public void failsOnDuplicateKey() {
+        String message = startupFailure(ValidatingApplication.class);
+        assertTrue(message, message.contains("Invalid @MultiRequestBody handler signatures"));
+        assertTrue(message, message.contains("duplicate key 'id'"));
+        assertTrue(message, message.contains(DuplicateKeyController.class.getName() + "#duplicate parameter 1"));
+    }
+
+    @Test
+    public void failsOnInvalidPath() {
+        String message = startupFailure(InvalidPathApplication.class);
+        assertTrue(message, message.contains("Invalid @MultiRequestBody path: payload..id"));
+    }
+
+    @Test
+    public void startsWithValidSignatures() {
+        try (ConfigurableApplicationContext context = run(ValidApplication.class)) {
+            assertTrue(context.getBean(MultiRequestBodyHandlerRegistry.class).isInitialized());
+        }
+    }
+
+    @Test
+    public void warmUpImpliesValidation() {
+        String message = startupFailure(WarmUpDuplicateKeyApplication.class);
+        assertTrue(message, message.contains("duplicate key 'id'"));
+    }
+
+    @Test
+    public void warmUpPreparesNonScalarTypes() {
+        try (ConfigurableApplicationContext context = run(WarmUpApplication.class)) {
+            List<Type> prepared = context.getBean(RecordingJsonEngine.class).prepared;
+            assertEquals(2, prepared.size());
+            assertTrue(prepared.contains(ResolvableType.forClassWithGenerics(List.class, String.class).getType()));
+            assertTrue(prepared.contains(ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class).getType()));
+        }
+    }
+
+    @Test
+    public void warmUpFailsOnUnsupportedType() {
+        String message = startupFailure(WarmUpUnsupportedApplication.class);
+        assertTrue(message, message.contains("unsupported type " + Unsupported.class.getName()));
+        assertTrue(message, message.contains("cannot deserialize"));
+    }
+
+    private static ConfigurableApplicationContext run(Class<?> application) {
+        return new SpringApplicationBuilder(application)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run();
+    }
+
+    private static String startupFailure(Class<?> application) {
+        try (ConfigurableApplicationContext ignored = run(application)) {
+            fail("application should fail to start");
+            return null;
+        } catch (IllegalStateException e) {
+            assertFalse(e.getMessage().isEmpty());
+            return e.getMessage();
+        }
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody
+    @Import(DuplicateKeyController.class)
+    static class DefaultApplication {
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(validateOnStartup = true)
+    @Import(DuplicateKeyController.class)
+    static class ValidatingApplication {
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(validateOnStartup = true)
+    @Import(InvalidPathController.class)
+    static class InvalidPathApplication {
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(validateOnStartup = true)
+    @Import(ValidController.class)
+    static class ValidApplication {
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(warmUp = true)
+    @Import(DuplicateKeyController.class)
+    static class WarmUpDuplicateKeyApplication {
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(warmUp = true)
+    @Import(ValidController.class)
+    static class WarmUpApplication {
+
+        @Bean
+        public RecordingJsonEngine jsonEngine() {
+            return new RecordingJsonEngine();
+        }
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableMultiRequestBody(warmUp = true)
+    @Import(UnsupportedTypeController.class)
+    static class WarmUpUnsupportedApplication {
+
+        @Bean
+        public RecordingJsonEngine jsonEngine() {
+            return new RecordingJsonEngine();
+        }
+    }
+
+    @RestController
+    static class DuplicateKeyController {
+
+        @PostMapping("/duplicate")
+        public String duplicate(@MultiRequestBody("id") Long id, @MultiRequestBody("id") String sameKey) {
+            return id + sameKey;
+        }
+    }
+
+    @RestController
+    static class InvalidPathController {
+
+        @PostMapping("/path")
+        public String path(@MultiRequestBody("payload..id") Long id) {
+            return String.valueOf(id);
+        }
+    }
+
+    @RestController
+    static class ValidController {
+
+        @PostMapping("/valid")
+        public String valid(@MultiRequestBody Long id, @MultiRequestBody("payload.tags") List<String> tags,
+                            @MultiRequestBody Map<String, Integer> counts) {
+            return id + "|" + tags + "|" + counts;
+        }
+    }
+
+    @RestController
+    static class UnsupportedTypeController {
+
+        @PostMapping("/unsupported")
+        public String unsupported(@MultiRequestBody Unsupported value) {
+            return String.valueOf(value);
+        }
+    }
+
+    static class Unsupported {
+    }
+
+    /**
+     * 记录预热的类型，{@link Unsupported} 视为无法转换
+     */
+    static class RecordingJsonEngine extends JacksonJsonEngine {
+
+        final List<Type> prepared = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void prepare(Type type) {
+            if (type == Unsupported.class) {
+                throw new IllegalArgumentException("cannot deserialize " + type);
+            }
+            prepared.add(type);
+            super.prepare(type);
+        }
+    }
+}